@@ -0,0 +1,112 @@
+package com.lipata.forkauthority.businesslist;
+
+import android.content.Context;
+import android.util.Log;
+import android.view.ContextThemeWrapper;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.FrameLayout;
+import android.widget.TextView;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.lipata.forkauthority.R;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+
+/**
+ * Times inflating and laying out a business card, the two costs every new card pays on first frame
+ * and during a fling. Medians are logged under {@link #TAG} so layouts can be compared on the same
+ * device; the assertions only catch a card that no longer fits in a frame.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BusinessCardLayoutBenchmark {
+
+    private static final String TAG = "CardLayoutBenchmark";
+
+    private static final int WARMUP = 20;
+    private static final int RUNS = 200;
+    private static final long FRAME_NS = 16_000_000L;
+
+    private Context context;
+    private FrameLayout parent;
+    private int widthSpec;
+    private int heightSpec;
+
+    @Before
+    public void setUp() {
+        context = new ContextThemeWrapper(
+                ApplicationProvider.getApplicationContext(), R.style.AppTheme_NoActionBar);
+        parent = new FrameLayout(context);
+        widthSpec = View.MeasureSpec.makeMeasureSpec(
+                context.getResources().getDisplayMetrics().widthPixels, View.MeasureSpec.EXACTLY);
+        heightSpec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+    }
+
+    @Test
+    public void inflate() {
+        final long[] times = new long[RUNS];
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            final LayoutInflater inflater = LayoutInflater.from(context);
+            for (int i = 0; i < WARMUP + RUNS; i++) {
+                final long start = System.nanoTime();
+                inflater.inflate(R.layout.suggestion_list_item, parent, false);
+                if (i >= WARMUP) {
+                    times[i - WARMUP] = System.nanoTime() - start;
+                }
+            }
+        });
+
+        final long median = report("inflate", times);
+        assertThat(median, lessThan(FRAME_NS));
+    }
+
+    @Test
+    public void measureAndLayout() {
+        final long[] times = new long[RUNS];
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            final View card = LayoutInflater.from(context)
+                    .inflate(R.layout.suggestion_list_item, parent, false);
+            final TextView name = card.findViewById(R.id.business_name);
+            final TextView categories = card.findViewById(R.id.business_categories);
+            final TextView descriptiveText = card.findViewById(R.id.business_descriptive_text);
+
+            for (int i = 0; i < WARMUP + RUNS; i++) {
+                // Alternate content, as a recycled card would get, so every pass is a real one
+                final boolean odd = (i & 1) == 1;
+                name.setText(odd ? "Joe's Shanghai" : "The Halal Guys");
+                categories.setText(odd
+                        ? "Shanghainese, Dim Sum, Noodles, Seafood, Soup"
+                        : "Middle Eastern, Halal, Food Stands");
+                descriptiveText.setVisibility(odd ? View.VISIBLE : View.GONE);
+
+                final long start = System.nanoTime();
+                card.measure(widthSpec, heightSpec);
+                card.layout(0, 0, card.getMeasuredWidth(), card.getMeasuredHeight());
+                if (i >= WARMUP) {
+                    times[i - WARMUP] = System.nanoTime() - start;
+                }
+            }
+        });
+
+        final long median = report("measure+layout", times);
+        assertThat(median, lessThan(FRAME_NS));
+    }
+
+    private static long report(final String name, final long[] times) {
+        Arrays.sort(times);
+        final long median = times[times.length / 2];
+        final long p90 = times[times.length * 9 / 10];
+        Log.i(TAG, name + ": median " + median / 1000 + "us, p90 " + p90 / 1000 + "us");
+        return median;
+    }
+}
@@ -0,0 +1,105 @@
+package com.lipata.forkauthority.data.catalog;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.lipata.forkauthority.api.yelp3.entities.Business;
+import com.lipata.forkauthority.api.yelp3.entities.Coordinates;
+import com.lipata.forkauthority.businesslist.BusinessCard;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+@RunWith(AndroidJUnit4.class)
+public class BusinessCatalogTest {
+
+    // Roughly 111 m per 0.001 degree of latitude
+    private static final double LATITUDE = 40.7;
+    private static final double LONGITUDE = -74.0;
+
+    @Test
+    public void getNear_returnsRequestedBusinessesWithinRadiusNearestFirst() {
+        BusinessCatalog catalog = inMemoryCatalog(100);
+        catalog.save(Arrays.asList(
+                business("far", LATITUDE + 0.005),
+                business("near", LATITUDE + 0.001),
+                business("nearer", LATITUDE),
+                business("not-requested", LATITUDE),
+                business("too-far", LATITUDE + 0.02),
+                business("no-coordinates", null)));
+
+        List<BusinessCard.Info> near = catalog.getNear(
+                Arrays.asList("far", "near", "nearer", "too-far", "no-coordinates", "missing"),
+                LATITUDE, LONGITUDE, 1000);
+
+        assertThat(ids(near), contains("nearer", "near", "far"));
+        assertThat(near.get(0).getName(), is("Name of nearer"));
+    }
+
+    @Test
+    public void save_replacesBusinessesFetchedAgain() {
+        BusinessCatalog catalog = inMemoryCatalog(100);
+        catalog.save(Collections.singletonList(business("a", LATITUDE)));
+        Business renamed = business("a", LATITUDE);
+        renamed.name = "New name";
+        catalog.save(Collections.singletonList(renamed));
+
+        List<BusinessCard.Info> near = catalog.getNear(Collections.singletonList("a"), LATITUDE, LONGITUDE, 1000);
+
+        assertThat(near.size(), is(1));
+        assertThat(near.get(0).getName(), is("New name"));
+    }
+
+    @Test
+    public void save_evictsLeastRecentlySeenPastTheBudget() throws Exception {
+        BusinessCatalog catalog = inMemoryCatalog(3);
+        catalog.save(Arrays.asList(business("a", LATITUDE), business("b", LATITUDE), business("c", LATITUDE)));
+        Thread.sleep(5);
+        // Seeing "a" again keeps it
+        catalog.save(Arrays.asList(business("a", LATITUDE), business("d", LATITUDE)));
+
+        List<BusinessCard.Info> near = catalog.getNear(
+                Arrays.asList("a", "b", "c", "d"), LATITUDE, LONGITUDE, 1000);
+
+        assertThat(near.size(), is(3));
+        assertThat(ids(near).contains("a"), is(true));
+        assertThat(ids(near).contains("d"), is(true));
+    }
+
+    private BusinessCatalog inMemoryCatalog(int maxBusinesses) {
+        return new BusinessCatalog(
+                new CatalogDatabase(ApplicationProvider.getApplicationContext(), null),
+                Executors.newSingleThreadExecutor(),
+                maxBusinesses);
+    }
+
+    private static Business business(String id, Double latitude) {
+        Business business = new Business();
+        business.setId(id);
+        business.name = "Name of " + id;
+        if (latitude != null) {
+            business.coordinates = new Coordinates();
+            business.coordinates.latitude = latitude.floatValue();
+            business.coordinates.longitude = (float) LONGITUDE;
+        }
+        return business;
+    }
+
+    private static List<String> ids(List<BusinessCard.Info> infos) {
+        List<String> ids = new ArrayList<>();
+        for (BusinessCard.Info info : infos) {
+            ids.add(info.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,160 @@
+package com.lipata.forkauthority.data.user;
+
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Compares {@link RecordIndex} with the `HashMap<String, BusinessItemRecord>` it replaced, at 1k to
+ * 100k records: the time to look up a result set's worth of IDs (half of them without a record, as in
+ * a real search) and the heap each one retains. Results are logged under {@link #TAG}; the assertions
+ * only check that both found the same records.
+ */
+@RunWith(AndroidJUnit4.class)
+public class RecordIndexBenchmark {
+
+    private static final String TAG = "RecordIndexBenchmark";
+
+    private static final int[] SIZES = {1_000, 10_000, 100_000};
+    private static final int LOOKUPS = 1_000; // Roughly one fetched result set
+    private static final int WARMUP = 20;
+    private static final int RUNS = 200;
+
+    @Test
+    public void lookups() {
+        for (int size : SIZES) {
+            final String[] ids = ids(size);
+            final String[] queries = queries(ids);
+            final HashMap<String, BusinessItemRecord> map = map(ids);
+            final RecordIndex index = index(ids);
+
+            final long[] mapTimes = new long[RUNS];
+            final long[] indexTimes = new long[RUNS];
+            long mapSum = 0;
+            long indexSum = 0;
+            for (int i = 0; i < WARMUP + RUNS; i++) {
+                long start = System.nanoTime();
+                long sum = 0;
+                for (String id : queries) {
+                    // What ListComposer used to do per result
+                    if (map.containsKey(id)) {
+                        sum += map.get(id).getTooSoonClickDate();
+                    }
+                }
+                if (i >= WARMUP) {
+                    mapTimes[i - WARMUP] = System.nanoTime() - start;
+                    mapSum = sum;
+                }
+
+                start = System.nanoTime();
+                sum = 0;
+                for (String id : queries) {
+                    final int slot = index.indexOf(id);
+                    if (slot >= 0) {
+                        sum += index.getTooSoonClickDate(slot);
+                    }
+                }
+                if (i >= WARMUP) {
+                    indexTimes[i - WARMUP] = System.nanoTime() - start;
+                    indexSum = sum;
+                }
+            }
+
+            report(size + " records, HashMap", mapTimes);
+            report(size + " records, RecordIndex", indexTimes);
+            assertThat(indexSum, is(mapSum));
+        }
+    }
+
+    @Test
+    public void retainedHeap() {
+        for (int size : SIZES) {
+            final String[] ids = ids(size);
+
+            final long before = usedHeap();
+            HashMap<String, BusinessItemRecord> map = map(ids);
+            final long mapBytes = usedHeap() - before;
+            final int mapSize = map.size();
+            //noinspection UnusedAssignment Let it be collected before measuring the index
+            map = null;
+
+            final long between = usedHeap();
+            final RecordIndex index = index(ids);
+            final long indexBytes = usedHeap() - between;
+
+            // The ID strings are shared and allocated before either measurement
+            Log.i(TAG, size + " records: HashMap " + mapBytes / size + " B/record, RecordIndex "
+                    + indexBytes / size + " B/record");
+            assertThat(index.size(), is(mapSize));
+        }
+    }
+
+    private static String[] ids(int size) {
+        final String[] ids = new String[size];
+        for (int i = 0; i < size; i++) {
+            // Shaped like Yelp IDs
+            ids[i] = "business-" + Integer.toHexString(i * 0x9E3779B1) + "-new-york";
+        }
+        return ids;
+    }
+
+    /**
+     * Half stored IDs, half new ones, as fresh String objects the way a parsed response has them
+     */
+    private static String[] queries(String[] ids) {
+        final Random random = new Random(42);
+        final String[] queries = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            queries[i] = random.nextBoolean()
+                    ? new String(ids[random.nextInt(ids.length)])
+                    : "business-missing-" + i;
+        }
+        return queries;
+    }
+
+    private static HashMap<String, BusinessItemRecord> map(String[] ids) {
+        final HashMap<String, BusinessItemRecord> map = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            final BusinessItemRecord record = new BusinessItemRecord();
+            record.setId(ids[i]);
+            record.setTooSoonClickDate(i);
+            record.setDontLikeClickDate(i % 3 == 0 ? BusinessItemRecord.LIKED : 0);
+            map.put(ids[i], record);
+        }
+        return map;
+    }
+
+    private static RecordIndex index(String[] ids) {
+        final RecordIndex index = new RecordIndex();
+        for (int i = 0; i < ids.length; i++) {
+            index.put(ids[i], i, i % 3 == 0 ? BusinessItemRecord.LIKED : 0, 0, 0);
+        }
+        return index;
+    }
+
+    private static long usedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            runtime.gc();
+            runtime.runFinalization();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void report(final String name, final long[] times) {
+        Arrays.sort(times);
+        final long median = times[times.length / 2];
+        final long p90 = times[times.length * 9 / 10];
+        Log.i(TAG, name + ": median " + median / 1000 + "us, p90 " + p90 / 1000 + "us per " + LOOKUPS + " lookups");
+    }
+}
@@ -0,0 +1,215 @@
+package com.lipata.forkauthority.data.user;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.lipata.forkauthority.R;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+@RunWith(AndroidJUnit4.class)
+public class SqliteRecordStoreTest {
+
+    private static final String BLOB_KEY = "test_user_records_blob";
+
+    private Context context;
+    private SharedPreferences sharedPrefs;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        sharedPrefs = context.getSharedPreferences(
+                context.getString(R.string.test_shared_prefs_file), Context.MODE_PRIVATE);
+    }
+
+    @After
+    public void tearDown() {
+        sharedPrefs.edit().remove(BLOB_KEY).commit();
+    }
+
+    @Test
+    public void get_returnsOnlyRequestedRecords() {
+        SqliteRecordStore store = inMemoryStore(null);
+        store.put(Arrays.asList(record("a", 1, 0), record("b", 2, 0), record("c", 3, 0)));
+
+        Map<String, BusinessItemRecord> records = store.get(Arrays.asList("a", "c", "missing"));
+
+        assertThat(records.size(), is(2));
+        assertThat(records.get("a").getTooSoonClickDate(), is(1L));
+        assertThat(records.get("c").getTooSoonClickDate(), is(3L));
+    }
+
+    @Test
+    public void expireDontLikes_clearsOnlyOldDontLikes() {
+        SqliteRecordStore store = inMemoryStore(null);
+        store.put(Arrays.asList(
+                record("old", 0, 100),
+                record("new", 0, 200),
+                record("liked", 0, BusinessItemRecord.LIKED)));
+
+        int expired = store.expireDontLikes(100);
+
+        Map<String, BusinessItemRecord> records = store.get(Arrays.asList("old", "new", "liked"));
+        assertThat(expired, is(1));
+        assertThat(records.get("old").getDontLikeClickDate(), is(0L));
+        assertThat(records.get("new").getDontLikeClickDate(), is(200L));
+        assertThat(records.get("liked").getDontLikeClickDate(), is((long) BusinessItemRecord.LIKED));
+    }
+
+    @Test
+    public void expireDontLikes_stampsAndCountsAsLocalChange() throws Exception {
+        SqliteRecordStore store = inMemoryStore(null);
+        store.put(Arrays.asList(record("old", 0, 100), record("new", 0, 200)));
+        long pushed = store.changesSince(0, 10).get(1).changeSeq;
+
+        store.expireDontLikes(100);
+        List<SyncRecord> changes = store.changesSince(pushed, 10);
+
+        assertThat(changes.size(), is(1));
+        assertThat(changes.get(0).businessId, is("old"));
+        assertThat(changes.get(0).dontLikeClickDate, is(0L));
+        assertThat(changes.get(0).dontLikeUpdatedAt > 100, is(true));
+    }
+
+    @Test
+    public void getLikedIds_includesPendingPuts() {
+        SqliteRecordStore store = inMemoryStore(null);
+        store.put(Arrays.asList(
+                record("liked", 0, BusinessItemRecord.LIKED),
+                record("dont-like", 0, 200),
+                record("too-soon", 100, 0)));
+
+        assertThat(store.getLikedIds(), is(Arrays.asList("liked")));
+    }
+
+    @Test
+    public void put_coalescesAndFlushWritesBeforeTheDelay() throws Exception {
+        SqliteRecordStore store = inMemoryStore(null);
+        store.put(Arrays.asList(record("a", 1, 0)));
+        store.put(Arrays.asList(record("a", 2, 0), record("b", 3, 0)));
+        store.put(Arrays.asList(record("a", 4, 0)));
+
+        long start = System.nanoTime();
+        store.flush().get();
+        long waitedMs = (System.nanoTime() - start) / 1_000_000;
+
+        Map<String, BusinessItemRecord> records = store.get(Arrays.asList("a", "b"));
+        assertThat(waitedMs < SqliteRecordStore.WRITE_DELAY_MS, is(true));
+        assertThat(records.get("a").getTooSoonClickDate(), is(4L));
+        assertThat(records.get("b").getTooSoonClickDate(), is(3L));
+    }
+
+    @Test
+    public void changesSince_returnsOnlyChangedRecordsWithChangedFieldsStamped() throws Exception {
+        SqliteRecordStore store = inMemoryStore(null);
+        store.put(Arrays.asList(record("a", 1, 0), record("b", 2, 0)));
+        long pushed = store.changesSince(0, 10).get(1).changeSeq;
+
+        // "b" is put again unchanged, "a" gets a Like
+        store.put(Arrays.asList(record("a", 1, BusinessItemRecord.LIKED), record("b", 2, 0)));
+        List<SyncRecord> changes = store.changesSince(pushed, 10);
+
+        assertThat(changes.size(), is(1));
+        SyncRecord a = changes.get(0);
+        assertThat(a.businessId, is("a"));
+        assertThat(a.dontLikeUpdatedAt >= a.tooSoonUpdatedAt, is(true));
+        assertThat(a.dontLikeUpdatedAt > 0, is(true));
+        assertThat(a.dismissedDateUpdatedAt, is(0L));
+    }
+
+    @Test
+    public void merge_takesNewerFieldsWithoutCountingAsLocalChange() throws Exception {
+        SqliteRecordStore store = inMemoryStore(null);
+        store.put(Arrays.asList(record("a", 1, 0)));
+        long pushed = store.changesSince(0, 10).get(0).changeSeq;
+
+        SyncRecord remote = new SyncRecord("a");
+        remote.dontLikeClickDate = BusinessItemRecord.LIKED;
+        remote.dontLikeUpdatedAt = Long.MAX_VALUE;
+        SyncRecord older = new SyncRecord("b");
+        older.tooSoonClickDate = 5;
+        older.tooSoonUpdatedAt = 5;
+        List<SyncRecord> changed = store.merge(Arrays.asList(remote, older));
+
+        Map<String, BusinessItemRecord> records = store.get(Arrays.asList("a", "b"));
+        assertThat(changed.size(), is(2));
+        assertThat(records.get("a").getTooSoonClickDate(), is(1L));
+        assertThat(records.get("a").getDontLikeClickDate(), is((long) BusinessItemRecord.LIKED));
+        assertThat(records.get("b").getTooSoonClickDate(), is(5L));
+        assertThat(store.changesSince(pushed, 10).isEmpty(), is(true));
+    }
+
+    @Test
+    public void recordsAfter_pagesInIdOrderAndImportsCountAsLocalChanges() throws Exception {
+        SqliteRecordStore store = inMemoryStore(null);
+        SyncRecord b = new SyncRecord("b");
+        b.tooSoonClickDate = 2;
+        b.tooSoonUpdatedAt = 2;
+        SyncRecord a = new SyncRecord("a");
+        a.tooSoonClickDate = 1;
+        a.tooSoonUpdatedAt = 1;
+
+        assertThat(store.importRecords(Arrays.asList(b, a)).size(), is(2));
+
+        List<SyncRecord> first = store.recordsAfter("", 1);
+        assertThat(first.get(0).businessId, is("a"));
+        assertThat(store.recordsAfter("a", 10).get(0).businessId, is("b"));
+        assertThat(store.recordsAfter("b", 10).isEmpty(), is(true));
+        assertThat(store.changesSince(0, 10).size(), is(2));
+    }
+
+    @Test
+    public void watermarks_defaultToZeroAndKeepLatest() throws Exception {
+        SqliteRecordStore store = inMemoryStore(null);
+
+        assertThat(store.getWatermark("pushed:someone"), is(0L));
+        store.setWatermark("pushed:someone", 3);
+        store.setWatermark("pushed:someone", 7);
+        assertThat(store.getWatermark("pushed:someone"), is(7L));
+    }
+
+    @Test
+    public void create_importsBlobAndRemovesIt() throws Exception {
+        sharedPrefs.edit().putString(BLOB_KEY,
+                "{\"a\":{\"Id\":\"a\",\"tooSoonClickDate\":1,\"dontLikeClickDate\":-1},"
+                        + "\"b\":{\"Id\":\"b\",\"dismissedCount\":4}}").commit();
+
+        LegacyRecordMigration migration = new LegacyRecordMigration(sharedPrefs, BLOB_KEY);
+        SqliteRecordStore store = inMemoryStore(migration);
+        Map<String, BusinessItemRecord> records = store.get(Arrays.asList("a", "b"));
+
+        assertThat(records.get("a").getTooSoonClickDate(), is(1L));
+        assertThat(records.get("a").getDontLikeClickDate(), is((long) BusinessItemRecord.LIKED));
+        assertThat(records.get("b").getDismissedCount(), is(4));
+        assertThat(sharedPrefs.contains(BLOB_KEY), is(false));
+    }
+
+    private SqliteRecordStore inMemoryStore(LegacyRecordMigration migration) {
+        return new SqliteRecordStore(
+                new RecordDatabase(context, null, migration),
+                migration,
+                Executors.newSingleThreadScheduledExecutor());
+    }
+
+    private static BusinessItemRecord record(String id, long tooSoonClickDate, long dontLikeClickDate) {
+        BusinessItemRecord record = new BusinessItemRecord();
+        record.setId(id);
+        record.setTooSoonClickDate(tooSoonClickDate);
+        record.setDontLikeClickDate(dontLikeClickDate);
+        return record;
+    }
+}
@@ -5,9 +5,11 @@ import android.content.Context;
 import androidx.test.core.app.ApplicationProvider;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 
-import com.lipata.forkauthority.R;
 import com.lipata.forkauthority.api.yelp3.entities.Business;
 
+import java.util.Collections;
+import java.util.concurrent.Executors;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -28,12 +30,11 @@ public class UserRecordsTest {
     public void setUp() throws Exception {
         Context context = ApplicationProvider.getApplicationContext();
 
-        userRecords = new UserRecords(
-                context,
-                context.getSharedPreferences(
-                        context.getString(R.string.test_shared_prefs_file), // Using a test sharedprefs file
-                        Context.MODE_PRIVATE)
-        );
+        userRecords = new UserRecords(new SqliteRecordStore(
+                new RecordDatabase(context, null, null), // In memory
+                null,
+                Executors.newSingleThreadScheduledExecutor()
+        ));
     }
 
 
@@ -42,8 +43,8 @@ public class UserRecordsTest {
         final String BUSINESS_ID = "test-business";
         int initialDismissedCount;
 
-        if (userRecords.getUserRecords().containsKey(BUSINESS_ID)) {
-            initialDismissedCount = userRecords.getUserRecords().get(BUSINESS_ID).getDismissedCount();
+        if (getDismissedCount(BUSINESS_ID) != null) {
+            initialDismissedCount = getDismissedCount(BUSINESS_ID);
         } else {
             Business business = new Business();
             business.setId(BUSINESS_ID);
@@ -51,17 +52,20 @@ public class UserRecordsTest {
             // At this time, we don't have a method to simply add a record,
             // this will add the record and set dismissedCount to 1 if it doesn't already exist
             userRecords.incrementDismissedCount(BUSINESS_ID);
-            initialDismissedCount = userRecords
-                    .getUserRecords()
-                    .get(BUSINESS_ID)
-                    .getDismissedCount();
+            initialDismissedCount = getDismissedCount(BUSINESS_ID);
         }
 
         userRecords.incrementDismissedCount(BUSINESS_ID);
 
-        int newDismissedCount = userRecords.getUserRecords().get(BUSINESS_ID).getDismissedCount();
+        int newDismissedCount = getDismissedCount(BUSINESS_ID);
 
         assertThat(newDismissedCount, is(initialDismissedCount + 1));
     }
 
+    private Integer getDismissedCount(String businessId) {
+        RecordIndex records = userRecords.getRecords(Collections.singletonList(businessId));
+        int slot = records.indexOf(businessId);
+        return slot >= 0 ? records.getDismissedCount(slot) : null;
+    }
+
 }
\ No newline at end of file
@@ -1,6 +1,9 @@
 package com.lipata.forkauthority
 
 import android.app.Application
+import androidx.lifecycle.Lifecycle
+import androidx.lifecycle.LifecycleEventObserver
+import androidx.lifecycle.ProcessLifecycleOwner
 import com.lipata.forkauthority.di.AppComponent
 import com.lipata.forkauthority.di.AppModule
 import com.lipata.forkauthority.di.DaggerAppComponent
@@ -18,9 +21,30 @@ class ForkAuthorityApp : Application() {
             Timber.plant(Timber.DebugTree())
         }
 
+        // Open the user record database off the main thread before the first list needs it
+        appComponent.userRecords().warmUp()
+
+        // Record writes are held back briefly, don't leave any behind when the app goes away.
+        // Sync with the user's other devices when the app comes and goes.
+        ProcessLifecycleOwner.get().lifecycle.addObserver(LifecycleEventObserver { _, event ->
+            when (event) {
+                Lifecycle.Event.ON_START -> appComponent.recordSync().requestSync()
+                Lifecycle.Event.ON_STOP -> {
+                    appComponent.userRecords().flush()
+                    appComponent.recordSync().requestSync()
+                }
+                else -> Unit
+            }
+        })
+
         //initFabric()
     }
 
+    override fun onTrimMemory(level: Int) {
+        super.onTrimMemory(level)
+        appComponent.userRecords().flush()
+    }
+
 //    private fun initFabric() {
 //        Fabric.with(this, Crashlytics())
 //        val fabric = Fabric.Builder(this)
@@ -5,9 +5,14 @@ import android.os.Bundle
 import androidx.appcompat.app.AppCompatActivity
 import com.lipata.forkauthority.poll.PollActivity
 import com.lipata.forkauthority.businesslist.BusinessListActivity
+import com.lipata.forkauthority.businesslist.ListMetrics
+import com.lipata.forkauthority.image.ImageLoader
 import kotlinx.android.synthetic.main.activity_debug.*
+import javax.inject.Inject
 
 class LaunchActivity : AppCompatActivity() {
+    @Inject lateinit var listMetrics: ListMetrics
+    @Inject lateinit var imageLoader: ImageLoader
 
     override fun onCreate(savedInstanceState: Bundle?) {
         super.onCreate(savedInstanceState)
@@ -20,7 +25,15 @@ class LaunchActivity : AppCompatActivity() {
         }
     }
 
+    override fun onResume() {
+        super.onResume()
+        if (BuildConfig.DEBUG) {
+            showListMetrics()
+        }
+    }
+
     private fun showDebugActivity() {
+        (application as ForkAuthorityApp).appComponent.inject(this)
         setContentView(R.layout.activity_debug)
 
         textViewRestaurantList.setOnClickListener {
@@ -30,6 +43,17 @@ class LaunchActivity : AppCompatActivity() {
         textViewPoll.setOnClickListener {
             launchPollActivity()
         }
+
+        textViewListMetrics.setOnClickListener {
+            listMetrics.reset()
+            showListMetrics()
+        }
+    }
+
+    private fun showListMetrics() {
+        textViewListMetrics.text = listMetrics.summary() +
+            "\nImages downloaded since launch: ${imageLoader.downloadCount}, " +
+            "${imageLoader.downloadedBytes / 1024} KB"
     }
 
     private fun launchRestaurantListFeature() {
@@ -5,12 +5,9 @@ import com.google.gson.annotations.SerializedName;
 import com.lipata.forkauthority.data.AppSettings;
 import com.lipata.forkauthority.businesslist.BusinessListBaseItem;
 import com.lipata.forkauthority.businesslist.ListItemTypes;
-import com.lipata.forkauthority.util.Utility;
 
 import java.util.List;
 
-import timber.log.Timber;
-
 import static com.lipata.forkauthority.data.user.BusinessItemRecord.LIKED;
 
 public class Business extends BusinessListBaseItem {
@@ -145,6 +142,13 @@ public class Business extends BusinessListBaseItem {
      * @return Returns supplementary text that explains the user's preferences for this business.  Returns `null` if the preferences haven't been set.
      */
     public String getDescriptiveText() {
+        return getDescriptiveText(dontLikeClickDate, tooSoonClickDate, System.currentTimeMillis());
+    }
+
+    /**
+     * @see #getDescriptiveText()
+     */
+    public static String getDescriptiveText(long dontLikeClickDate, long tooSoonClickDate, long now) {
         StringBuilder stringBuilder = new StringBuilder();
 
         // Case where neither field has been set
@@ -161,8 +165,7 @@ public class Business extends BusinessListBaseItem {
 
 
         // Case for Just Ate Here (Expired and Not Expired)
-        String monthDayYear = Utility.formatDate(tooSoonClickDate);
-        int days = (int) ((System.currentTimeMillis() - tooSoonClickDate) / 86400000); // Number of milliseconds in a day
+        int days = (int) ((now - tooSoonClickDate) / 86400000); // Number of milliseconds in a day
         if (tooSoonClickDate != 0) {
             if (days > 1) {
                 if (dontLikeClickDate == 0) {
@@ -188,6 +191,9 @@ public class Business extends BusinessListBaseItem {
      * `categories` field from JSON is an ArrayList.  This method formats it into a String for display to UI
      */
     public String getFormattedCategories() {
+        if (categories == null) {
+            return "";
+        }
         StringBuilder stringBuilder = new StringBuilder();
         for (int i = 0; i < categories.size(); i++) {
             String category = categories.get(i).getTitle();
@@ -228,7 +234,6 @@ public class Business extends BusinessListBaseItem {
     }
 
     public String getRating() {
-        Timber.v("getRating() %s", rating);
         return rating;
     }
 
@@ -0,0 +1,70 @@
+package com.lipata.forkauthority.businesslist
+
+import com.lipata.forkauthority.api.yelp3.entities.Business
+import com.lipata.forkauthority.data.user.BusinessItemRecord
+
+/**
+ * Immutable display model for one business card.
+ *
+ * [Business] is the raw Yelp response. This is what the list actually shows: every string is
+ * already formatted, so the adapter only copies fields into views. Cards are built off the main
+ * thread by [BusinessCardFactory] while the list is composed. A user action replaces the card with
+ * a copy via [withUserState] instead of mutating it.
+ *
+ * [text] is the same strings already laid out for their TextViews. It is derived from the other
+ * fields, so it is left out of equality.
+ */
+data class BusinessCard(
+    val info: Info,
+    val dontLikeClickDate: Long,
+    val tooSoonClickDate: Long,
+    val descriptiveText: String?
+) : BusinessListBaseItem() {
+
+    /**
+     * The part of the card that comes from Yelp and doesn't change with user actions
+     */
+    data class Info(
+        val id: String,
+        val name: String,
+        val url: String,
+        val imageUrl: String,
+        val isClosed: Boolean,
+        val categories: String,
+        val address: String,
+        val reviewCount: String,
+        /** Rating in half stars, 0 to 10 */
+        val ratingBucket: Int
+    )
+
+    /**
+     * Set once by [BusinessCardFactory], before the card is handed to the UI
+     */
+    var text: PrecomputedCardText? = null
+        internal set
+
+    val id: String
+        get() = info.id
+
+    val isLiked: Boolean
+        get() = dontLikeClickDate == BusinessItemRecord.LIKED.toLong()
+
+    val isDontLike: Boolean
+        get() = dontLikeClickDate > 0
+
+    fun withUserState(dontLikeClickDate: Long, tooSoonClickDate: Long): BusinessCard {
+        val updated = BusinessCard(
+            info,
+            dontLikeClickDate,
+            tooSoonClickDate,
+            Business.getDescriptiveText(dontLikeClickDate, tooSoonClickDate, System.currentTimeMillis())
+        )
+        // Yelp info didn't change. The new descriptive text is short, the TextView can lay it out.
+        updated.text = text?.withoutDescriptiveText()
+        return updated
+    }
+
+    override fun getViewType(): Int {
+        return ListItemTypes.BUSINESS
+    }
+}
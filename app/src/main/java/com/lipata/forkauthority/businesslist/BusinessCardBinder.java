@@ -0,0 +1,62 @@
+package com.lipata.forkauthority.businesslist;
+
+/**
+ * Copies a {@link BusinessListRow.Card} into a {@link BusinessCardView}.
+ *
+ * This runs for every card that scrolls into view, so it must not allocate or format anything.
+ * All strings are prepared in {@link BusinessCard} during composition, and laid out too if
+ * {@link CardTextPrecomputer} could. See BusinessCardBinderTest.
+ */
+final class BusinessCardBinder {
+
+    private BusinessCardBinder() {
+    }
+
+    static void bind(final BusinessListRow.Card row, final BusinessCardView view) {
+        final BusinessCard card = row.getCard();
+        final BusinessCard.Info info = card.getInfo();
+        final PrecomputedCardText text = card.getText();
+
+        view.setImageUrl(info.getImageUrl());
+        view.setClosed(info.isClosed());
+        view.setRank(row.getRankLabel());
+        view.setName(text != null ? text.getName() : info.getName());
+        view.setRating(info.getRatingBucket());
+        view.setReviewCount(info.getReviewCount());
+        view.setCategories(text != null ? text.getCategories() : info.getCategories());
+        view.setAddress(text != null ? text.getAddress() : info.getAddress());
+        view.setDescriptiveText(descriptiveText(card));
+        view.setLiked(card.isLiked());
+        view.setDontLike(card.isDontLike());
+        view.setChecked(row.isSelected());
+    }
+
+    /**
+     * @param changes {@link CardPayload} flags
+     */
+    static void bindChanges(final BusinessListRow.Card row, final int changes, final BusinessCardView view) {
+        if ((changes & CardPayload.LIKED) != 0) {
+            view.setLiked(row.isLiked());
+        }
+        if ((changes & CardPayload.DONT_LIKE) != 0) {
+            view.setDontLike(row.isDontLike());
+        }
+        if ((changes & CardPayload.RANK) != 0) {
+            view.setRank(row.getRankLabel());
+        }
+        if ((changes & CardPayload.DESCRIPTIVE_TEXT) != 0) {
+            view.setDescriptiveText(descriptiveText(row.getCard()));
+        }
+        if ((changes & CardPayload.SELECTED) != 0) {
+            view.setChecked(row.isSelected());
+        }
+    }
+
+    private static CharSequence descriptiveText(final BusinessCard card) {
+        final PrecomputedCardText text = card.getText();
+        if (text != null && text.getDescriptiveText() != null) {
+            return text.getDescriptiveText();
+        }
+        return card.getDescriptiveText();
+    }
+}
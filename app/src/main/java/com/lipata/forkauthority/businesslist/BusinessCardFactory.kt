@@ -0,0 +1,63 @@
+package com.lipata.forkauthority.businesslist
+
+import com.lipata.forkauthority.api.yelp3.entities.Business
+import javax.inject.Inject
+import kotlin.math.roundToInt
+
+/**
+ * Builds [BusinessCard]s. Called by [com.lipata.forkauthority.data.ListComposer] on a background
+ * thread, so all string work, including text layout, is done before the list reaches the UI.
+ */
+class BusinessCardFactory @Inject constructor(private val textPrecomputer: CardTextPrecomputer) {
+
+    fun create(business: Business, dontLikeClickDate: Long, tooSoonClickDate: Long, now: Long): BusinessCard {
+        return create(info(business), dontLikeClickDate, tooSoonClickDate, now)
+    }
+
+    /**
+     * For a business known from an earlier fetch, e.g. from
+     * [com.lipata.forkauthority.data.catalog.BusinessCatalog]
+     */
+    fun create(info: BusinessCard.Info, dontLikeClickDate: Long, tooSoonClickDate: Long, now: Long): BusinessCard {
+        val card = BusinessCard(
+            info,
+            dontLikeClickDate,
+            tooSoonClickDate,
+            Business.getDescriptiveText(dontLikeClickDate, tooSoonClickDate, now)
+        )
+        card.text = textPrecomputer.precompute(card)
+        return card
+    }
+
+    companion object {
+        /**
+         * Formats what Yelp returned for a business the way cards show it
+         */
+        @JvmStatic
+        fun info(business: Business): BusinessCard.Info {
+            val location = business.location
+            return BusinessCard.Info(
+                business.id.orEmpty(),
+                business.name.orEmpty(),
+                business.url.orEmpty(),
+                business.imageUrl.orEmpty(),
+                business.isClosed == true,
+                business.formattedCategories,
+                if (location == null) "" else location.address1 + ", " + location.city,
+                "${business.reviewCount} Reviews",
+                ratingBucket(business.rating)
+            )
+        }
+
+        /**
+         * As per Yelp documentation: Rating for this business (value ranges from 1, 1.5, ... 4.5, 5).
+         *
+         * @return Rating in half stars, 0 to 10. 0 if it can't be parsed.
+         */
+        @JvmStatic
+        fun ratingBucket(rating: String?): Int {
+            val value = rating?.toDoubleOrNull() ?: return 0
+            return (value * 2).roundToInt().coerceIn(0, 10)
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.lipata.forkauthority.businesslist;
+
+import androidx.annotation.Nullable;
+
+/**
+ * What {@link BusinessCardBinder} writes a card into. Implemented by the adapter's ViewHolder, and
+ * by fakes in tests so the bind path can be checked without Android views.
+ */
+interface BusinessCardView {
+    void setImageUrl(String imageUrl);
+
+    void setClosed(boolean closed);
+
+    void setRank(CharSequence rankLabel);
+
+    /**
+     * Text setters may be given a {@link androidx.core.text.PrecomputedTextCompat}, see
+     * {@link CardTextPrecomputer}
+     */
+    void setName(CharSequence name);
+
+    /**
+     * @param ratingBucket Rating in half stars, 0 to 10
+     */
+    void setRating(int ratingBucket);
+
+    void setReviewCount(CharSequence reviewCount);
+
+    void setCategories(CharSequence categories);
+
+    void setAddress(CharSequence address);
+
+    /**
+     * @param descriptiveText `null` hides the line
+     */
+    void setDescriptiveText(@Nullable CharSequence descriptiveText);
+
+    void setLiked(boolean liked);
+
+    void setDontLike(boolean dontLike);
+
+    /**
+     * @param checked Whether the card is selected for a bulk action
+     */
+    void setChecked(boolean checked);
+}
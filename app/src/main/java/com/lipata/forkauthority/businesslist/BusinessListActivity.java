@@ -5,7 +5,6 @@ import android.app.Activity;
 import android.content.Context;
 import android.content.Intent;
 import android.content.pm.PackageManager;
-import android.graphics.drawable.Drawable;
 import android.net.ConnectivityManager;
 import android.net.NetworkInfo;
 import android.net.Uri;
@@ -26,10 +25,11 @@ import com.lipata.forkauthority.ForkAuthorityApp;
 import com.lipata.forkauthority.R;
 import com.lipata.forkauthority.api.GeocoderApi;
 import com.lipata.forkauthority.api.GooglePlayApi;
-import com.lipata.forkauthority.api.yelp3.entities.Business;
 import com.lipata.forkauthority.data.AppSettings;
+import com.lipata.forkauthority.data.CombinedList;
 import com.lipata.forkauthority.data.ListComposer;
 import com.lipata.forkauthority.data.user.UserRecords;
+import com.lipata.forkauthority.image.ImageLoader;
 import com.lipata.forkauthority.util.Utility;
 
 import org.jetbrains.annotations.NotNull;
@@ -39,6 +39,7 @@ import java.text.DecimalFormat;
 import javax.inject.Inject;
 
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.view.ActionMode;
 import androidx.appcompat.widget.Toolbar;
 import androidx.coordinatorlayout.widget.CoordinatorLayout;
 import androidx.lifecycle.ViewModelProviders;
@@ -63,6 +64,10 @@ public class BusinessListActivity extends AppCompatActivity implements BusinessL
     @Inject GooglePlayApi mGooglePlayApi;
     @Inject UserRecords mUserRecords;
     @Inject ListComposer listComposer;
+    @Inject ImageLoader mImageLoader;
+    @Inject CardTextPrecomputer mCardTextPrecomputer;
+    @Inject ListMetrics mListMetrics;
+    @Inject JustAteHereExpiryCalculator mExpiryCalculator;
 
     // Views
     protected CoordinatorLayout mCoordinatorLayout;
@@ -71,9 +76,12 @@ public class BusinessListActivity extends AppCompatActivity implements BusinessL
     protected RecyclerView mRecyclerView_suggestionList;
     private LinearLayoutManager mSuggestionListLayoutManager;
     private BusinessListAdapter mSuggestionListAdapter;
+    private ImagePrefetcher mImagePrefetcher;
+    private FrameTimeTracker mFrameTimeTracker;
     FloatingActionButton mFAB_refresh;
     ObjectAnimator mFAB_refreshAnimation;
     Snackbar mSnackbar;
+    ActionMode mSelectionMode;
     LocationQualityView mLocationQualityView;
     RelativeLayout mLayout_LocationViews;
     ProgressBar mProgressBar_Location;
@@ -120,8 +128,15 @@ public class BusinessListActivity extends AppCompatActivity implements BusinessL
             ((SimpleItemAnimator) animator).setSupportsChangeAnimations(false);
         }
 
-        mSuggestionListAdapter = new BusinessListAdapter(this, mUserRecords);
+        mSuggestionListAdapter = new BusinessListAdapter(
+                this, mUserRecords, mImageLoader, mCardTextPrecomputer, mListMetrics, mExpiryCalculator);
         mRecyclerView_suggestionList.setAdapter(mSuggestionListAdapter);
+        SectionHeaderDecoration.attach(mRecyclerView_suggestionList, mSuggestionListAdapter);
+        mSuggestionListAdapter.preloadViewHolders(mRecyclerView_suggestionList);
+        mImagePrefetcher = new ImagePrefetcher(mImageLoader, mSuggestionListAdapter, mSuggestionListLayoutManager);
+        mRecyclerView_suggestionList.addOnScrollListener(mImagePrefetcher);
+        mFrameTimeTracker = new FrameTimeTracker(mListMetrics, getWindowManager().getDefaultDisplay().getRefreshRate());
+        mRecyclerView_suggestionList.addOnScrollListener(mFrameTimeTracker);
 
         ItemTouchHelper.Callback callback = new ListItemTouchHelper(mSuggestionListAdapter);
         ItemTouchHelper itemTouchHelper = new ItemTouchHelper(callback);
@@ -165,12 +180,15 @@ public class BusinessListActivity extends AppCompatActivity implements BusinessL
     protected void onStart() {
         super.onStart();
         viewModel.onStart();
+        mSuggestionListAdapter.startExpiries();
     }
 
     @Override
     protected void onStop() {
         Timber.d("onStop()");
         super.onStop();
+        mFrameTimeTracker.stop();
+        mSuggestionListAdapter.stopExpiries();
         if (mGooglePlayApi.getClient().isConnected()) {
             mGooglePlayApi.stopLocationUpdates();
         }
@@ -206,10 +224,17 @@ public class BusinessListActivity extends AppCompatActivity implements BusinessL
     private void onFetchListState(final FetchListState fetchListState) {
         if (fetchListState instanceof FetchListState.Success) {
             stopRefreshAnimation();
-            mSuggestionListAdapter.setBusinessList(((FetchListState.Success) fetchListState).getList());
-            mSuggestionListAdapter.notifyDataSetChanged();
+            final CombinedList list = ((FetchListState.Success) fetchListState).getList();
+            mImagePrefetcher.warm(list);
+            mSuggestionListAdapter.setBusinessList(list);
             mRecyclerView_suggestionList.setVisibility(View.VISIBLE);
             trackSuccessAnalytics();
+        } else if (fetchListState instanceof FetchListState.Cached) {
+            // Still loading, keep the refresh animation going
+            final CombinedList list = ((FetchListState.Cached) fetchListState).getList();
+            mImagePrefetcher.warm(list);
+            mSuggestionListAdapter.setBusinessList(list);
+            mRecyclerView_suggestionList.setVisibility(View.VISIBLE);
         } else if (fetchListState instanceof FetchListState.NoResults) {
             stopRefreshAnimation();
             mRecyclerView_suggestionList.setVisibility(View.GONE);
@@ -361,9 +386,8 @@ public class BusinessListActivity extends AppCompatActivity implements BusinessL
             mSnackbar.dismiss();
         }
 
-        // Clear recyclerview
-        mSuggestionListAdapter.setBusinessList(null);
-        mSuggestionListAdapter.notifyDataSetChanged();
+        // The current list stays on screen while refreshing. When the new one arrives it is diffed
+        // against it, so unchanged cards and the scroll position are kept.
 
         mNoResultsTextView.setVisibility(View.GONE);
 
@@ -402,6 +426,13 @@ public class BusinessListActivity extends AppCompatActivity implements BusinessL
         return true;
     }
 
+    @Override
+    public boolean onPrepareOptionsMenu(Menu menu) {
+        menu.findItem(R.id.action_undo).setEnabled(mSuggestionListAdapter.canUndo());
+        menu.findItem(R.id.action_redo).setEnabled(mSuggestionListAdapter.canRedo());
+        return super.onPrepareOptionsMenu(menu);
+    }
+
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
         int id = item.getItemId();
@@ -409,6 +440,12 @@ public class BusinessListActivity extends AppCompatActivity implements BusinessL
         if (id == R.id.action_settings) {
             openSettingsScreen();
             return true;
+        } else if (id == R.id.action_undo) {
+            mSuggestionListAdapter.undo();
+            return true;
+        } else if (id == R.id.action_redo) {
+            mSuggestionListAdapter.redo();
+            return true;
         }
 
         return super.onOptionsItemSelected(item);
@@ -432,14 +469,13 @@ public class BusinessListActivity extends AppCompatActivity implements BusinessL
         mNoResultsTextView.setVisibility(View.VISIBLE);
     }
 
-    public void showSnackBarLongWithAction(
-            final String message,
-            final String actionLabel,
-            final int position,
-            final Business business) {
-
+    /**
+     * The action undoes whatever is on top of the list's history, which is the action the message
+     * is about as long as the Snackbar is showing
+     */
+    public void showSnackBarLongWithUndo(final String message) {
         mSnackbar = Snackbar.make(mCoordinatorLayout, message, Snackbar.LENGTH_LONG)
-                .setAction(actionLabel, v -> mSuggestionListAdapter.undoDismiss(position, business))
+                .setAction(getString(R.string.undo), v -> mSuggestionListAdapter.undo())
                 .setActionTextColor(getResources().getColor(R.color.text_white));
         mSnackbar.show();
     }
@@ -460,28 +496,25 @@ public class BusinessListActivity extends AppCompatActivity implements BusinessL
 
     @Override
     public void notifyUserTooSoon(String businessName) {
-        showSnackBarLong("Noted. You just ate at "
+        showSnackBarLongWithUndo("Noted. You just ate at "
                 + businessName
                 + getString(R.string.moved_to_toosoon));
     }
 
     @Override
     public void notifyUserBusinessLiked(@NotNull String businessName) {
-        showSnackBarLong("Noted. You like " + businessName
+        showSnackBarLongWithUndo("Noted. You like " + businessName
                 + ". I have moved this to the top of the list."); // TODO Extract resource
     }
 
     @Override
-    public void notifyUserBusinessDismissed(int position, @NotNull Business business) {
-        showSnackBarLongWithAction(business.getName() + " dismissed.",
-                "UNDO",
-                position,
-                business);
+    public void notifyUserBusinessDismissed(@NotNull String businessName) {
+        showSnackBarLongWithUndo(businessName + " dismissed.");
     }
 
     @Override
     public void notifyUserBusinessDontLiked(@NotNull String businessName) {
-        showSnackBarLong("Noted. You don't like "
+        showSnackBarLongWithUndo("Noted. You don't like "
                 + businessName
                 + getString(R.string.moved_to_bottom));
     }
@@ -492,38 +525,89 @@ public class BusinessListActivity extends AppCompatActivity implements BusinessL
     }
 
     @Override
-    public void launchBusinessUrl(@NotNull String url) {
-        final Intent browserIntent = new Intent(Intent.ACTION_VIEW, Uri.parse(url));
-        startActivity(browserIntent);
+    public void notifyUserBulkAction(int buttonId, int count) {
+        final int message;
+        switch (buttonId) {
+            case BusinessListAdapter.LIKE:
+                message = R.plurals.bulk_liked;
+                break;
+            case BusinessListAdapter.TOOSOON:
+                message = R.plurals.bulk_too_soon;
+                break;
+            case BusinessListAdapter.DONTLIKE:
+                message = R.plurals.bulk_dont_like;
+                break;
+            default:
+                message = R.plurals.bulk_dismissed;
+                break;
+        }
+        showSnackBarLongWithUndo(getResources().getQuantityString(message, count, count));
     }
 
-    @NotNull
     @Override
-    public Drawable getRatingDrawable(@NotNull String rating) {
-        switch (rating) {
-            case "5.0":
-                return getResources().getDrawable(R.drawable.stars_small_5);
-            case "4.5":
-                return getResources().getDrawable(R.drawable.stars_small_4_half);
-            case "4.0":
-                return getResources().getDrawable(R.drawable.stars_small_4);
-            case "3.5":
-                return getResources().getDrawable(R.drawable.stars_small_3_half);
-            case "3.0":
-                return getResources().getDrawable(R.drawable.stars_small_3);
-            case "2.5":
-                return getResources().getDrawable(R.drawable.stars_small_2_half);
-            case "2.0":
-                return getResources().getDrawable(R.drawable.stars_small_2);
-            case "1.5":
-                return getResources().getDrawable(R.drawable.stars_small_1_half);
-            case "1.0":
-                return getResources().getDrawable(R.drawable.stars_small_1);
-            default:
-                return getResources().getDrawable(R.drawable.stars_small_0);
+    public void onSelectionChanged(int count) {
+        if (count == 0) {
+            if (mSelectionMode != null) {
+                mSelectionMode.finish();
+            }
+            return;
+        }
+        if (mSelectionMode == null) {
+            mSelectionMode = startSupportActionMode(mSelectionModeCallback);
+        }
+        if (mSelectionMode != null) {
+            mSelectionMode.setTitle(getString(R.string.selected_count, count));
         }
     }
 
+    private final ActionMode.Callback mSelectionModeCallback = new ActionMode.Callback() {
+        @Override
+        public boolean onCreateActionMode(ActionMode mode, Menu menu) {
+            mode.getMenuInflater().inflate(R.menu.menu_business_selection, menu);
+            return true;
+        }
+
+        @Override
+        public boolean onPrepareActionMode(ActionMode mode, Menu menu) {
+            return false;
+        }
+
+        @Override
+        public boolean onActionItemClicked(ActionMode mode, MenuItem item) {
+            final int id = item.getItemId();
+            if (id == R.id.action_like) {
+                mSuggestionListAdapter.applyToSelection(BusinessListAdapter.LIKE);
+            } else if (id == R.id.action_too_soon) {
+                mSuggestionListAdapter.applyToSelection(BusinessListAdapter.TOOSOON);
+            } else if (id == R.id.action_dont_like) {
+                mSuggestionListAdapter.applyToSelection(BusinessListAdapter.DONTLIKE);
+            } else if (id == R.id.action_dismiss) {
+                mSuggestionListAdapter.applyToSelection(BusinessListAdapter.DISMISS);
+            } else {
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public void onDestroyActionMode(ActionMode mode) {
+            mSelectionMode = null;
+            // Back or the close button, nothing was applied
+            mSuggestionListAdapter.clearSelection();
+        }
+    };
+
+    @Override
+    public void onHistoryChanged() {
+        invalidateOptionsMenu();
+    }
+
+    @Override
+    public void launchBusinessUrl(@NotNull String url) {
+        final Intent browserIntent = new Intent(Intent.ACTION_VIEW, Uri.parse(url));
+        startActivity(browserIntent);
+    }
+
     // region Getters
 
     @Override
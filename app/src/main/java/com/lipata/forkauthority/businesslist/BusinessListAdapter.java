@@ -1,22 +1,37 @@
 package com.lipata.forkauthority.businesslist;
 
+import androidx.annotation.LayoutRes;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.asynclayoutinflater.view.AsyncLayoutInflater;
 import androidx.cardview.widget.CardView;
+import androidx.core.content.ContextCompat;
+import androidx.core.text.PrecomputedTextCompat;
+import androidx.core.widget.TextViewCompat;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
+import android.graphics.drawable.Drawable;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.Button;
 import android.widget.ImageView;
-import android.widget.LinearLayout;
 import android.widget.TextView;
 
 import com.lipata.forkauthority.R;
-import com.lipata.forkauthority.api.yelp3.entities.Business;
 import com.lipata.forkauthority.data.Categories;
 import com.lipata.forkauthority.data.CombinedList;
 import com.lipata.forkauthority.data.user.UserRecords;
-import com.squareup.picasso.Picasso;
+import com.lipata.forkauthority.image.ImageLoader;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import timber.log.Timber;
 
@@ -27,7 +42,8 @@ import static com.lipata.forkauthority.data.user.BusinessItemRecord.LIKED;
  * TODO There is a better way to handle multiple view types with a "Delegate" pattern.
  * TODO This is a mess. Clean it up!
  */
-public class BusinessListAdapter extends RecyclerView.Adapter<BusinessListAdapter.ViewHolder> {
+public class BusinessListAdapter extends ListAdapter<BusinessListRow, BusinessListAdapter.ViewHolder>
+        implements ExpiryScheduler.Listener {
 
     // Button IDs
     public static final int LIKE = 0;
@@ -42,16 +58,60 @@ public class BusinessListAdapter extends RecyclerView.Adapter<BusinessListAdapte
     private static final String UNSORTED_TOO_SOON_KEY = Categories.UNSORTED_TOO_SOON;
     private static final String DONT_LIKE_KEY = Categories.DONT_LIKE;
 
-    private CombinedList mBusinessList;
+    private static final DiffUtil.ItemCallback<BusinessListRow> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<BusinessListRow>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull BusinessListRow oldRow, @NonNull BusinessListRow newRow) {
+                    return oldRow.getStableId() == newRow.getStableId();
+                }
+
+                @Override
+                public boolean areContentsTheSame(@NonNull BusinessListRow oldRow, @NonNull BusinessListRow newRow) {
+                    return oldRow.equals(newRow);
+                }
+
+                @Nullable
+                @Override
+                public Object getChangePayload(@NonNull BusinessListRow oldRow, @NonNull BusinessListRow newRow) {
+                    if (oldRow instanceof BusinessListRow.Card && newRow instanceof BusinessListRow.Card) {
+                        return CardPayload.between((BusinessListRow.Card) oldRow, (BusinessListRow.Card) newRow);
+                    }
+                    return null;
+                }
+            };
+
+    private CombinedList mBusinessList; // Source of truth for mutations. The adapter itself only sees snapshots of it.
     private BusinessListParentView parentView;
-    private RecyclerView.LayoutManager mLayoutManager;
     private UserRecords mUserRecords; // TODO Get this out of the adapter
+    private final ImageLoader mImageLoader;
+    private final CardTextPrecomputer mTextPrecomputer;
+    private final ListMetrics mMetrics;
+    private boolean mTextParamsPublished;
+
+    // Item view handed over by the async inflater, taken by the next onCreateViewHolder()
+    @Nullable private View mPreinflatedView;
+
+    // Business IDs picked for a bulk action. Non-empty means the list is in selection mode.
+    private final Set<String> mSelectedIds = new HashSet<>();
+
+    private final ListHistory mHistory = new ListHistory();
+
+    private final ExpiryScheduler mExpiries;
 
     BusinessListAdapter(final BusinessListParentView parentView,
-                        final UserRecords userRecords) {
+                        final UserRecords userRecords,
+                        final ImageLoader imageLoader,
+                        final CardTextPrecomputer textPrecomputer,
+                        final ListMetrics metrics,
+                        final JustAteHereExpiryCalculator expiryCalculator) {
+        super(DIFF_CALLBACK);
+        setHasStableIds(true);
         this.parentView = parentView;
         this.mUserRecords = userRecords;
-        this.mLayoutManager = parentView.getRecyclerViewLayoutManager();
+        this.mImageLoader = imageLoader;
+        this.mTextPrecomputer = textPrecomputer;
+        this.mMetrics = metrics;
+        this.mExpiries = new ExpiryScheduler(expiryCalculator, this);
     }
 
     static class ViewHolder extends RecyclerView.ViewHolder {
@@ -60,11 +120,19 @@ public class BusinessListAdapter extends RecyclerView.Adapter<BusinessListAdapte
         }
     }
 
-    static class BusinessViewHolder extends ViewHolder {
-        LinearLayout mLayout_BusinessHeader;
+    /**
+     * Keeps its click listener and icon drawables for its whole life. Binding a card only copies
+     * ready-made values into views, and skips views that already show the right thing.
+     */
+    static class BusinessViewHolder extends ViewHolder
+            implements BusinessCardView, View.OnClickListener, View.OnLongClickListener {
+        private final BusinessListAdapter mAdapter;
+
+        View mLayout_BusinessHeader;
         CardView mCardView_CardView;
         ImageView mImageView_BusinessImage;
         TextView mTextView_Closed;
+        TextView mTextView_BusinessRank;
         TextView mTextView_BusinessName;
         TextView mTextView_BusinessCategories;
         TextView mTextView_BusinessAddress;
@@ -77,13 +145,35 @@ public class BusinessListAdapter extends RecyclerView.Adapter<BusinessListAdapte
 
         TextView mTextView_DescriptiveText;
 
-        BusinessViewHolder(View v) {
+        private final Drawable mDrawable_Liked;
+        private final Drawable mDrawable_NotLiked;
+        private final Drawable mDrawable_DontLike;
+        private final Drawable mDrawable_NotDontLike;
+        private final int mColor_Card;
+        private final int mColor_CardSelected;
+
+        // Text settings precomputed text must have been made with to be accepted by each TextView
+        final PrecomputedTextCompat.Params mParams_Name;
+        final PrecomputedTextCompat.Params mParams_Categories;
+        final PrecomputedTextCompat.Params mParams_Address;
+        final PrecomputedTextCompat.Params mParams_DescriptiveText;
+
+        // What is currently shown, so rebinding the same values is free
+        private String mBoundImageUrl;
+        private int mBoundRating = -1;
+        private Boolean mBoundLiked;
+        private Boolean mBoundDontLike;
+        private boolean mBoundChecked;
+
+        BusinessViewHolder(View v, BusinessListAdapter adapter) {
             super(v);
+            mAdapter = adapter;
             mLayout_BusinessHeader = v.findViewById(R.id.business_header_layout);
             mCardView_CardView = v.findViewById(R.id.card_view);
             mImageView_BusinessImage = v.findViewById(R.id.business_image);
             mImageView_BusinessImage.setClipToOutline(true); // for rounded corners.  See https://stackoverflow.com/questions/31675420/set-round-corner-image-in-imageview
             mTextView_Closed = v.findViewById(R.id.closed);
+            mTextView_BusinessRank = v.findViewById(R.id.business_rank);
             mTextView_BusinessName = v.findViewById(R.id.business_name);
             mTextView_BusinessCategories = v.findViewById(R.id.business_categories);
             mTextView_BusinessAddress = v.findViewById(R.id.business_address);
@@ -95,43 +185,253 @@ public class BusinessListAdapter extends RecyclerView.Adapter<BusinessListAdapte
             mButton_DontLike = v.findViewById(R.id.button_dontlike);
 
             mTextView_DescriptiveText = v.findViewById(R.id.business_descriptive_text);
+
+            mDrawable_Liked = ContextCompat.getDrawable(v.getContext(), R.drawable.thumb_up_fill);
+            mDrawable_NotLiked = ContextCompat.getDrawable(v.getContext(), R.drawable.thumb_up_outline);
+            mDrawable_DontLike = ContextCompat.getDrawable(v.getContext(), R.drawable.thumb_down_fill);
+            mDrawable_NotDontLike = ContextCompat.getDrawable(v.getContext(), R.drawable.thumb_down_outline);
+            mColor_Card = ContextCompat.getColor(v.getContext(), R.color.white);
+            mColor_CardSelected = ContextCompat.getColor(v.getContext(), R.color.card_selected);
+
+            mParams_Name = TextViewCompat.getTextMetricsParams(mTextView_BusinessName);
+            mParams_Categories = TextViewCompat.getTextMetricsParams(mTextView_BusinessCategories);
+            mParams_Address = TextViewCompat.getTextMetricsParams(mTextView_BusinessAddress);
+            mParams_DescriptiveText = TextViewCompat.getTextMetricsParams(mTextView_DescriptiveText);
+
+            // One listener for the lifetime of the ViewHolder, resolved by adapter position on click
+            mLayout_BusinessHeader.setOnClickListener(this);
+            mButton_Like.setOnClickListener(this);
+            mButton_TooSoon.setOnClickListener(this);
+            mButton_DontLike.setOnClickListener(this);
+            mLayout_BusinessHeader.setOnLongClickListener(this);
         }
-    }
 
-    static class HeaderViewHolder extends ViewHolder {
-        TextView mTextView_Header;
+        @Override
+        public void onClick(View v) {
+            final int position = getAdapterPosition();
+            if (position != RecyclerView.NO_POSITION) {
+                mAdapter.onCardClick(v.getId(), position);
+            }
+        }
 
-        HeaderViewHolder(View v) {
-            super(v);
-            mTextView_Header = v.findViewById(R.id.header);
+        @Override
+        public boolean onLongClick(View v) {
+            final int position = getAdapterPosition();
+            if (position == RecyclerView.NO_POSITION) {
+                return false;
+            }
+            mAdapter.toggleSelection(position);
+            return true;
+        }
+
+        @Override
+        public void setImageUrl(String imageUrl) {
+            if (imageUrl == null || imageUrl.isEmpty()) {
+                clearImage();
+                return;
+            }
+            if (imageUrl.equals(mBoundImageUrl)) {
+                return;
+            }
+            mBoundImageUrl = imageUrl;
+            mAdapter.mImageLoader.loadThumbnail(imageUrl, mImageView_BusinessImage);
+        }
+
+        void clearImage() {
+            mBoundImageUrl = null;
+            mAdapter.mImageLoader.cancel(mImageView_BusinessImage);
+            mImageView_BusinessImage.setImageDrawable(null);
+        }
+
+        @Override
+        public void setClosed(boolean closed) {
+            mTextView_Closed.setVisibility(closed ? View.VISIBLE : View.GONE);
+        }
+
+        @Override
+        public void setRank(CharSequence rankLabel) {
+            mTextView_BusinessRank.setText(rankLabel);
+        }
+
+        @Override
+        public void setName(CharSequence name) {
+            setText(mTextView_BusinessName, mParams_Name, name);
+        }
+
+        @Override
+        public void setRating(int ratingBucket) {
+            if (ratingBucket == mBoundRating) {
+                return;
+            }
+            mBoundRating = ratingBucket;
+            // The ImageView holds a level-list of all star images (@drawable/stars_small), picking
+            // one is just a level change. No resource lookup or new Drawable per bind.
+            mImageView_BusinessRatingUrl.setImageLevel(ratingBucket);
+        }
+
+        @Override
+        public void setReviewCount(CharSequence reviewCount) {
+            mTextView_BusinessReviewCount.setText(reviewCount);
+        }
+
+        @Override
+        public void setCategories(CharSequence categories) {
+            setText(mTextView_BusinessCategories, mParams_Categories, categories);
+        }
+
+        @Override
+        public void setAddress(CharSequence address) {
+            setText(mTextView_BusinessAddress, mParams_Address, address);
+        }
+
+        @Override
+        public void setDescriptiveText(@Nullable CharSequence descriptiveText) {
+            if (descriptiveText != null) {
+                mTextView_DescriptiveText.setVisibility(View.VISIBLE);
+                setText(mTextView_DescriptiveText, mParams_DescriptiveText, descriptiveText);
+            } else {
+                // If there's no descriptive text, hide the line separator and the layout
+                mTextView_DescriptiveText.setVisibility(View.GONE);
+            }
+        }
+
+        /**
+         * Uses the precomputed layout if there is one made for this TextView's settings. Anything
+         * else, including text precomputed before a configuration change, is set the normal way.
+         */
+        private static void setText(TextView view, PrecomputedTextCompat.Params params, CharSequence text) {
+            if (text instanceof PrecomputedTextCompat
+                    && ((PrecomputedTextCompat) text).getParams().equals(params)) {
+                TextViewCompat.setPrecomputedText(view, (PrecomputedTextCompat) text);
+            } else {
+                view.setText(text);
+            }
+        }
+
+        @Override
+        public void setLiked(boolean liked) {
+            if (mBoundLiked != null && mBoundLiked == liked) {
+                return;
+            }
+            mBoundLiked = liked;
+            mButton_Like.setCompoundDrawablesWithIntrinsicBounds(
+                    null, liked ? mDrawable_Liked : mDrawable_NotLiked, null, null);
+        }
+
+        @Override
+        public void setDontLike(boolean dontLike) {
+            if (mBoundDontLike != null && mBoundDontLike == dontLike) {
+                return;
+            }
+            mBoundDontLike = dontLike;
+            mButton_DontLike.setCompoundDrawablesWithIntrinsicBounds(
+                    null, dontLike ? mDrawable_DontLike : mDrawable_NotDontLike, null, null);
+        }
+
+        @Override
+        public void setChecked(boolean checked) {
+            if (mBoundChecked == checked) {
+                return;
+            }
+            mBoundChecked = checked;
+            mCardView_CardView.setCardBackgroundColor(checked ? mColor_CardSelected : mColor_Card);
         }
     }
 
     @Override
     public int getItemViewType(final int position) {
-        return mBusinessList.get(position).getViewType();
+        return getItem(position).getViewType();
+    }
+
+    @Override
+    public long getItemId(final int position) {
+        return getItem(position).getStableId();
+    }
+
+    /**
+     * @return Thumbnail URL of the card at `position` in the current snapshot
+     */
+    @Nullable
+    String getImageUrl(final int position) {
+        final BusinessListRow row = getItem(position);
+        return row instanceof BusinessListRow.Card
+                ? ((BusinessListRow.Card) row).getCard().getInfo().getImageUrl()
+                : null;
+    }
+
+    /**
+     * @return Section key of the card at `position`, see {@link SectionHeaderDecoration}
+     */
+    String getSection(final int position) {
+        return ((BusinessListRow.Card) getItem(position)).getSection();
+    }
+
+    boolean isFirstInSection(final int position) {
+        return position == 0 || !getSection(position).equals(getSection(position - 1));
     }
 
     @Override
     public ViewHolder onCreateViewHolder(final ViewGroup parent, final int viewType) {
+        final long start = System.nanoTime();
+        final ViewHolder holder = createHolder(parent, viewType);
+        mMetrics.recordCreate(viewType, System.nanoTime() - start);
+        return holder;
+    }
+
+    private ViewHolder createHolder(final ViewGroup parent, final int viewType) {
         switch (viewType) {
-            case ListItemTypes.HEADER: {
-                View itemView = LayoutInflater
-                        .from(parent.getContext())
-                        .inflate(R.layout.suggestion_list_header, parent, false);
-                return new HeaderViewHolder(itemView);
-            }
             case ListItemTypes.BUSINESS: {
-                View itemView = LayoutInflater
-                        .from(parent.getContext())
-                        .inflate(R.layout.suggestion_list_item, parent, false);
-                return new BusinessViewHolder(itemView);
+                final BusinessViewHolder holder =
+                        new BusinessViewHolder(takeOrInflate(parent, R.layout.suggestion_list_item), this);
+                if (!mTextParamsPublished) {
+                    // From now on, lists are composed with text laid out for these TextViews
+                    mTextPrecomputer.setParams(
+                            holder.mParams_Name,
+                            holder.mParams_Categories,
+                            holder.mParams_Address,
+                            holder.mParams_DescriptiveText);
+                    mTextParamsPublished = true;
+                }
+                return holder;
             }
             default:
                 return null;
         }
     }
 
+    private View takeOrInflate(final ViewGroup parent, @LayoutRes final int layout) {
+        final View preinflated = mPreinflatedView;
+        if (preinflated != null) {
+            mPreinflatedView = null;
+            return preinflated;
+        }
+        return LayoutInflater.from(parent.getContext()).inflate(layout, parent, false);
+    }
+
+    /**
+     * Inflates a screenful of cards on a background thread and parks
+     * their ViewHolders in the RecyclerView's pool. Call it while waiting for the location and the
+     * network, so that the first layout after the list arrives only binds.
+     */
+    void preloadViewHolders(final RecyclerView recyclerView) {
+        final int screenHeight = recyclerView.getResources().getDisplayMetrics().heightPixels;
+        final int cardHeight = recyclerView.getResources().getDimensionPixelSize(R.dimen.business_card_estimated_height);
+        final int cards = screenHeight / cardHeight + 2; // plus the partly visible ones top and bottom
+
+        final RecyclerView.RecycledViewPool pool = recyclerView.getRecycledViewPool();
+        pool.setMaxRecycledViews(ListItemTypes.BUSINESS, cards);
+
+        final AsyncLayoutInflater inflater = new AsyncLayoutInflater(recyclerView.getContext());
+        final AsyncLayoutInflater.OnInflateFinishedListener toPool = (view, layout, parent) -> {
+            // Back on the main thread. Let the adapter create the holder as usual, from this view.
+            mPreinflatedView = view;
+            pool.putRecycledView(createViewHolder(recyclerView, ListItemTypes.BUSINESS));
+        };
+        for (int i = 0; i < cards; i++) {
+            inflater.inflate(R.layout.suggestion_list_item, recyclerView, toPool);
+        }
+    }
+
     /**
      * @param vh
      * @param position This should not be `final` according to Yigit! https://youtu.be/imsr8NrIAMs?t=35m33s
@@ -139,357 +439,578 @@ public class BusinessListAdapter extends RecyclerView.Adapter<BusinessListAdapte
     @Override
     public void onBindViewHolder(final ViewHolder vh, int position) {
         switch (vh.getItemViewType()) {
-            case ListItemTypes.HEADER: {
-                HeaderViewHolder holder = (HeaderViewHolder) vh;
-                final BusinessListHeader header = (BusinessListHeader) mBusinessList.get(position);
-                mBusinessList.set(position, header);
-                holder.mTextView_Header.setText(header.getKey());
+            case ListItemTypes.BUSINESS: {
+                BusinessCardBinder.bind((BusinessListRow.Card) getItem(position), (BusinessViewHolder) vh);
             }
             break;
+        }
+    }
 
-            case ListItemTypes.BUSINESS: {
+    @Override
+    public void onViewRecycled(@NonNull final ViewHolder vh) {
+        if (vh instanceof BusinessViewHolder) {
+            // The card may be recycled before its thumbnail arrives
+            ((BusinessViewHolder) vh).clearImage();
+        }
+    }
 
-                final BusinessViewHolder holder = (BusinessViewHolder) vh;
+    /**
+     * Partial bind. When only the user state or the card's number changed, DiffUtil hands us a
+     * {@link CardPayload} and only the affected views are touched. No image load and no text
+     * formatting.
+     */
+    @Override
+    public void onBindViewHolder(@NonNull final ViewHolder vh, int position, @NonNull List<Object> payloads) {
+        final long start = System.nanoTime();
+        if (payloads.isEmpty() || vh.getItemViewType() != ListItemTypes.BUSINESS) {
+            onBindViewHolder(vh, position);
+        } else {
+            BusinessCardBinder.bindChanges(
+                    (BusinessListRow.Card) getItem(position),
+                    CardPayload.merge(payloads),
+                    (BusinessViewHolder) vh);
+        }
+        // RecyclerView always binds through this overload, so this covers full binds too
+        mMetrics.recordBind(vh.getItemViewType(), System.nanoTime() - start);
+    }
 
-                // Get business at `position` index. This object's fields will be used to populate UI views
-                final Business business = (Business) mBusinessList.get(position);
+    /**
+     * Single entry point for clicks on a card. The position is the holder's adapter position at
+     * click time, which always refers to the snapshot that is currently displayed. A diff may still
+     * be in flight, so the business's index in `mBusinessList` is resolved by the handlers.
+     */
+    void onCardClick(final int viewId, final int adapterPosition) {
+        final BusinessListRow row = getItem(adapterPosition);
+        if (!(row instanceof BusinessListRow.Card)) {
+            return;
+        }
+        final BusinessCard card = mBusinessList.findCard(((BusinessListRow.Card) row).getCard().getId());
+        if (card == null) {
+            return;
+        }
 
-                // Business Header Layout - clickable
-                holder.mLayout_BusinessHeader.setOnClickListener(onBusinessHeaderClick(business));
+        // While selecting, a tap anywhere on a card picks it instead
+        if (isSelecting()) {
+            toggleSelection(adapterPosition);
+            return;
+        }
 
-                // Business image
-                if (!business.getImageUrl().isEmpty()) {
-                    Picasso.with(parentView.getContext())
-                            .load(business.getImageUrl())
-                            .fit()
-                            .into(holder.mImageView_BusinessImage);
-                }
+        if (viewId == R.id.button_like) {
+            onLikeClick(card);
+        } else if (viewId == R.id.button_toosoon) {
+            onTooSoonClick(card);
+        } else if (viewId == R.id.button_dontlike) {
+            onDontLikeClick(card);
+        } else if (viewId == R.id.business_header_layout) {
+            parentView.launchBusinessUrl(card.getInfo().getUrl());
+        }
+    }
 
-                // Closed
-                holder.mTextView_Closed.setVisibility(business.isClosed ? View.VISIBLE : View.GONE);
+    // Cards are immutable. Each handler records the action, replaces the card with an updated copy
+    // and commits the change, which adds it to the undo history and submits a new snapshot.
 
-                // Business name
-                holder.mTextView_BusinessName.setText(calculateCardPosition(position) + ". " + business.getName());
+    private void onLikeClick(final BusinessCard card) {
+        final CombinedList.Contents before = mBusinessList.getContents();
 
-                holder.mImageView_BusinessRatingUrl
-                        .setImageDrawable(parentView.getRatingDrawable(business.getRating()));
+        if (!card.isLiked()) {
 
-                // Business review count
-                holder.mTextView_BusinessReviewCount.setText(business.getReviewCount() + " Reviews");
+            // TODO Get this out of the adapter
+            // TODO Single source of truth
+            // Update UserRecords
+            mUserRecords.updateClickDate(card.getId(), LIKED, LIKE);
 
-                holder.mTextView_BusinessCategories.setText(business.getFormattedCategories());
+            BusinessCard liked = card.withUserState(LIKED, card.getTooSoonClickDate());
+            Timber.d("Updated dontLikeClickDate for " + card.getInfo().getName() + " to " + LIKED);
 
-                holder.mTextView_BusinessAddress.setText(
-                        String.format(
-                                "%s, %s",
-                                business.getLocation().getAddress1(),
-                                business.getLocation().getCity()
-                        )
-                );
+            // Move the business to the top of the Likes list
+            mBusinessList.remove(card);
+            mBusinessList.insertIntoSublist(LIKES_KEY, 0, liked);
+            commit(LIKE, before, card, liked);
 
-                // Dynamically add text based on UserRecords
+            // Notify user
+            parentView.notifyUserBusinessLiked(card.getInfo().getName());
 
-                // Show descriptiveText , if present
-                String descriptiveText = business.getDescriptiveText();
-                if (descriptiveText != null) {
-                    holder.mTextView_DescriptiveText.setVisibility(View.VISIBLE);
-                    holder.mTextView_DescriptiveText.setText(descriptiveText);
-                } else {
-                    // If there's no descriptive text, hide the line separator and the layout
-                    holder.mTextView_DescriptiveText.setVisibility(View.GONE);
-                }
+        } else {
+            // Unlike
 
-                // Like button dynamic icon
-                if (business.isLiked()) {
-                    holder.mButton_Like.setCompoundDrawablesWithIntrinsicBounds(0, R.drawable.thumb_up_fill, 0, 0);
-                } else {
-                    holder.mButton_Like.setCompoundDrawablesWithIntrinsicBounds(0, R.drawable.thumb_up_outline, 0, 0);
-                }
+            // TODO Get this out of the adapter
+            // TODO Single source of truth
+            // Update UserRecords
+            mUserRecords.updateClickDate(card.getId(), 0, LIKE);
 
-                // Dont Like button dynamic icon
-                if (business.isDontLike()) {
-                    holder.mButton_DontLike.setCompoundDrawablesWithIntrinsicBounds(0, R.drawable.thumb_down_fill, 0, 0);
-                } else {
-                    holder.mButton_DontLike.setCompoundDrawablesWithIntrinsicBounds(0, R.drawable.thumb_down_outline, 0, 0);
-                }
+            BusinessCard unliked = card.withUserState(0, card.getTooSoonClickDate());
+            mBusinessList.replace(card, unliked);
+            Timber.d("Updated dontLikeClickDate for " + card.getInfo().getName() + " to 0");
 
-                // Click listeners
-                holder.mButton_Like.setOnClickListener(onLikeClick(position, business));
-                holder.mButton_TooSoon.setOnClickListener(onTooSoonClick(position));
-                holder.mButton_DontLike.setOnClickListener(onDontLikeClick(position, business));
-            }
-            break;
+            commit(LIKE, before, card, unliked);
         }
     }
 
-    @NonNull
-    private View.OnClickListener onLikeClick(int position, Business business) {
-        return v -> {
-
-            if (business.getDontLikeClickDate() != LIKED) {
+    private void onTooSoonClick(final BusinessCard card) {
 
-                // TODO Get this out of the adapter
-                // TODO Single source of truth
-                // Update UserRecords
-                mUserRecords.updateClickDate(business, LIKED, LIKE);
+        if (card.isDontLike()) {
+            parentView.notifyNotAllowedOnDontLike();
+        } else {
+            final CombinedList.Contents before = mBusinessList.getContents();
 
-                // Update object field
-                business.setDontLikeClickDate(LIKED);
-                Timber.d("Updated dontLikeClickDate for " + business.getName() + " to "
-                        + business.getDontLikeClickDate() + " position " + position);
+            // Which Too Soon list?
+            String sublistKey = card.isLiked() ? LIKED_TOO_SOON_KEY : UNSORTED_TOO_SOON_KEY;
 
-                // UI stuff
-                mBusinessList.remove(position);
-                notifyItemRemoved(position);
+            // TODO Get this out of the adapter
+            // TODO Single source of truth
+            // Update user records
+            long systemTime_ms = System.currentTimeMillis();
+            mUserRecords.updateClickDate(card.getId(), systemTime_ms, TOOSOON);
 
-                // Remove header if necessary
-                // `position - 1` because you just removed an element
-                removeHeader(position - 1);
+            BusinessCard tooSoon = card.withUserState(card.getDontLikeClickDate(), systemTime_ms);
+            Timber.d("Updated tooSoonClickDate for " + card.getInfo().getName() + " to " + systemTime_ms);
 
-                // Add business to the top of the Likes list
-                //   Add a header if necessary (index 0)
-                addHeader(LIKES_KEY);
+            // Move the business to the bottom of its Too Soon list
+            mBusinessList.remove(card);
+            mBusinessList.appendToSublist(sublistKey, tooSoon);
+            commit(TOOSOON, before, card, tooSoon);
 
-                // Add the business one index after the header (index 1)
-                mBusinessList.getSublist(LIKES_KEY).add(1, business);
+            // Notify user
+            parentView.notifyUserTooSoon(card.getInfo().getName());
+        }
+    }
 
-                // Update RecyclerView item (triggers animation)
-                notifyItemInserted(mBusinessList.getCombinedIndex(LIKES_KEY, 1));
-                //notifyItemMoved(position, targetIndex);
+    private void onDontLikeClick(final BusinessCard card) {
+        final CombinedList.Contents before = mBusinessList.getContents();
 
-                // Update other items in RecyclerView (this updates the item numbers in each CardView)
-                // notifyItemRangeChanged() works with animations, as notifyDataSetChanged()
-                // does not.
-                // TODO Use payload to only update fields that have changed
-                // For Likes, index 0 is the header so it doesn't need to change
-                // Cards are inserted at the top, so index will always be 1 (unless this logic changes)
-                notifyItemRangeChanged(1, getItemCount());
+        if (card.getDontLikeClickDate() <= 0) {
 
-                // Notify user
-                parentView.notifyUserBusinessLiked(business.getName());
+            // Get current date/time
+            long systemTime_ms = System.currentTimeMillis();
 
-            } else {
-                // Unlike
+            // TODO Get this out of the adapter
+            // TODO Single source of truth
+            // Update user records
+            mUserRecords.updateClickDate(card.getId(), systemTime_ms, DONTLIKE);
 
-                // TODO Get this out of the adapter
-                // TODO Single source of truth
-                // Update UserRecords
-                mUserRecords.updateClickDate(business, 0, LIKE);
+            BusinessCard dontLike = card.withUserState(systemTime_ms, card.getTooSoonClickDate());
+            Timber.d("Updated dontLikeClickDate for " + card.getInfo().getName() + " to " + systemTime_ms);
 
-                // Update object field
-                business.setDontLikeClickDate(0);
-                Timber.d("Updated dontLikeClickDate for " + business.getName() + " to " + business.getDontLikeClickDate());
+            // Move the business to the bottom of the Don't Like list
+            mBusinessList.remove(card);
+            mBusinessList.appendToSublist(DONT_LIKE_KEY, dontLike);
+            commit(DONTLIKE, before, card, dontLike);
 
-                notifyItemChanged(position);
-            }
+            // Notify user
+            parentView.notifyUserBusinessDontLiked(card.getInfo().getName());
 
-        };
-    }
+        } else {
+            // Un-Don't Like
 
-    @NonNull
-    private View.OnClickListener onTooSoonClick(int position) {
-        return v -> {
-            // Get business and hold in temp variable
-            Business businessTemp = (Business) mBusinessList.get(position);
+            // TODO Get this out of the adapter
+            // Update UserRecords
+            mUserRecords.updateClickDate(card.getId(), 0, DONTLIKE);
 
-            if (businessTemp.isDontLike()) {
-                parentView.notifyNotAllowedOnDontLike();
-            } else {
-                // Remove existing element
-                mBusinessList.remove(position);
+            BusinessCard notDontLike = card.withUserState(0, card.getTooSoonClickDate());
+            mBusinessList.replace(card, notDontLike);
+            Timber.d("Updated dontLikeClickDate for " + card.getInfo().getName() + " to 0");
 
-                // Update RecyclerView item (triggers animation)
-                notifyItemRemoved(position);
+            commit(DONTLIKE, before, card, notDontLike);
+        }
+    }
 
-                // Remove header if necessary
-                // `position - 1` because you just removed an element
-                removeHeader(position - 1);
+    // region Selection
 
-                // Which Too Soon list?
-                String sublistKey = businessTemp.isLiked() ? LIKED_TOO_SOON_KEY : UNSORTED_TOO_SOON_KEY;
+    boolean isSelecting() {
+        return !mSelectedIds.isEmpty();
+    }
 
-                //   Add a header if necessary
-                if (mBusinessList.getSublist(sublistKey).isEmpty()) {
-                    mBusinessList.getSublist(sublistKey).add(0, new BusinessListHeader(sublistKey));
-                    int tooSoonStart = mBusinessList.getStartOfSublist(sublistKey);
-                    notifyItemInserted(tooSoonStart);
-                }
+    int getSelectedCount() {
+        return mSelectedIds.size();
+    }
 
-                // Add item to Too Soon sublist
-                mBusinessList.getSublist(sublistKey).add(businessTemp); // How is this working???
-
-                // Update other items in RecyclerView (this updates the item numbers in each CardView)
-                // Start updating from which is higher on the list, the original position or the position it moved to
-                int minIndexChanged = Math.min(mBusinessList.getCombinedIndex(
-                        sublistKey,
-                        mBusinessList
-                                .getSublist(sublistKey)
-                                .size() - 1), position);
-                notifyItemRangeChanged(minIndexChanged, getItemCount());
-
-                // Notify user
-                parentView.notifyUserTooSoon(businessTemp.getName());
-
-                // TODO Get this out of the adapter
-                // TODO Single source of truth
-                // Update user records
-                long systemTime_ms = System.currentTimeMillis();
-                mUserRecords.updateClickDate(businessTemp, systemTime_ms, TOOSOON);
-
-                // Update object field
-                businessTemp.setTooSoonClickDate(systemTime_ms);
-                Timber.d("Updated tooSoonClickDate for " + businessTemp.getName() + " to " + systemTime_ms);
-            }
-        };
+    /**
+     * Adds the card to the selection, or removes it. Selecting the first card starts selection
+     * mode, see {@link BusinessListParentView#onSelectionChanged(int)}.
+     */
+    void toggleSelection(final int adapterPosition) {
+        final BusinessListRow row = getItem(adapterPosition);
+        if (!(row instanceof BusinessListRow.Card)) {
+            return;
+        }
+        final String id = ((BusinessListRow.Card) row).getCard().getId();
+        if (!mSelectedIds.remove(id)) {
+            mSelectedIds.add(id);
+        }
+        submitSnapshot();
+        parentView.onSelectionChanged(mSelectedIds.size());
     }
 
-    @NonNull
-    private View.OnClickListener onDontLikeClick(int position, Business business) {
-        return v -> {
+    void clearSelection() {
+        if (mSelectedIds.isEmpty()) {
+            return;
+        }
+        mSelectedIds.clear();
+        submitSnapshot();
+        parentView.onSelectionChanged(0);
+    }
 
-            if (business.getDontLikeClickDate() <= 0) {
+    /**
+     * Drops the selection without a snapshot of its own, for callers that submit one right after
+     */
+    private void endSelection() {
+        if (!mSelectedIds.isEmpty()) {
+            mSelectedIds.clear();
+            parentView.onSelectionChanged(0);
+        }
+    }
 
-                // Get business and hold in temp variable
-                Business businessTemp = (Business) mBusinessList.get(position);
+    /**
+     * Applies one button action to every selected card as a single change: the cards are moved
+     * with one pass over the list, `UserRecords` is written once and the adapter gets one new
+     * snapshot, which also clears the selection. The cost doesn't grow with the number of
+     * selected cards beyond the list pass itself.
+     *
+     * Unlike a tap on a card's button, this doesn't toggle. Cards that already have the state
+     * stay where they are.
+     *
+     * @param buttonId {@link #LIKE}, {@link #TOOSOON}, {@link #DONTLIKE} or {@link #DISMISS}
+     */
+    void applyToSelection(final int buttonId) {
+        if (mSelectedIds.isEmpty() || mBusinessList == null) {
+            return;
+        }
 
-                // Remove existing element
-                mBusinessList.remove(position);
+        final long systemTime_ms = System.currentTimeMillis();
+        final List<BusinessCard> selected = mBusinessList.findCards(mSelectedIds);
+        final List<BusinessCard> targets = new ArrayList<>(selected.size());
+        for (BusinessCard card : selected) {
+            if (appliesTo(buttonId, card)) {
+                targets.add(card);
+            }
+        }
+        mSelectedIds.clear();
 
-                // Update RecyclerView item (triggers animation)
-                notifyItemRemoved(position);
+        if (targets.isEmpty()) {
+            submitSnapshot();
+            parentView.onSelectionChanged(0);
+            return;
+        }
 
-                // Remove header if necessary
-                // `position - 1` because you just removed an element
-                removeHeader(position - 1);
+        final Set<String> targetIds = new HashSet<>();
+        for (BusinessCard card : targets) {
+            targetIds.add(card.getId());
+        }
+        final CombinedList.Contents before = mBusinessList.getContents();
+        final List<BusinessCard> updated = new ArrayList<>(targets.size());
+        mBusinessList.removeCards(targetIds);
+
+        switch (buttonId) {
+            case LIKE: {
+                for (BusinessCard card : targets) {
+                    updated.add(card.withUserState(LIKED, card.getTooSoonClickDate()));
+                }
+                mBusinessList.insertAllIntoSublist(LIKES_KEY, 0, updated);
+                mUserRecords.updateClickDates(targetIds, LIKED, LIKE);
+            }
+            break;
+            case TOOSOON: {
+                final List<BusinessCard> likedTooSoon = new ArrayList<>();
+                final List<BusinessCard> unsortedTooSoon = new ArrayList<>();
+                for (BusinessCard card : targets) {
+                    final BusinessCard tooSoon = card.withUserState(card.getDontLikeClickDate(), systemTime_ms);
+                    (card.isLiked() ? likedTooSoon : unsortedTooSoon).add(tooSoon);
+                    updated.add(tooSoon);
+                }
+                mBusinessList.appendAllToSublist(LIKED_TOO_SOON_KEY, likedTooSoon);
+                mBusinessList.appendAllToSublist(UNSORTED_TOO_SOON_KEY, unsortedTooSoon);
+                mUserRecords.updateClickDates(targetIds, systemTime_ms, TOOSOON);
+            }
+            break;
+            case DONTLIKE: {
+                for (BusinessCard card : targets) {
+                    updated.add(card.withUserState(systemTime_ms, card.getTooSoonClickDate()));
+                }
+                mBusinessList.appendAllToSublist(DONT_LIKE_KEY, updated);
+                mUserRecords.updateClickDates(targetIds, systemTime_ms, DONTLIKE);
+            }
+            break;
+            case DISMISS:
+                mUserRecords.incrementDismissedCounts(targetIds);
+                break;
+        }
 
-                // Add header if necessary
-                addHeader(DONT_LIKE_KEY);
+        commit(buttonId, before, targets, updated);
+        parentView.onSelectionChanged(0);
+        parentView.notifyUserBulkAction(buttonId, targets.size());
+    }
 
-                // Add business to bottom of Don't Like list
-                mBusinessList.getSublist(DONT_LIKE_KEY).add(businessTemp);
+    private static boolean appliesTo(final int buttonId, final BusinessCard card) {
+        switch (buttonId) {
+            case LIKE:
+                return !card.isLiked();
+            case TOOSOON:
+                // Same rule as the button
+                return !card.isDontLike();
+            case DONTLIKE:
+                return card.getDontLikeClickDate() <= 0;
+            default:
+                return true;
+        }
+    }
 
-                // Update other items in RecyclerView (this updates the item numbers in each CardView)
-                // Since Don't Likes go to the bottom, the range will always be from the original `position` downwards
-                notifyItemRangeChanged(position, getItemCount());
+    // endregion
 
-                // Notify user
-                parentView.notifyUserBusinessDontLiked(business.getName());
+    /**
+     * @param adapterPosition Position of the swiped card in the adapter's current snapshot
+     */
+    void dismiss(final int adapterPosition) {
+        if (adapterPosition == RecyclerView.NO_POSITION) {
+            return;
+        }
 
-                // Get current date/time
-                long systemTime_ms = System.currentTimeMillis();
+        // Get business and hold in temp variable
+        final BusinessCard card = mBusinessList.findCard(
+                ((BusinessListRow.Card) getItem(adapterPosition)).getCard().getId());
+        if (card == null) {
+            return;
+        }
+        final CombinedList.Contents before = mBusinessList.getContents();
 
-                // TODO Get this out of the adapter
-                // TODO Single source of truth
-                // Update user records
-                mUserRecords.updateClickDate(businessTemp, systemTime_ms, DONTLIKE);
+        // Remove existing element
+        mBusinessList.remove(card);
+        commit(DISMISS, before, Collections.singletonList(card), Collections.emptyList());
 
-                // Update object field
-                businessTemp.setDontLikeClickDate(systemTime_ms);
-                Timber.d("Updated dontLikeClickDate for " + businessTemp.getName() + " to " + systemTime_ms);
+        // Notify user
+        parentView.notifyUserBusinessDismissed(card.getInfo().getName());
 
-            } else {
-                // Un-Don't Like
+        // TODO Get this out of the adapter
+        // Update user records
+        mUserRecords.incrementDismissedCount(card.getId());
+    }
 
-                // TODO Get this out of the adapter
-                // Update UserRecords
-                mUserRecords.updateClickDate(business, 0, DONTLIKE);
+    // region History
 
-                // Update object field
-                business.setDontLikeClickDate(0);
-                Timber.d("Updated dontLikeClickDate for " + business.getName() + " to " + business.getDontLikeClickDate());
+    private void commit(final int action,
+                        final CombinedList.Contents before,
+                        final BusinessCard cardBefore,
+                        final BusinessCard cardAfter) {
+        commit(action, before, Collections.singletonList(cardBefore), Collections.singletonList(cardAfter));
+    }
 
-                notifyItemChanged(position);
+    private void commit(final int action,
+                        final CombinedList.Contents before,
+                        final List<BusinessCard> cardsBefore,
+                        final List<BusinessCard> cardsAfter) {
+        mHistory.push(new ListHistory.Entry(action, before, mBusinessList.getContents(), cardsBefore, cardsAfter));
+        if (action == DISMISS) {
+            for (BusinessCard card : cardsBefore) {
+                mExpiries.cancel(card.getId());
             }
-        };
+        } else {
+            for (BusinessCard card : cardsAfter) {
+                mExpiries.schedule(card);
+            }
+        }
+        submitSnapshot();
+        parentView.onHistoryChanged();
     }
 
-    @NonNull
-    private View.OnClickListener onBusinessHeaderClick(Business business) {
-        return v -> parentView.launchBusinessUrl(business.getUrl());
+    boolean canUndo() {
+        return mHistory.canUndo();
     }
 
-    void dismiss(final int position) {
-
-        // UI Stuff:
-        // Get business and hold in temp variable
-        final Business business = (Business) mBusinessList.get(position);
+    boolean canRedo() {
+        return mHistory.canRedo();
+    }
 
-        // Remove existing element
-        mBusinessList.remove(position);
+    /**
+     * Puts the list back the way it was before the last action, or the last redone one. Restoring
+     * the list is one assignment and the result is diffed like any other change, so cards move back
+     * to wherever they were even after later edits shifted positions around.
+     *
+     * A dismiss that is undone still counts towards the business's dismissed count, as it always
+     * has.
+     */
+    void undo() {
+        final ListHistory.Entry entry = mHistory.undo();
+        if (entry == null) {
+            return;
+        }
+        endSelection();
+        mBusinessList.restore(entry.before);
+        if (entry.action != DISMISS) {
+            mUserRecords.restoreClickDates(entry.cardsBefore);
+        }
+        onContentsRestored();
+        submitSnapshot();
+        parentView.onHistoryChanged();
+    }
 
-        // Update RecyclerView item (triggers animation)
-        notifyItemRemoved(position);
+    void redo() {
+        final ListHistory.Entry entry = mHistory.redo();
+        if (entry == null) {
+            return;
+        }
+        endSelection();
+        mBusinessList.restore(entry.after);
+        if (entry.action != DISMISS) {
+            mUserRecords.restoreClickDates(entry.cardsAfter);
+        }
+        onContentsRestored();
+        submitSnapshot();
+        parentView.onHistoryChanged();
+    }
 
-        // Remove header if necessary
-        // position - 1 because you just removed one
-        removeHeader(position - 1);
+    /**
+     * Restored contents may be from before an expiry fired. Schedules them again and moves anything
+     * that expired since.
+     */
+    private void onContentsRestored() {
+        final long now = System.currentTimeMillis();
+        moveExpired(mExpiries.reset(allItems(), now), now);
+    }
 
-        // Update other items in RecyclerView (this updates the item numbers in each CardView)
-        notifyItemRangeChanged(position, getItemCount());
+    // endregion
 
-        // Notify user
-        parentView.notifyUserBusinessDismissed(position, business);
+    // region Expiry
 
-        // TODO Get this out of the adapter
-        // Update user records
-        mUserRecords.incrementDismissedCount(business.getId());
-    }
+    // The sections a card leaves when its state expires
+    private static final String[] EXPIRING_SECTIONS = {LIKED_TOO_SOON_KEY, UNSORTED_TOO_SOON_KEY, DONT_LIKE_KEY};
 
     /**
-     * @param position Card's index in the list
-     * @return Business's number in list (subtracts headers)
+     * Arms expiry for the cards on screen and catches up on anything that came due while stopped
      */
-    private int calculateCardPosition(final int position) {
-        int headerCount = 0;
-        for (int i = 0; i < position; i++) {
-            if (mBusinessList.get(i) instanceof BusinessListHeader) headerCount++;
-        }
-        return position + 1 - headerCount;
+    void startExpiries() {
+        mExpiries.start();
+    }
+
+    void stopExpiries() {
+        mExpiries.stop();
     }
 
-    private void addHeader(final String key) {
-        if (mBusinessList.getSublist(key).isEmpty()) {
-            // Headers will always be added at index 0
-            mBusinessList.getSublist(key).add(0, new BusinessListHeader(key));
-            int index = mBusinessList.getStartOfSublist(key);
-            notifyItemInserted(index);
+    @Override
+    public void onExpiryDue(final Set<String> businessIds, final long now) {
+        if (mBusinessList == null) {
+            return;
+        }
+        if (moveExpired(businessIds, now)) {
+            submitSnapshot();
         }
     }
 
-    private void removeHeader(int position) {
-        for (int i = position; i >= 0; i--) {
-            if (mBusinessList.get(i) instanceof BusinessListHeader) {
-                String key = ((BusinessListHeader) mBusinessList.get(i)).getKey();
-                if (mBusinessList.getSublist(key).size() < 2) {
-                    mBusinessList.remove(i);
-                    notifyItemRemoved(i);
-                    break; // Only do this for the first header
+    /**
+     * Moves each of `businessIds` whose card has expired out of its Too Soon or Don't Like section,
+     * as one change: expired Don't Likes are saved with one write, and moved cards are scheduled for
+     * whatever expires next. Each card is found by ID and moved with its own tree update, so the
+     * cost grows with the number of due cards, not with the size of the sections.
+     *
+     * Expiry isn't an undoable action, so it isn't added to the history.
+     *
+     * @return Whether any card moved
+     */
+    private boolean moveExpired(final Set<String> businessIds, final long now) {
+        final List<CombinedList.SubLocation> expiring = new ArrayList<>();
+        for (String businessId : businessIds) {
+            final CombinedList.SubLocation location = mBusinessList.locate(businessId);
+            if (location != null && isExpiringSection(location.getSection())) {
+                expiring.add(location);
+            }
+        }
+        // Moved cards keep their list order
+        Collections.sort(expiring, (a, b) -> a.getSublist() != b.getSublist()
+                ? Integer.compare(a.getSublist(), b.getSublist())
+                : Integer.compare(a.getSubIndex(), b.getSubIndex()));
+
+        final Map<String, List<BusinessCard>> moves = new HashMap<>();
+        final List<CombinedList.SubLocation> movedFrom = new ArrayList<>();
+        final List<BusinessCard> movedCards = new ArrayList<>();
+        final List<String> dontLikesExpired = new ArrayList<>();
+
+        for (CombinedList.SubLocation location : expiring) {
+            final BusinessCard card = mBusinessList.getCard(location);
+            final BusinessCard expired;
+            final String target;
+            if (DONT_LIKE_KEY.equals(location.getSection())) {
+                if (!mExpiries.isDontLikeExpired(card, now)) {
+                    continue;
                 }
+                expired = card.withUserState(0, card.getTooSoonClickDate());
+                target = expired.getTooSoonClickDate() != 0 && !mExpiries.isTooSoonExpired(expired, now)
+                        ? UNSORTED_TOO_SOON_KEY
+                        : UNSORTED_KEY;
+                dontLikesExpired.add(card.getId());
+            } else {
+                if (!mExpiries.isTooSoonExpired(card, now)) {
+                    continue;
+                }
+                // Same state, new descriptive text
+                expired = card.withUserState(card.getDontLikeClickDate(), card.getTooSoonClickDate());
+                target = card.isLiked() ? LIKES_KEY : UNSORTED_KEY;
+            }
+
+            List<BusinessCard> moving = moves.get(target);
+            if (moving == null) {
+                moving = new ArrayList<>();
+                moves.put(target, moving);
             }
+            moving.add(expired);
+            movedFrom.add(location);
+            movedCards.add(expired);
+        }
+        if (movedFrom.isEmpty()) {
+            return false;
         }
-    }
 
-    void undoDismiss(final int position, final Business business) {
-        mBusinessList.add(position, business);
-        notifyItemInserted(position);
-        notifyItemRangeChanged(position, getItemCount());
+        mBusinessList.removeAt(movedFrom);
+        for (Map.Entry<String, List<BusinessCard>> move : moves.entrySet()) {
+            mBusinessList.appendAllToSublist(move.getKey(), move.getValue());
+        }
+        if (!dontLikesExpired.isEmpty()) {
+            mUserRecords.updateClickDates(dontLikesExpired, 0, DONTLIKE);
+        }
+        for (BusinessCard card : movedCards) {
+            mExpiries.schedule(card);
+        }
+        Timber.d("Moved " + movedCards.size() + " expired cards");
+        return true;
+    }
 
-        if (position == 0) {
-            mLayoutManager.scrollToPosition(0);
+    private static boolean isExpiringSection(final String key) {
+        for (String expiring : EXPIRING_SECTIONS) {
+            if (expiring.equals(key)) {
+                return true;
+            }
         }
+        return false;
     }
 
-    @Override
-    public int getItemCount() {
-        if (mBusinessList == null) {
-            return 0;
-        } else {
-            return mBusinessList.size();
+    private List<BusinessListBaseItem> allItems() {
+        final List<BusinessListBaseItem> items = new ArrayList<>(mBusinessList.size());
+        for (String key : new String[]{LIKES_KEY, LIKED_TOO_SOON_KEY, UNSORTED_KEY, UNSORTED_TOO_SOON_KEY, DONT_LIKE_KEY}) {
+            items.addAll(mBusinessList.getSublist(key));
         }
+        return items;
+    }
+
+    // endregion
+
+    /**
+     * Hands the adapter an immutable copy of `mBusinessList`. DiffUtil runs on a background thread
+     * and only the rows that actually changed are re-bound.
+     */
+    private void submitSnapshot() {
+        submitList(mBusinessList == null ? null : mBusinessList.snapshot(mSelectedIds));
     }
 
     void setBusinessList(final CombinedList businesses) {
         this.mBusinessList = businesses;
+        // IDs from the previous list may not be in the new one, and history entries hold its contents
+        endSelection();
+        mHistory.clear();
+        if (businesses == null) {
+            mExpiries.reset(Collections.<BusinessListBaseItem>emptyList(), 0);
+        } else {
+            final long now = System.currentTimeMillis();
+            moveExpired(mExpiries.reset(allItems(), now), now);
+        }
+        submitSnapshot();
+        parentView.onHistoryChanged();
     }
 
     CombinedList getBusinessList() {
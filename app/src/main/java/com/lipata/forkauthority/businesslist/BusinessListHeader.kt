@@ -1,8 +0,0 @@
-package com.lipata.forkauthority.businesslist
-
-class BusinessListHeader(val key: String) : BusinessListBaseItem() {
-
-    override fun getViewType(): Int {
-        return ListItemTypes.HEADER
-    }
-}
\ No newline at end of file
@@ -1,9 +1,7 @@
 package com.lipata.forkauthority.businesslist
 
 import android.content.Context
-import android.graphics.drawable.Drawable
 import androidx.recyclerview.widget.RecyclerView
-import com.lipata.forkauthority.api.yelp3.entities.Business
 
 /**
  * Created by jlipata on 1/3/18.
@@ -12,15 +10,26 @@ interface BusinessListParentView {
     fun getContext(): Context
     fun getRecyclerViewLayoutManager(): RecyclerView.LayoutManager
 
-    /**
-     * As per Yelp documentation: Rating for this business (value ranges from 1, 1.5, ... 4.5, 5).
-     */
-    fun getRatingDrawable(rating: String): Drawable
-
     fun notifyUserTooSoon(businessName: String)
     fun notifyUserBusinessLiked(businessName: String)
-    fun notifyUserBusinessDismissed(position: Int, business: Business)
+    fun notifyUserBusinessDismissed(businessName: String)
     fun notifyUserBusinessDontLiked(businessName: String)
     fun notifyNotAllowedOnDontLike();
+
+    /**
+     * @param buttonId Action applied, see [BusinessListAdapter.LIKE] and friends
+     * @param count Number of businesses it changed
+     */
+    fun notifyUserBulkAction(buttonId: Int, count: Int)
+
+    /**
+     * @param count Number of selected cards, 0 when selection mode ends
+     */
+    fun onSelectionChanged(count: Int)
+
+    /**
+     * Something was added to, undone or redone from the list's undo history
+     */
+    fun onHistoryChanged()
     fun launchBusinessUrl(url: String)
 }
\ No newline at end of file
@@ -0,0 +1,75 @@
+package com.lipata.forkauthority.businesslist
+
+/**
+ * Immutable, point-in-time copy of one line of the business list.
+ *
+ * The adapter is only ever handed lists of these (see [com.lipata.forkauthority.data.CombinedList.snapshot]),
+ * so DiffUtil can compare an old list to a new one on a background thread while the user keeps
+ * tapping on the main thread.
+ */
+sealed class BusinessListRow {
+    abstract val stableId: Long
+    abstract val viewType: Int
+
+    /**
+     * [card] is immutable and already formatted. The row only adds the card's number in the list,
+     * which depends on its position and so is calculated per snapshot.
+     *
+     * @property rankLabel The number as shown in front of the name, e.g. "3."
+     * @property section Key of the section the card is in, one of [com.lipata.forkauthority.data.Categories]
+     * @property isSelected Whether the card is picked for a bulk action
+     */
+    data class Card(
+        val card: BusinessCard,
+        val rank: Int,
+        val rankLabel: String,
+        val section: String,
+        val isSelected: Boolean
+    ) : BusinessListRow() {
+        override val stableId: Long = StableIds.of(card.id)
+        override val viewType: Int = ListItemTypes.BUSINESS
+
+        val isLiked: Boolean
+            get() = card.isLiked
+
+        val isDontLike: Boolean
+            get() = card.isDontLike
+
+        companion object {
+            /**
+             * @param previous This card's row from the last snapshot, reused if nothing changed
+             */
+            @JvmStatic
+            fun of(card: BusinessCard, rank: Int, section: String, selected: Boolean, previous: Card?): Card {
+                if (previous != null
+                    && previous.card === card
+                    && previous.rank == rank
+                    && previous.section == section
+                    && previous.isSelected == selected
+                ) {
+                    return previous
+                }
+                return Card(card, rank, "$rank.", section, selected)
+            }
+        }
+    }
+}
+
+/**
+ * Maps Yelp business IDs to the `long` IDs RecyclerView wants for stable IDs.
+ * 64-bit FNV-1a, so collisions across a few hundred rows are not a practical concern.
+ */
+internal object StableIds {
+    private const val FNV_OFFSET_BASIS = -0x340d631b7bdddcdbL // 0xcbf29ce484222325
+    private const val FNV_PRIME = 0x100000001b3L
+
+    fun of(key: String?): Long {
+        if (key == null) return 0L
+        var hash = FNV_OFFSET_BASIS
+        for (c in key) {
+            hash = hash xor c.toLong()
+            hash *= FNV_PRIME
+        }
+        return hash
+    }
+}
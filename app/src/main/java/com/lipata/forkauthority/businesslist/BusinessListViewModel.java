@@ -10,6 +10,7 @@ import com.lipata.forkauthority.data.AppSettings;
 import com.lipata.forkauthority.data.CombinedList;
 import com.lipata.forkauthority.data.ListComposer;
 import com.lipata.forkauthority.data.ListFetcher;
+import com.lipata.forkauthority.data.catalog.BusinessCatalog;
 import com.lipata.forkauthority.util.AddressParser;
 import com.lipata.forkauthority.util.Utility;
 
@@ -19,6 +20,7 @@ import javax.inject.Inject;
 
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
+import io.reactivex.Single;
 import io.reactivex.disposables.CompositeDisposable;
 import timber.log.Timber;
 
@@ -31,31 +33,40 @@ public class BusinessListViewModel extends ViewModel {
     private final GeocoderApi geocoderApi;
     private final ListComposer listComposer;
     private final AddressParser addressParser;
+    private final BusinessCatalog businessCatalog;
 
     private MutableLiveData<FetchListState> listLiveData;
     private MutableLiveData<LocationState> locationLiveData;
 
     private CompositeDisposable compositeDisposable;
 
+    // Whether a list is on screen. It stays there while refreshing, so cached results aren't shown over it.
+    private boolean listShown;
+
     @Inject public BusinessListViewModel(
             final ListFetcher fetcher,
             final GooglePlayApi googlePlayApi,
             final GeocoderApi geocoderApi,
             final ListComposer listComposer,
-            final AddressParser addressParser) {
+            final AddressParser addressParser,
+            final BusinessCatalog businessCatalog) {
         this.fetcher = fetcher;
         this.googlePlayApi = googlePlayApi;
         this.geocoderApi = geocoderApi;
         this.listComposer = listComposer;
         this.addressParser = addressParser;
+        this.businessCatalog = businessCatalog;
         this.listLiveData = new MutableLiveData<>();
         this.locationLiveData = new MutableLiveData<>();
         this.compositeDisposable = new CompositeDisposable();
     }
 
     void onStart() {
-        boolean hasList = listLiveData.getValue() instanceof FetchListState.Success;
-        if (!hasList) {
+        // Nothing to do if the list is shown or a fetch is still running; a second fetch would race it
+        FetchListState state = listLiveData.getValue();
+        boolean hasList = state instanceof FetchListState.Success;
+        boolean fetching = state instanceof FetchListState.Loading || state instanceof FetchListState.Cached;
+        if (!hasList && !fetching) {
             fetchBusinessList();
         }
     }
@@ -74,6 +85,16 @@ public class BusinessListViewModel extends ViewModel {
         Timber.d("Querying YelpV3api... Search term: " + AppSettings.SEARCH_TERM + " | Location: " + location.toString());
         callYelpApiStartTime = System.nanoTime();
 
+        // Show Liked places from earlier fetches while Yelp answers
+        final double latitude = location.getLatitude();
+        final double longitude = location.getLongitude();
+        compositeDisposable.add(
+                Single.fromCallable(() -> listComposer.composeCached(latitude, longitude))
+                        .compose(Utility::applySchedulers)
+                        .subscribe(this::onCachedListComposed,
+                                throwable -> Timber.e(throwable.getMessage(), throwable))
+        );
+
         //get list
         compositeDisposable.add(
                 fetcher
@@ -125,12 +146,17 @@ public class BusinessListViewModel extends ViewModel {
         Timber.d("Total results received %s", businesses.size());
 
         if (businesses.size() > 0) {
-            // Pass list to ListComposer to be processed
-            CombinedList filteredBusinesses = listComposer.filter(businesses);
-
-            // Update UI
-            listLiveData.setValue(new FetchListState.Success(filteredBusinesses));
+            businessCatalog.save(businesses);
+
+            // Pass list to ListComposer to be processed. Sorting and building the cards' display
+            // strings happens off the main thread.
+            compositeDisposable.add(
+                    Single.fromCallable(() -> listComposer.filter(businesses))
+                            .compose(Utility::applySchedulers)
+                            .subscribe(this::onListComposed, this::onError)
+            );
         } else {
+            listShown = false;
             listLiveData.setValue(new FetchListState.NoResults());
         }
 
@@ -142,6 +168,21 @@ public class BusinessListViewModel extends ViewModel {
         //view.logFabricAnswersMetric(AppSettings.FABRIC_METRIC_YELPAPI, callYelpApiStartTime);
     }
 
+    private void onCachedListComposed(CombinedList cachedBusinesses) {
+        // Too late if the fetch already finished, and not wanted over a list being refreshed
+        if (cachedBusinesses.size() > 0 && !listShown
+                && listLiveData.getValue() instanceof FetchListState.Loading) {
+            listShown = true;
+            listLiveData.setValue(new FetchListState.Cached(cachedBusinesses));
+        }
+    }
+
+    private void onListComposed(CombinedList filteredBusinesses) {
+        // Update UI
+        listShown = true;
+        listLiveData.setValue(new FetchListState.Success(filteredBusinesses));
+    }
+
     @Override protected void onCleared() {
         compositeDisposable.dispose();
         super.onCleared();
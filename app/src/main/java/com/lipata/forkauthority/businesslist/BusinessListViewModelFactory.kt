@@ -6,6 +6,7 @@ import com.lipata.forkauthority.api.GeocoderApi
 import com.lipata.forkauthority.api.GooglePlayApi
 import com.lipata.forkauthority.data.ListComposer
 import com.lipata.forkauthority.data.ListFetcher
+import com.lipata.forkauthority.data.catalog.BusinessCatalog
 import com.lipata.forkauthority.util.AddressParser
 import javax.inject.Inject
 
@@ -14,9 +15,10 @@ class BusinessListViewModelFactory @Inject constructor(
     private val googlePlayApi: GooglePlayApi,
     private val geocoderApi: GeocoderApi,
     private val listComposer: ListComposer,
-    private val addressParser: AddressParser
+    private val addressParser: AddressParser,
+    private val businessCatalog: BusinessCatalog
 ) : ViewModelProvider.Factory {
     override fun <T : ViewModel?> create(modelClass: Class<T>): T {
-        return BusinessListViewModel(listFetcher, googlePlayApi, geocoderApi, listComposer, addressParser) as T
+        return BusinessListViewModel(listFetcher, googlePlayApi, geocoderApi, listComposer, addressParser, businessCatalog) as T
     }
 }
\ No newline at end of file
@@ -0,0 +1,78 @@
+package com.lipata.forkauthority.businesslist;
+
+import android.text.TextUtils;
+
+import androidx.annotation.Nullable;
+
+import java.util.List;
+
+/**
+ * Change payload for a business card whose Yelp data stayed the same but whose user state or
+ * position changed. `BusinessListAdapter` uses it to update only the affected views instead of
+ * re-binding the whole card.
+ */
+final class CardPayload {
+
+    static final int LIKED = 1;
+    static final int DONT_LIKE = 1 << 1;
+    static final int RANK = 1 << 2;
+    static final int DESCRIPTIVE_TEXT = 1 << 3;
+    // Nothing on the card shows its section. The flag makes RecyclerView re-query the item
+    // decoration's offsets for this card, since a section header may have to appear above it.
+    static final int SECTION = 1 << 4;
+    static final int SELECTED = 1 << 5;
+
+    final int changes;
+
+    private CardPayload(final int changes) {
+        this.changes = changes;
+    }
+
+    /**
+     * @return `null` if the rows can't be patched and need a full bind
+     */
+    @Nullable
+    static CardPayload between(final BusinessListRow.Card oldRow, final BusinessListRow.Card newRow) {
+        final BusinessCard oldCard = oldRow.getCard();
+        final BusinessCard newCard = newRow.getCard();
+        if (!oldCard.getInfo().equals(newCard.getInfo())) {
+            return null;
+        }
+
+        int changes = 0;
+        if (oldRow.isLiked() != newRow.isLiked()) {
+            changes |= LIKED;
+        }
+        if (oldRow.isDontLike() != newRow.isDontLike()) {
+            changes |= DONT_LIKE;
+        }
+        if (oldRow.getRank() != newRow.getRank()) {
+            changes |= RANK;
+        }
+        if (!TextUtils.equals(oldCard.getDescriptiveText(), newCard.getDescriptiveText())) {
+            changes |= DESCRIPTIVE_TEXT;
+        }
+        if (!oldRow.getSection().equals(newRow.getSection())) {
+            changes |= SECTION;
+        }
+        if (oldRow.isSelected() != newRow.isSelected()) {
+            changes |= SELECTED;
+        }
+        return changes == 0 ? null : new CardPayload(changes);
+    }
+
+    /**
+     * RecyclerView can hand over several payloads for one bind if changes arrive back to back.
+     */
+    static int merge(final List<Object> payloads) {
+        int changes = 0;
+        // Indexed loop, this runs during bind and an iterator would be an allocation
+        for (int i = 0; i < payloads.size(); i++) {
+            final Object payload = payloads.get(i);
+            if (payload instanceof CardPayload) {
+                changes |= ((CardPayload) payload).changes;
+            }
+        }
+        return changes;
+    }
+}
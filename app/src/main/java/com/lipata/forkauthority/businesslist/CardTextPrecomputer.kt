@@ -0,0 +1,67 @@
+package com.lipata.forkauthority.businesslist
+
+import androidx.core.text.PrecomputedTextCompat
+import com.lipata.forkauthority.di.ApplicationScope
+import javax.inject.Inject
+
+/**
+ * Measures and lays out a card's text while the list is composed, on the composing thread, so
+ * binding a card only hands ready-made layouts to its TextViews.
+ *
+ * Text can only be precomputed for the exact paint and line breaking settings of the TextView it
+ * goes into. Those come from the first card ViewHolder the adapter creates (see [setParams]);
+ * until then cards are composed with plain strings and the TextViews lay them out on bind.
+ */
+@ApplicationScope
+class CardTextPrecomputer @Inject constructor() {
+
+    private class Params(
+        val name: PrecomputedTextCompat.Params,
+        val categories: PrecomputedTextCompat.Params,
+        val address: PrecomputedTextCompat.Params,
+        val descriptiveText: PrecomputedTextCompat.Params
+    )
+
+    @Volatile
+    private var params: Params? = null
+
+    fun setParams(
+        name: PrecomputedTextCompat.Params,
+        categories: PrecomputedTextCompat.Params,
+        address: PrecomputedTextCompat.Params,
+        descriptiveText: PrecomputedTextCompat.Params
+    ) {
+        params = Params(name, categories, address, descriptiveText)
+    }
+
+    /**
+     * @return `null` if no card has been created yet to take the params from
+     */
+    fun precompute(card: BusinessCard): PrecomputedCardText? {
+        val params = params ?: return null
+        val info = card.info
+        return PrecomputedCardText(
+            PrecomputedTextCompat.create(info.name, params.name),
+            PrecomputedTextCompat.create(info.categories, params.categories),
+            PrecomputedTextCompat.create(info.address, params.address),
+            card.descriptiveText?.let { PrecomputedTextCompat.create(it, params.descriptiveText) }
+        )
+    }
+}
+
+/**
+ * A card's strings as [PrecomputedTextCompat], see [CardTextPrecomputer].
+ *
+ * @property descriptiveText `null` if the card has no descriptive text, or if it changed since the
+ * card was composed. Either way [BusinessCard.descriptiveText] is what to show.
+ */
+class PrecomputedCardText(
+    val name: CharSequence,
+    val categories: CharSequence,
+    val address: CharSequence,
+    val descriptiveText: CharSequence?
+) {
+    fun withoutDescriptiveText(): PrecomputedCardText {
+        return PrecomputedCardText(name, categories, address, null)
+    }
+}
@@ -0,0 +1,115 @@
+package com.lipata.forkauthority.businesslist;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Business IDs ordered by when their card's state expires. Scheduling and taking the next due IDs
+ * cost O(log n) each, so firing a batch costs O(expired items), however many cards are waiting.
+ *
+ * Rescheduling or cancelling an ID leaves its old heap entry in place; it is skipped when it reaches
+ * the top, and the heap is rebuilt if too many pile up.
+ */
+class ExpiryQueue {
+
+    static final long NONE = Long.MAX_VALUE;
+
+    private static final class Entry implements Comparable<Entry> {
+        final long dueAt;
+        final String businessId;
+
+        Entry(final long dueAt, final String businessId) {
+            this.dueAt = dueAt;
+            this.businessId = businessId;
+        }
+
+        @Override
+        public int compareTo(final Entry other) {
+            return Long.compare(dueAt, other.dueAt);
+        }
+    }
+
+    private PriorityQueue<Entry> heap = new PriorityQueue<>();
+    // The live due time of every scheduled ID. A heap entry that doesn't match is stale.
+    private final Map<String, Long> dueAts = new HashMap<>();
+
+    /**
+     * Schedules `businessId` for `dueAt`, replacing any earlier schedule. {@link #NONE} cancels it.
+     */
+    void schedule(final String businessId, final long dueAt) {
+        if (dueAt == NONE) {
+            cancel(businessId);
+            return;
+        }
+        final Long previous = dueAts.put(businessId, dueAt);
+        if (previous == null || previous != dueAt) {
+            heap.add(new Entry(dueAt, businessId));
+            compactIfStale();
+        }
+    }
+
+    void cancel(final String businessId) {
+        dueAts.remove(businessId);
+    }
+
+    void clear() {
+        heap.clear();
+        dueAts.clear();
+    }
+
+    int size() {
+        return dueAts.size();
+    }
+
+    /**
+     * @return The earliest due time, or {@link #NONE} if nothing is scheduled
+     */
+    long nextDueAt() {
+        dropStaleHead();
+        final Entry head = heap.peek();
+        return head == null ? NONE : head.dueAt;
+    }
+
+    /**
+     * Takes every ID due at or before `now` off the queue
+     */
+    Set<String> pollDue(final long now) {
+        final Set<String> due = new HashSet<>();
+        while (true) {
+            dropStaleHead();
+            final Entry head = heap.peek();
+            if (head == null || head.dueAt > now) {
+                return due;
+            }
+            heap.poll();
+            dueAts.remove(head.businessId);
+            due.add(head.businessId);
+        }
+    }
+
+    private void dropStaleHead() {
+        Entry head;
+        while ((head = heap.peek()) != null && !isLive(head)) {
+            heap.poll();
+        }
+    }
+
+    private boolean isLive(final Entry entry) {
+        final Long dueAt = dueAts.get(entry.businessId);
+        return dueAt != null && dueAt == entry.dueAt;
+    }
+
+    private void compactIfStale() {
+        if (heap.size() <= 2 * dueAts.size() + 16) {
+            return;
+        }
+        final PriorityQueue<Entry> live = new PriorityQueue<>(Math.max(1, dueAts.size()));
+        for (Map.Entry<String, Long> entry : dueAts.entrySet()) {
+            live.add(new Entry(entry.getValue(), entry.getKey()));
+        }
+        heap = live;
+    }
+}
@@ -0,0 +1,170 @@
+package com.lipata.forkauthority.businesslist;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.lipata.forkauthority.data.AppSettings;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import timber.log.Timber;
+
+/**
+ * Fires when cards in the live list change state with time: a Just Ate Here runs out, or a Don't Like
+ * reaches {@link AppSettings#DONTLIKE_THRESHOLD_INDAYS}. Cards are kept in an {@link ExpiryQueue} by
+ * due time and one main-thread callback is armed for the earliest. Everything due by then is handed to
+ * the {@link Listener} as one batch.
+ *
+ * The callback runs on uptime, which stops while the device sleeps, so {@link #start()} also catches
+ * up on anything that came due while the activity was stopped.
+ */
+class ExpiryScheduler {
+
+    interface Listener {
+        /**
+         * @param businessIds Businesses whose card came due. They are no longer scheduled; reschedule
+         *                    any that still have something left to expire.
+         */
+        void onExpiryDue(Set<String> businessIds, long now);
+    }
+
+    private static final long DONTLIKE_THRESHOLD_MS = AppSettings.DONTLIKE_THRESHOLD_INDAYS * 24L * 60 * 60 * 1000;
+
+    private final JustAteHereExpiryCalculator calculator;
+    private final Listener listener;
+    private final ExpiryQueue queue = new ExpiryQueue();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable fire = this::fireDue;
+
+    private boolean started;
+    private long armedFor = ExpiryQueue.NONE;
+
+    ExpiryScheduler(final JustAteHereExpiryCalculator calculator, final Listener listener) {
+        this.calculator = calculator;
+        this.listener = listener;
+    }
+
+    boolean isDontLikeExpired(final BusinessCard card, final long now) {
+        return card.isDontLike() && now >= card.getDontLikeClickDate() + DONTLIKE_THRESHOLD_MS;
+    }
+
+    boolean isTooSoonExpired(final BusinessCard card, final long now) {
+        return calculator.isExpired(now, card.getTooSoonClickDate());
+    }
+
+    /**
+     * Schedules the card's next expiry, replacing the one it had. A card with nothing to expire is
+     * dropped.
+     */
+    void schedule(final BusinessCard card) {
+        queue.schedule(card.getId(), dueAt(card));
+        arm();
+    }
+
+    void cancel(final String businessId) {
+        queue.cancel(businessId);
+        arm();
+    }
+
+    /**
+     * Schedules every card in `items` and drops anything scheduled before, e.g. for a new list or one
+     * restored by undo. Cards that are already due aren't scheduled, they're returned for the caller
+     * to move right away.
+     *
+     * @return Businesses whose card was due by `now`
+     */
+    Set<String> reset(final Iterable<? extends BusinessListBaseItem> items, final long now) {
+        queue.clear();
+        final Set<String> due = new HashSet<>();
+        for (BusinessListBaseItem item : items) {
+            if (item instanceof BusinessCard) {
+                final BusinessCard card = (BusinessCard) item;
+                final long dueAt = nextChangeAt(card);
+                if (dueAt == ExpiryQueue.NONE) {
+                    continue;
+                }
+                if (dueAt <= now) {
+                    due.add(card.getId());
+                } else {
+                    queue.schedule(card.getId(), dueAt);
+                }
+            }
+        }
+        Timber.d(queue.size() + " cards scheduled to expire, " + due.size() + " already due");
+        arm();
+        return due;
+    }
+
+    /**
+     * Fires anything already due and arms the callback. Call when the list becomes visible.
+     */
+    void start() {
+        started = true;
+        fireDue();
+    }
+
+    void stop() {
+        started = false;
+        disarm();
+    }
+
+    /**
+     * @return When the card next changes state on its own, or {@link ExpiryQueue#NONE}
+     */
+    private long dueAt(final BusinessCard card) {
+        final long dueAt = nextChangeAt(card);
+        if (dueAt != ExpiryQueue.NONE && !card.isDontLike() && dueAt <= System.currentTimeMillis()) {
+            // A Just Ate Here that already ran out has nothing left to do
+            return ExpiryQueue.NONE;
+        }
+        return dueAt;
+    }
+
+    /**
+     * @return When the card's Don't Like or Just Ate Here runs out, even if that's in the past, or
+     * {@link ExpiryQueue#NONE} if it has neither
+     */
+    private long nextChangeAt(final BusinessCard card) {
+        if (card.isDontLike()) {
+            // A Just Ate Here on a Don't Like card only matters once the Don't Like is gone
+            return card.getDontLikeClickDate() + DONTLIKE_THRESHOLD_MS;
+        }
+        if (card.getTooSoonClickDate() != 0) {
+            // isExpired() is true from the millisecond after expiresAt()
+            return calculator.expiresAt(card.getTooSoonClickDate()) + 1;
+        }
+        return ExpiryQueue.NONE;
+    }
+
+    private void fireDue() {
+        armedFor = ExpiryQueue.NONE;
+        final long now = System.currentTimeMillis();
+        final Set<String> due = queue.pollDue(now);
+        if (!due.isEmpty()) {
+            Timber.d(due.size() + " cards expired");
+            listener.onExpiryDue(due, now);
+        }
+        arm();
+    }
+
+    private void arm() {
+        if (!started) {
+            return;
+        }
+        final long next = queue.nextDueAt();
+        if (next == armedFor) {
+            return;
+        }
+        disarm();
+        if (next != ExpiryQueue.NONE) {
+            armedFor = next;
+            handler.postDelayed(fire, Math.max(0, next - System.currentTimeMillis()));
+        }
+    }
+
+    private void disarm() {
+        handler.removeCallbacks(fire);
+        armedFor = ExpiryQueue.NONE;
+    }
+}
@@ -5,6 +5,8 @@ import com.lipata.forkauthority.data.CombinedList
 sealed class FetchListState {
     class Loading : FetchListState()
     class Success(val list: CombinedList) : FetchListState()
+    /** Liked businesses known from earlier fetches, shown until the [Success] list arrives */
+    class Cached(val list: CombinedList) : FetchListState()
     class Error(val throwable: Throwable): FetchListState()
     class NoResults : FetchListState()
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+package com.lipata.forkauthority.businesslist;
+
+import android.view.Choreographer;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Records the time between frames into {@link ListMetrics} while the list is being dragged or
+ * flung. Stops listening to frames as soon as the list settles, so an idle list costs nothing.
+ */
+class FrameTimeTracker extends RecyclerView.OnScrollListener implements Choreographer.FrameCallback {
+
+    // A frame is janky when it took longer than this many refresh intervals, i.e. a vsync was missed
+    private static final double JANK_THRESHOLD = 1.5;
+
+    private final ListMetrics mMetrics;
+    private final long mJankThresholdNanos;
+
+    private boolean mTracking;
+    private long mLastFrameNanos;
+
+    /**
+     * @param refreshRate Display refresh rate in Hz
+     */
+    FrameTimeTracker(final ListMetrics metrics, final float refreshRate) {
+        mMetrics = metrics;
+        mJankThresholdNanos = (long) (JANK_THRESHOLD * 1_000_000_000L / refreshRate);
+    }
+
+    @Override
+    public void onScrollStateChanged(@NonNull final RecyclerView recyclerView, final int newState) {
+        if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+            stop();
+        } else if (!mTracking) {
+            mTracking = true;
+            mLastFrameNanos = 0;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(final long frameTimeNanos) {
+        if (!mTracking) {
+            return;
+        }
+        if (mLastFrameNanos != 0) {
+            final long duration = frameTimeNanos - mLastFrameNanos;
+            mMetrics.recordFrame(duration, duration > mJankThresholdNanos);
+        }
+        mLastFrameNanos = frameTimeNanos;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    void stop() {
+        mTracking = false;
+        Choreographer.getInstance().removeFrameCallback(this);
+    }
+}
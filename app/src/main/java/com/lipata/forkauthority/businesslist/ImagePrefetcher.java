@@ -0,0 +1,121 @@
+package com.lipata.forkauthority.businesslist;
+
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.lipata.forkauthority.data.CombinedList;
+import com.lipata.forkauthority.image.ImageLoader;
+
+/**
+ * Warms the image cache for cards that are about to scroll into view, so a fling shows thumbnails
+ * instead of blank squares. How far ahead it looks depends on how fast the list is moving.
+ *
+ * Prefetches run at low priority and are dropped as soon as the user reverses direction, since
+ * those cards are no longer coming.
+ */
+class ImagePrefetcher extends RecyclerView.OnScrollListener {
+
+    // Cards to warm when the list first arrives, before anything is laid out
+    private static final int INITIAL_WARM_COUNT = 8;
+
+    private static final int MIN_LOOKAHEAD = 3;
+    private static final int MAX_LOOKAHEAD = 15;
+
+    // Look far enough ahead to cover about this many frames at the current scroll speed
+    private static final int FRAMES_AHEAD = 30;
+
+    private final ImageLoader mImageLoader;
+    private final BusinessListAdapter mAdapter;
+    private final LinearLayoutManager mLayoutManager;
+
+    private int mDirection; // 1 down, -1 up, 0 not scrolled yet
+    private int mPrefetchedEdge = RecyclerView.NO_POSITION; // Furthest position already prefetched in mDirection
+
+    ImagePrefetcher(final ImageLoader imageLoader,
+                    final BusinessListAdapter adapter,
+                    final LinearLayoutManager layoutManager) {
+        mImageLoader = imageLoader;
+        mAdapter = adapter;
+        mLayoutManager = layoutManager;
+    }
+
+    /**
+     * Starts downloading the first cards of a freshly composed list. The adapter is still diffing
+     * it in the background at this point, so this reads from the list itself.
+     */
+    void warm(final CombinedList list) {
+        reset();
+        final int count = Math.min(list.size(), INITIAL_WARM_COUNT);
+        for (int i = 0; i < count; i++) {
+            final BusinessListBaseItem item = list.get(i);
+            if (item instanceof BusinessCard) {
+                prefetch(((BusinessCard) item).getInfo().getImageUrl());
+            }
+        }
+    }
+
+    void reset() {
+        mImageLoader.cancelPrefetches();
+        mDirection = 0;
+        mPrefetchedEdge = RecyclerView.NO_POSITION;
+    }
+
+    @Override
+    public void onScrolled(@NonNull final RecyclerView recyclerView, final int dx, final int dy) {
+        if (dy == 0) {
+            return;
+        }
+
+        final int direction = dy > 0 ? 1 : -1;
+        if (direction != mDirection) {
+            // Reversed. Whatever was queued for the other end is not needed any more.
+            mImageLoader.cancelPrefetches();
+            mDirection = direction;
+            mPrefetchedEdge = RecyclerView.NO_POSITION;
+        }
+
+        final int edge = direction > 0
+                ? mLayoutManager.findLastVisibleItemPosition()
+                : mLayoutManager.findFirstVisibleItemPosition();
+        if (edge == RecyclerView.NO_POSITION) {
+            return;
+        }
+
+        final int lookahead = lookahead(recyclerView, Math.abs(dy));
+        final int itemCount = mAdapter.getItemCount();
+        final int start = mPrefetchedEdge == RecyclerView.NO_POSITION
+                ? edge + direction
+                : (direction > 0 ? Math.max(edge, mPrefetchedEdge) : Math.min(edge, mPrefetchedEdge)) + direction;
+        final int end = edge + direction * lookahead;
+
+        for (int position = start; direction > 0 ? position <= end : position >= end; position += direction) {
+            if (position < 0 || position >= itemCount) {
+                break;
+            }
+            prefetch(mAdapter.getImageUrl(position));
+            mPrefetchedEdge = position;
+        }
+    }
+
+    /**
+     * @return How many positions past the visible edge to prefetch, from the distance scrolled in
+     * this frame and the height of a card
+     */
+    private static int lookahead(final RecyclerView recyclerView, final int distancePx) {
+        final View child = recyclerView.getChildAt(0);
+        if (child == null || child.getHeight() == 0) {
+            return MIN_LOOKAHEAD;
+        }
+        final int itemsAhead = distancePx * FRAMES_AHEAD / child.getHeight();
+        return Math.max(MIN_LOOKAHEAD, Math.min(MAX_LOOKAHEAD, itemsAhead));
+    }
+
+    private void prefetch(final String url) {
+        if (url != null && !url.isEmpty()) {
+            mImageLoader.prefetchThumbnail(url);
+        }
+    }
+}
@@ -10,12 +10,19 @@ class JustAteHereExpiryCalculator @Inject constructor(
     }
 
     fun isExpired(now: Long, justAteHereClickDate: Long): Boolean {
-        val justAteHereThreshold: Int = expirationProvider.get() * 24 * 60 * 60 * 1000 // days to milliseconds
-        return now - justAteHereThreshold > justAteHereClickDate
+        return now > expiresAt(justAteHereClickDate)
+    }
+
+    /**
+     * @return The last moment a Just Ate Here clicked at [justAteHereClickDate] is still in effect
+     */
+    fun expiresAt(justAteHereClickDate: Long): Long {
+        // Long math, an Int overflows past 24 days
+        val justAteHereThreshold: Long = expirationProvider.get() * 24L * 60 * 60 * 1000 // days to milliseconds
+        return justAteHereClickDate + justAteHereThreshold
     }
 }
 
 interface ExpirationProvider {
     fun get(): Int
 }
-
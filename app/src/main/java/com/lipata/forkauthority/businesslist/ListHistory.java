@@ -0,0 +1,101 @@
+package com.lipata.forkauthority.businesslist;
+
+import androidx.annotation.Nullable;
+
+import com.lipata.forkauthority.data.CombinedList;
+
+import java.util.ArrayDeque;
+import java.util.List;
+
+/**
+ * Undo and redo stacks for user actions on the business list.
+ *
+ * An entry holds the {@link CombinedList.Contents} from before and after the action. Those share
+ * structure with each other and with the live list, so an entry costs O(log n) per card the action
+ * moved, not a copy of the list. Undoing is restoring the "before" value and submitting a snapshot
+ * of it, the same diff path as any other change.
+ *
+ * Main thread only.
+ */
+final class ListHistory {
+
+    // Each entry is small, this is only to stop the stacks growing for the life of a long session
+    static final int MAX_ENTRIES = 50;
+
+    static final class Entry {
+        /**
+         * {@link BusinessListAdapter#LIKE}, {@link BusinessListAdapter#TOOSOON},
+         * {@link BusinessListAdapter#DONTLIKE} or {@link BusinessListAdapter#DISMISS}
+         */
+        final int action;
+        final CombinedList.Contents before;
+        final CombinedList.Contents after;
+        // The affected cards as they were and as they became, to put UserRecords back in step.
+        // `after` is empty for a dismiss.
+        final List<BusinessCard> cardsBefore;
+        final List<BusinessCard> cardsAfter;
+
+        Entry(final int action,
+              final CombinedList.Contents before,
+              final CombinedList.Contents after,
+              final List<BusinessCard> cardsBefore,
+              final List<BusinessCard> cardsAfter) {
+            this.action = action;
+            this.before = before;
+            this.after = after;
+            this.cardsBefore = cardsBefore;
+            this.cardsAfter = cardsAfter;
+        }
+    }
+
+    private final ArrayDeque<Entry> mUndo = new ArrayDeque<>();
+    private final ArrayDeque<Entry> mRedo = new ArrayDeque<>();
+
+    /**
+     * Records a new action. Anything that could have been redone is dropped.
+     */
+    void push(final Entry entry) {
+        mUndo.push(entry);
+        if (mUndo.size() > MAX_ENTRIES) {
+            mUndo.removeLast();
+        }
+        mRedo.clear();
+    }
+
+    /**
+     * @return The entry to undo, now moved to the redo stack, or `null`
+     */
+    @Nullable
+    Entry undo() {
+        final Entry entry = mUndo.poll();
+        if (entry != null) {
+            mRedo.push(entry);
+        }
+        return entry;
+    }
+
+    /**
+     * @return The entry to redo, now moved back to the undo stack, or `null`
+     */
+    @Nullable
+    Entry redo() {
+        final Entry entry = mRedo.poll();
+        if (entry != null) {
+            mUndo.push(entry);
+        }
+        return entry;
+    }
+
+    boolean canUndo() {
+        return !mUndo.isEmpty();
+    }
+
+    boolean canRedo() {
+        return !mRedo.isEmpty();
+    }
+
+    void clear() {
+        mUndo.clear();
+        mRedo.clear();
+    }
+}
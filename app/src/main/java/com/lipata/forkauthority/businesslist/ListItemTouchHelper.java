@@ -18,6 +18,15 @@ public class ListItemTouchHelper extends ItemTouchHelper.SimpleCallback {
         return false;
     }
 
+    @Override
+    public int getSwipeDirs(RecyclerView recyclerView, RecyclerView.ViewHolder viewHolder) {
+        // A swipe would dismiss a card from under the selection
+        if (mBusinessListAdapter.isSelecting()) {
+            return 0;
+        }
+        return super.getSwipeDirs(recyclerView, viewHolder);
+    }
+
     @Override
     public void onSwiped(RecyclerView.ViewHolder viewHolder, int direction) {
         // Only do this for a Business, not for a Header
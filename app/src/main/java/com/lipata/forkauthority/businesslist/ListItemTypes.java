@@ -4,6 +4,5 @@ package com.lipata.forkauthority.businesslist;
  * Unique IDs for recyclerview list item types
  */
 public interface ListItemTypes {
-    int HEADER = 100;
     int BUSINESS = 200;
 }
@@ -0,0 +1,88 @@
+package com.lipata.forkauthority.businesslist;
+
+import android.util.SparseArray;
+
+import com.lipata.forkauthority.di.ApplicationScope;
+import com.lipata.forkauthority.util.Histogram;
+
+import javax.inject.Inject;
+
+/**
+ * Rendering numbers for the business list: frame times while it scrolls (see
+ * {@link FrameTimeTracker}) and ViewHolder create/bind times per view type. Shown on the debug
+ * screen, to tell which rendering work actually costs frames.
+ *
+ * Main thread only.
+ */
+@ApplicationScope
+public class ListMetrics {
+
+    private final Histogram frames = new Histogram();
+    private long jankyFrames;
+
+    private final SparseArray<Histogram> creates = new SparseArray<>();
+    private final SparseArray<Histogram> binds = new SparseArray<>();
+
+    @Inject
+    public ListMetrics() {
+    }
+
+    /**
+     * @param janky The frame took long enough that at least one vsync was missed
+     */
+    void recordFrame(final long durationNanos, final boolean janky) {
+        frames.record(durationNanos);
+        if (janky) {
+            jankyFrames++;
+        }
+    }
+
+    void recordCreate(final int viewType, final long nanos) {
+        histogram(creates, viewType).record(nanos);
+    }
+
+    void recordBind(final int viewType, final long nanos) {
+        histogram(binds, viewType).record(nanos);
+    }
+
+    public String summary() {
+        final StringBuilder sb = new StringBuilder();
+        final long frameCount = frames.getCount();
+        sb.append("Scrolling frames: ").append(frameCount)
+                .append(", janky: ").append(jankyFrames);
+        if (frameCount > 0) {
+            sb.append(" (").append(jankyFrames * 100 / frameCount).append("%)");
+        }
+        sb.append('\n').append("  ").append(frames.summary());
+        append(sb, "Create", creates);
+        append(sb, "Bind", binds);
+        return sb.toString();
+    }
+
+    public void reset() {
+        frames.reset();
+        jankyFrames = 0;
+        creates.clear();
+        binds.clear();
+    }
+
+    private static void append(final StringBuilder sb, final String what, final SparseArray<Histogram> byType) {
+        for (int i = 0; i < byType.size(); i++) {
+            sb.append('\n').append(what).append(' ').append(viewTypeName(byType.keyAt(i))).append(":\n  ")
+                    .append(byType.valueAt(i).summary());
+        }
+    }
+
+    private static String viewTypeName(final int viewType) {
+        return viewType == ListItemTypes.BUSINESS ? "card" : "view type " + viewType;
+    }
+
+    private static Histogram histogram(final SparseArray<Histogram> byType, final int viewType) {
+        Histogram histogram = byType.get(viewType);
+        if (histogram == null) {
+            histogram = new Histogram();
+            byType.put(viewType, histogram);
+        }
+        return histogram;
+    }
+}
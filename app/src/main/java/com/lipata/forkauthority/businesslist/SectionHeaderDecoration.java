@@ -0,0 +1,157 @@
+package com.lipata.forkauthority.businesslist;
+
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.lipata.forkauthority.R;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Draws the section headers ("Likes", "Don't Like", ...) above the first card of each section, and
+ * keeps the current section's header pinned to the top of the list, pushed out by the next one.
+ *
+ * Headers are not list items. They take no adapter positions or ViewHolders, and the list data
+ * only needs to know which section each card is in ({@link BusinessListRow.Card#getSection()}).
+ */
+class SectionHeaderDecoration extends RecyclerView.ItemDecoration {
+
+    private final RecyclerView mRecyclerView;
+    private final BusinessListAdapter mAdapter;
+
+    // One laid out header view per section, drawn wherever that header is needed. Only a handful.
+    private final Map<String, View> mHeaderViews = new HashMap<>();
+    private int mHeaderWidth;
+
+    private SectionHeaderDecoration(final RecyclerView recyclerView, final BusinessListAdapter adapter) {
+        mRecyclerView = recyclerView;
+        mAdapter = adapter;
+    }
+
+    static void attach(final RecyclerView recyclerView, final BusinessListAdapter adapter) {
+        final SectionHeaderDecoration decoration = new SectionHeaderDecoration(recyclerView, adapter);
+        recyclerView.addItemDecoration(decoration);
+        adapter.registerAdapterDataObserver(decoration.new BoundaryObserver());
+    }
+
+    @Override
+    public void getItemOffsets(@NonNull final Rect outRect, @NonNull final View view,
+                               @NonNull final RecyclerView parent, @NonNull final RecyclerView.State state) {
+        final int position = parent.getChildAdapterPosition(view);
+        if (position != RecyclerView.NO_POSITION && mAdapter.isFirstInSection(position)) {
+            outRect.top = headerFor(parent, mAdapter.getSection(position)).getHeight();
+        }
+    }
+
+    @Override
+    public void onDrawOver(@NonNull final Canvas c, @NonNull final RecyclerView parent,
+                           @NonNull final RecyclerView.State state) {
+        String stickySection = null;
+        boolean stickyNeeded = false;
+        int stickyTop = 0;
+
+        final int childCount = parent.getChildCount();
+        for (int i = 0; i < childCount; i++) {
+            final View child = parent.getChildAt(i);
+            final int position = parent.getChildAdapterPosition(child);
+            if (position == RecyclerView.NO_POSITION) {
+                continue;
+            }
+
+            final String section = mAdapter.getSection(position);
+            final boolean first = mAdapter.isFirstInSection(position);
+            final boolean topmost = stickySection == null;
+            if (topmost) {
+                stickySection = section;
+            }
+            if (!first) {
+                // Topmost card is in the middle of its section, so its header has scrolled away
+                stickyNeeded |= topmost;
+                continue;
+            }
+
+            final View header = headerFor(parent, section);
+            final int headerTop = child.getTop() + (int) child.getTranslationY() - header.getHeight();
+            if (headerTop >= 0) {
+                drawHeader(c, header, headerTop);
+                if (!topmost) {
+                    // The next section's header pushes the pinned one up and out
+                    stickyTop = Math.min(stickyTop, headerTop - header.getHeight());
+                }
+            } else if (topmost) {
+                stickyNeeded = true;
+            }
+        }
+
+        if (stickyNeeded) {
+            drawHeader(c, headerFor(parent, stickySection), stickyTop);
+        }
+    }
+
+    private static void drawHeader(final Canvas c, final View header, final int top) {
+        c.save();
+        c.translate(0, top);
+        header.draw(c);
+        c.restore();
+    }
+
+    private View headerFor(final RecyclerView parent, final String section) {
+        final int width = parent.getWidth() > 0 ? parent.getWidth() : parent.getMeasuredWidth();
+        if (width != mHeaderWidth) {
+            mHeaderViews.clear();
+            mHeaderWidth = width;
+        }
+
+        View header = mHeaderViews.get(section);
+        if (header == null) {
+            header = LayoutInflater.from(parent.getContext())
+                    .inflate(R.layout.suggestion_list_header, parent, false);
+            ((TextView) header.findViewById(R.id.header)).setText(section);
+            header.measure(
+                    View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+                    View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+            header.layout(0, 0, header.getMeasuredWidth(), header.getMeasuredHeight());
+            mHeaderViews.put(section, header);
+        }
+        return header;
+    }
+
+    /**
+     * A card moving between sections changes where headers go for cards that weren't rebound,
+     * so their offsets have to be asked for again.
+     */
+    private class BoundaryObserver extends RecyclerView.AdapterDataObserver {
+        @Override
+        public void onChanged() {
+            invalidate();
+        }
+
+        @Override
+        public void onItemRangeInserted(final int positionStart, final int itemCount) {
+            invalidate();
+        }
+
+        @Override
+        public void onItemRangeRemoved(final int positionStart, final int itemCount) {
+            invalidate();
+        }
+
+        @Override
+        public void onItemRangeMoved(final int fromPosition, final int toPosition, final int itemCount) {
+            invalidate();
+        }
+
+        private void invalidate() {
+            if (!mRecyclerView.isComputingLayout()) {
+                mRecyclerView.invalidateItemDecorations();
+            }
+        }
+    }
+}
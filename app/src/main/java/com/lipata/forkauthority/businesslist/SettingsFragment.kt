@@ -1,14 +1,33 @@
 package com.lipata.forkauthority.businesslist
 
+import android.app.Activity
+import android.content.Intent
+import android.net.Uri
 import android.os.Bundle
 import android.text.InputType
+import android.widget.Toast
+import androidx.lifecycle.lifecycleScope
 import androidx.preference.EditTextPreference
 import androidx.preference.Preference
 import androidx.preference.PreferenceFragmentCompat
+import com.lipata.forkauthority.ForkAuthorityApp
 import com.lipata.forkauthority.R
+import com.lipata.forkauthority.data.user.RecordBackup
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
 import timber.log.Timber
+import java.io.FileNotFoundException
+import javax.inject.Inject
 
 class SettingsFragment : PreferenceFragmentCompat() {
+    @Inject lateinit var recordBackup: RecordBackup
+
+    override fun onCreate(savedInstanceState: Bundle?) {
+        (requireActivity().application as ForkAuthorityApp).appComponent.inject(this)
+        super.onCreate(savedInstanceState)
+    }
+
     override fun onCreatePreferences(savedInstanceState: Bundle?, rootKey: String?) {
         setPreferencesFromResource(R.xml.preferences_settings, rootKey)
 
@@ -28,6 +47,82 @@ class SettingsFragment : PreferenceFragmentCompat() {
                 }
             }
         }
+
+        findPreference<Preference>(getString(R.string.preference_key_export_records))
+            ?.setOnPreferenceClickListener {
+                startActivityForResult(
+                    Intent(Intent.ACTION_CREATE_DOCUMENT)
+                        .addCategory(Intent.CATEGORY_OPENABLE)
+                        .setType(BACKUP_MIME_TYPE)
+                        .putExtra(Intent.EXTRA_TITLE, BACKUP_FILE_NAME),
+                    REQUEST_EXPORT_RECORDS
+                )
+                true
+            }
+
+        findPreference<Preference>(getString(R.string.preference_key_import_records))
+            ?.setOnPreferenceClickListener {
+                startActivityForResult(
+                    // Not every provider knows a .json file is JSON; anything else fails to import
+                    Intent(Intent.ACTION_OPEN_DOCUMENT)
+                        .addCategory(Intent.CATEGORY_OPENABLE)
+                        .setType("*/*"),
+                    REQUEST_IMPORT_RECORDS
+                )
+                true
+            }
+    }
+
+    override fun onActivityResult(requestCode: Int, resultCode: Int, data: Intent?) {
+        super.onActivityResult(requestCode, resultCode, data)
+        val uri = data?.data
+        if (resultCode != Activity.RESULT_OK || uri == null) {
+            return
+        }
+        when (requestCode) {
+            REQUEST_EXPORT_RECORDS -> exportRecords(uri)
+            REQUEST_IMPORT_RECORDS -> importRecords(uri)
+        }
+    }
+
+    /**
+     * The file is written as records are read, a page at a time, off the main thread
+     */
+    private fun exportRecords(uri: Uri) {
+        val resolver = requireContext().contentResolver
+        lifecycleScope.launch {
+            val message = withContext(Dispatchers.IO) {
+                try {
+                    val stream = resolver.openOutputStream(uri) ?: throw FileNotFoundException(uri.toString())
+                    val count = stream.bufferedWriter().use { recordBackup.export(it) }
+                    "Exported $count restaurants"
+                } catch (e: Exception) {
+                    Timber.e(e, "Could not export user records")
+                    "Could not export history"
+                }
+            }
+            Toast.makeText(requireContext(), message, Toast.LENGTH_SHORT).show()
+        }
+    }
+
+    /**
+     * The file is read and merged a batch at a time, off the main thread
+     */
+    private fun importRecords(uri: Uri) {
+        val resolver = requireContext().contentResolver
+        lifecycleScope.launch {
+            val message = withContext(Dispatchers.IO) {
+                try {
+                    val stream = resolver.openInputStream(uri) ?: throw FileNotFoundException(uri.toString())
+                    val count = stream.bufferedReader().use { recordBackup.importFrom(it) }
+                    "Imported $count restaurants"
+                } catch (e: Exception) {
+                    Timber.e(e, "Could not import user records")
+                    "Could not import history"
+                }
+            }
+            Toast.makeText(requireContext(), message, Toast.LENGTH_SHORT).show()
+        }
     }
 
     private fun getPrefValueOrDefault(preference: EditTextPreference): Any {
@@ -44,4 +139,11 @@ class SettingsFragment : PreferenceFragmentCompat() {
             editText.inputType = InputType.TYPE_CLASS_NUMBER
         }
     }
+
+    companion object {
+        private const val REQUEST_EXPORT_RECORDS = 1
+        private const val REQUEST_IMPORT_RECORDS = 2
+        private const val BACKUP_MIME_TYPE = "application/json"
+        private const val BACKUP_FILE_NAME = "fork-authority-history.json"
+    }
 }
\ No newline at end of file
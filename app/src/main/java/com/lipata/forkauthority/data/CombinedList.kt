@@ -1,116 +1,319 @@
 package com.lipata.forkauthority.data
 
+import com.lipata.forkauthority.businesslist.BusinessCard
 import com.lipata.forkauthority.businesslist.BusinessListBaseItem
+import com.lipata.forkauthority.businesslist.BusinessListRow
+import com.lipata.forkauthority.util.PersistentList
 
 /**
  * Created by jlipata on 12/31/17.
+ *
+ * Holds businesses only. Section headers aren't items; each row in [snapshot] carries its section
+ * and the list draws the headers (see `SectionHeaderDecoration`), so indexes here are plain
+ * business positions.
+ *
+ * The sublists are persistent, see [Contents]. The methods below read like in-place edits, but
+ * each one swaps in a new [contents] value, and any earlier value stays valid and unchanged.
  */
 class CombinedList {
     lateinit var list: List<BusinessListBaseItem>
 
-    // TODO This is a "hard coded" implementation, there should be a more flexible way of doing this
-    private lateinit var likesList: MutableList<BusinessListBaseItem>
-    private lateinit var likedButTooSoon: MutableList<BusinessListBaseItem>
-    private lateinit var unsortedList: MutableList<BusinessListBaseItem>
-    private lateinit var unsortedTooSoonList: MutableList<BusinessListBaseItem>
-    private lateinit var dontLikeList: MutableList<BusinessListBaseItem>
+    /**
+     * Everything the list holds, as one immutable value. A change copies only the O(log n) tree
+     * nodes on its path and shares the rest with the previous value, so keeping old values around
+     * for undo (see `ListHistory`) is cheap, and going back to one is a single assignment in
+     * [restore].
+     */
+    var contents: Contents = Contents.EMPTY
+        private set
+
+    // Rows handed out by the last snapshot(), by business ID, so unchanged rows can be reused
+    private var lastRows: Map<String, BusinessListRow.Card> = emptyMap()
+
+    // Where each card is in `locatedContents`, by business ID. Built by snapshot(), which walks every
+    // card anyway, or by the first locate() after a change that wasn't snapshotted.
+    private var locatedContents: Contents? = null
+    private var locations: Map<String, SubLocation> = emptyMap()
+
+    fun restore(contents: Contents) {
+        this.contents = contents
+    }
 
     fun get(index: Int): BusinessListBaseItem {
         val subLocation = mapSubLocation(index)
-        return subLocation.subList[subLocation.subIndex]
+        return contents.sublists[subLocation.sublist][subLocation.subIndex]
     }
 
     fun set(index: Int, item: BusinessListBaseItem) {
         val subLocation = mapSubLocation(index)
-        subLocation.subList[subLocation.subIndex] = item
+        update(subLocation.sublist) { it.with(subLocation.subIndex, item) }
     }
 
     fun remove(index: Int) {
         val subLocation = mapSubLocation(index)
-        subLocation.subList.removeAt(subLocation.subIndex)
+        update(subLocation.sublist) { it.minus(subLocation.subIndex) }
     }
 
     fun add(index: Int, item: BusinessListBaseItem) {
         val subLocation = mapSubLocation(index)
-        subLocation.subList.add(subLocation.subIndex, item)
+        update(subLocation.sublist) { it.plus(subLocation.subIndex, item) }
+    }
+
+    /**
+     * @return Master index of [item], or -1 if it isn't in the list. Compares by identity, which is
+     * what callers holding on to an item taken from the list want.
+     */
+    fun indexOf(item: BusinessListBaseItem): Int {
+        var offset = 0
+        for (sublist in contents.sublists) {
+            val subIndex = sublist.indexOfFirst { it === item }
+            if (subIndex >= 0) return offset + subIndex
+            offset += sublist.size
+        }
+        return -1
+    }
+
+    /**
+     * Removes [item] from whichever sublist holds it
+     *
+     * @return `false` if [item] was not found
+     */
+    fun remove(item: BusinessListBaseItem): Boolean {
+        val sublists = contents.sublists
+        for (s in sublists.indices) {
+            val subIndex = sublists[s].indexOfFirst { it === item }
+            if (subIndex >= 0) {
+                update(s) { it.minus(subIndex) }
+                return true
+            }
+        }
+        return false
+    }
+
+    /**
+     * @param index Position within sublist [key]
+     */
+    fun insertIntoSublist(key: String, index: Int, item: BusinessListBaseItem) {
+        update(sublistIndex(key)) { it.plus(index, item) }
+    }
+
+    fun appendToSublist(key: String, item: BusinessListBaseItem) {
+        update(sublistIndex(key)) { it.plus(item) }
+    }
+
+    fun insertAllIntoSublist(key: String, index: Int, items: Collection<BusinessListBaseItem>) {
+        update(sublistIndex(key)) { it.plusAll(index, items) }
+    }
+
+    fun appendAllToSublist(key: String, items: Collection<BusinessListBaseItem>) {
+        update(sublistIndex(key)) { it.plusAll(items) }
+    }
+
+    /**
+     * @return Cards for the businesses in [ids] that are in the list, in list order
+     */
+    fun findCards(ids: Set<String>): List<BusinessCard> {
+        val cards = ArrayList<BusinessCard>(ids.size)
+        for (sublist in contents.sublists) {
+            for (item in sublist) {
+                if (item is BusinessCard && item.id in ids) cards.add(item)
+            }
+        }
+        return cards
+    }
+
+    /**
+     * Removes the cards for all businesses in [ids], see [removeAt]
+     */
+    fun removeCards(ids: Set<String>) {
+        if (ids.isEmpty()) return
+        removeAt(ids.mapNotNull { locate(it) })
+    }
+
+    /**
+     * Removes the cards at [targets], all taken from the current contents with [locate]. Each card
+     * is removed with its own tree update, last first so the earlier locations stay valid, so the
+     * result shares all but O(log n) nodes per card with the contents before, and a history entry
+     * for a bulk action stays small.
+     */
+    fun removeAt(targets: Collection<SubLocation>) {
+        val sorted = targets.sortedWith(compareBy({ it.sublist }, { it.subIndex }))
+        for (location in sorted.asReversed()) {
+            update(location.sublist) { it.minus(location.subIndex) }
+        }
+    }
+
+    /**
+     * @return Where business [id]'s card is in the current contents, or `null` if it isn't in the
+     * list. A hash lookup when nothing changed since the last [snapshot] or [locate], otherwise one
+     * walk over the list first.
+     */
+    fun locate(id: String): SubLocation? {
+        if (locatedContents !== contents) {
+            val located = HashMap<String, SubLocation>(size())
+            val sublists = contents.sublists
+            for (s in sublists.indices) {
+                sublists[s].forEachIndexed { i, item ->
+                    if (item is BusinessCard) located[item.id] = SubLocation(s, i)
+                }
+            }
+            locations = located
+            locatedContents = contents
+        }
+        return locations[id]
+    }
+
+    /**
+     * @return The card at [location], taken from the current contents with [locate]
+     */
+    fun getCard(location: SubLocation): BusinessCard {
+        return contents.sublists[location.sublist][location.subIndex] as BusinessCard
+    }
+
+    /**
+     * @return The card for business [id] as currently held in the list, or `null`
+     */
+    fun findCard(id: String): BusinessCard? {
+        for (sublist in contents.sublists) {
+            for (item in sublist) {
+                if (item is BusinessCard && item.id == id) return item
+            }
+        }
+        return null
+    }
+
+    /**
+     * Swaps [old] for [new] in place, e.g. after a user action that doesn't move the card
+     */
+    fun replace(old: BusinessListBaseItem, new: BusinessListBaseItem) {
+        val index = indexOf(old)
+        if (index >= 0) set(index, new)
+    }
+
+    /**
+     * Copies the current contents into an immutable list for the adapter. Card numbers are
+     * calculated here, once per change, instead of on every bind. Rows for cards that didn't
+     * change or move since the last snapshot are reused as is.
+     *
+     * @param selectedIds Businesses to mark as selected, see `BusinessListAdapter` selection mode
+     */
+    @JvmOverloads
+    fun snapshot(selectedIds: Set<String> = emptySet()): List<BusinessListRow> {
+        val previous = lastRows
+        val current = HashMap<String, BusinessListRow.Card>(previous.size)
+        val located = HashMap<String, SubLocation>(size())
+        val rows = ArrayList<BusinessListRow>(size())
+        val sublists = contents.sublists
+        var rank = 0
+        for (s in sublists.indices) {
+            val section = SECTIONS[s]
+            sublists[s].forEachIndexed { i, item ->
+                if (item is BusinessCard) {
+                    val row = BusinessListRow.Card.of(
+                            item, ++rank, section, item.id in selectedIds, previous[item.id])
+                    current[item.id] = row
+                    located[item.id] = SubLocation(s, i)
+                    rows.add(row)
+                }
+            }
+        }
+        lastRows = current
+        locations = located
+        locatedContents = contents
+        return rows
     }
 
     fun size(): Int {
-        val size = (likesList.size
-                + likedButTooSoon.size
-                + unsortedList.size
-                + unsortedTooSoonList.size
-                + dontLikeList.size)
-        return size
+        return contents.size
     }
 
     /**
      * @param lists You must provide all sublists even if any are empty and the order must correspond
      */
     fun setSublists(lists: List<List<BusinessListBaseItem>>) {
-        likesList = lists[0] as MutableList<BusinessListBaseItem>
-        likedButTooSoon = lists[1] as MutableList<BusinessListBaseItem>
-        unsortedList = lists[2] as MutableList<BusinessListBaseItem>
-        unsortedTooSoonList = lists[3] as MutableList<BusinessListBaseItem>
-        dontLikeList = lists[4] as MutableList<BusinessListBaseItem>
+        contents = Contents(lists.map { PersistentList.of(it) })
     }
 
     fun getSublist(key: String): List<BusinessListBaseItem> {
-        return when {
-            key == Categories.LIKES -> likesList
-            key == Categories.LIKES_TOO_SOON -> likedButTooSoon
-            key == Categories.UNSORTED -> unsortedList
-            key == Categories.UNSORTED_TOO_SOON -> unsortedTooSoonList
-            key == Categories.DONT_LIKE -> dontLikeList
-            else -> throw Exception("Could not map sublist")
-        }
+        return contents.sublists[sublistIndex(key)]
     }
 
     /**
      * @return Returns the master index of a sublist + subindex
      */
     fun getCombinedIndex(key: String, index: Int): Int {
-        return when {
-            key == Categories.LIKES -> index
-            key == Categories.LIKES_TOO_SOON -> index + likesList.size
-            key == Categories.UNSORTED -> index + (likesList.size + likedButTooSoon.size)
-            key == Categories.UNSORTED_TOO_SOON -> index + (likesList.size + likedButTooSoon.size + unsortedList.size)
-            key == Categories.DONT_LIKE -> index + (likesList.size + likedButTooSoon.size + unsortedList.size + unsortedTooSoonList.size)
-            else -> throw Exception("Look up error")
-        }
+        return getStartOfSublist(key) + index
     }
 
     fun getStartOfSublist(key: String): Int {
-        return when {
-            key == Categories.LIKES -> 0
-            key == Categories.LIKES_TOO_SOON -> likesList.size
-            key == Categories.UNSORTED -> likesList.size + likedButTooSoon.size
-            key == Categories.UNSORTED_TOO_SOON -> likesList.size + likedButTooSoon.size + unsortedList.size
-            key == Categories.DONT_LIKE -> likesList.size + likedButTooSoon.size + unsortedList.size + unsortedTooSoonList.size
-            else -> throw Exception("Could not map sublist")
+        val sublist = sublistIndex(key)
+        var start = 0
+        for (s in 0 until sublist) {
+            start += contents.sublists[s].size
         }
+        return start
+    }
+
+    private fun sublistIndex(key: String): Int {
+        val index = SECTIONS.indexOf(key)
+        if (index < 0) throw Exception("Could not map sublist")
+        return index
+    }
+
+    private inline fun update(
+            sublist: Int,
+            change: (PersistentList<BusinessListBaseItem>) -> PersistentList<BusinessListBaseItem>
+    ) {
+        contents = contents.with(sublist, change(contents.sublists[sublist]))
     }
 
-    // TODO There's an issue this implementation when more than one list starts at 0 (e.g. Likes and Too Soon are both empty)
+    // An index equal to a sublist's start maps to that sublist, and anything past the end maps to
+    // the last one, so add() can insert at the start of a sublist or at the very end
     private fun mapSubLocation(index: Int): SubLocation {
-        // TODO This is very ugly, there's definitely a smarter way to do this
-        return when {
-            index < (likesList.size) -> SubLocation(likesList, index)
+        val sublists = contents.sublists
+        var offset = 0
+        for (s in 0 until sublists.size - 1) {
+            if (index < offset + sublists[s].size) return SubLocation(s, index - offset)
+            offset += sublists[s].size
+        }
+        return SubLocation(sublists.size - 1, index - offset)
+    }
 
-            index >= (likesList.size)
-                    && index < (likesList.size + likedButTooSoon.size) -> SubLocation(likedButTooSoon, (index - likesList.size))
+    /**
+     * @property sublist Index of the sublist, in the same order as [SECTIONS]
+     */
+    class SubLocation(val sublist: Int, val subIndex: Int) {
+        val section: String
+            get() = SECTIONS[sublist]
+    }
 
-            index >= (likesList.size + likedButTooSoon.size)
-                    && index < (likesList.size + likedButTooSoon.size + unsortedList.size) -> SubLocation(unsortedList, (index - (likesList.size + likedButTooSoon.size)))
+    /**
+     * Immutable value of a [CombinedList]. Two values from the same list share every sublist and
+     * tree node the changes between them didn't touch.
+     */
+    class Contents internal constructor(internal val sublists: List<PersistentList<BusinessListBaseItem>>) {
+        val size: Int = sublists.sumBy { it.size }
 
-            index >= (likesList.size + likedButTooSoon.size + unsortedList.size)
-                    && index < (likesList.size + likedButTooSoon.size + unsortedList.size + unsortedTooSoonList.size) -> SubLocation(unsortedTooSoonList, (index - (likesList.size + likedButTooSoon.size + unsortedList.size)))
+        internal fun with(sublist: Int, replacement: PersistentList<BusinessListBaseItem>): Contents {
+            if (sublists[sublist] === replacement) return this
+            val copy = ArrayList(sublists)
+            copy[sublist] = replacement
+            return Contents(copy)
+        }
 
-            index >= (likesList.size + likedButTooSoon.size + unsortedList.size + unsortedTooSoonList.size) ->
-                SubLocation(dontLikeList, (index - (likesList.size + likedButTooSoon.size + unsortedList.size + unsortedTooSoonList.size)))
-            else -> throw Exception("Could not map index to sublist")
+        companion object {
+            internal val EMPTY = Contents(List(SECTIONS.size) { PersistentList.empty<BusinessListBaseItem>() })
         }
     }
 
-    class SubLocation(val subList: MutableList<BusinessListBaseItem>, val subIndex: Int)
-}
\ No newline at end of file
+    companion object {
+        // Sublist order
+        private val SECTIONS = arrayOf(
+            Categories.LIKES,
+            Categories.LIKES_TOO_SOON,
+            Categories.UNSORTED,
+            Categories.UNSORTED_TOO_SOON,
+            Categories.DONT_LIKE
+        )
+    }
+}
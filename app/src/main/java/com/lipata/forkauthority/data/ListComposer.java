@@ -1,44 +1,110 @@
 package com.lipata.forkauthority.data;
 
+import androidx.annotation.WorkerThread;
+
 import com.lipata.forkauthority.api.yelp3.entities.Business;
+import com.lipata.forkauthority.businesslist.BusinessCard;
+import com.lipata.forkauthority.businesslist.BusinessCardFactory;
 import com.lipata.forkauthority.businesslist.BusinessListBaseItem;
-import com.lipata.forkauthority.businesslist.BusinessListHeader;
 import com.lipata.forkauthority.businesslist.JustAteHereExpiryCalculator;
-import com.lipata.forkauthority.data.user.BusinessItemRecord;
+import com.lipata.forkauthority.data.catalog.BusinessCatalog;
+import com.lipata.forkauthority.data.user.RecordIndex;
 import com.lipata.forkauthority.data.user.UserRecords;
 import com.lipata.forkauthority.util.Utility;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 
 import javax.inject.Inject;
 
 import timber.log.Timber;
 
-import static com.lipata.forkauthority.businesslist.BusinessListAdapter.DONTLIKE;
-
 public class ListComposer {
 
+    private static final long DAY_MS = 24 * 60 * 60 * 1000L;
+
     private UserRecords mUserRecords;
     private JustAteHereExpiryCalculator justAteHereExpiryCalculator;
+    private BusinessCardFactory cardFactory;
+    private BusinessCatalog businessCatalog;
 
     @Inject
     public ListComposer(
             final UserRecords userRecords,
-            final JustAteHereExpiryCalculator justAteHereExpiryCalculator
+            final JustAteHereExpiryCalculator justAteHereExpiryCalculator,
+            final BusinessCardFactory cardFactory,
+            final BusinessCatalog businessCatalog
     ) {
         this.mUserRecords = userRecords;
         this.justAteHereExpiryCalculator = justAteHereExpiryCalculator;
+        this.cardFactory = cardFactory;
+        this.businessCatalog = businessCatalog;
+    }
+
+    /**
+     * Builds the Liked sections from businesses fetched in earlier sessions, to show while the Yelp
+     * call is in flight. Only Liked businesses within the search radius of the location are included,
+     * nearest first; the other sections need the fresh result and are left empty.
+     * Called on a background thread.
+     */
+    @WorkerThread
+    public CombinedList composeCached(double latitude, double longitude) {
+        long startTime = System.nanoTime();
+        long now = System.currentTimeMillis();
+
+        mUserRecords.awaitReady();
+        List<BusinessCard.Info> nearby = businessCatalog.getNear(
+                mUserRecords.getLikedIds(), latitude, longitude, AppSettings.SEARCH_RADIUS);
+
+        List<String> businessIds = new ArrayList<>(nearby.size());
+        for (BusinessCard.Info info : nearby) {
+            businessIds.add(info.getId());
+        }
+        RecordIndex userRecords = mUserRecords.getRecords(businessIds);
+
+        List<BusinessListBaseItem> likesList = new ArrayList<>();
+        List<BusinessListBaseItem> likedButTooSoonList = new ArrayList<>();
+        for (BusinessCard.Info info : nearby) {
+            int slot = userRecords.indexOf(info.getId());
+            // Un-Liked since getLikedIds()
+            if (slot < 0 || userRecords.getDontLikeClickDate(slot) != -1) {
+                continue;
+            }
+            long tooSoonClickDate = userRecords.getTooSoonClickDate(slot);
+            BusinessCard card = cardFactory.create(info, -1, tooSoonClickDate, now);
+            if (tooSoonClickDate == 0 || justAteHereExpiryCalculator.isExpired(now, tooSoonClickDate)) {
+                likesList.add(card);
+            } else {
+                likedButTooSoonList.add(card);
+            }
+        }
+
+        List<List<BusinessListBaseItem>> lists = new ArrayList<>();
+        lists.add(likesList);
+        lists.add(likedButTooSoonList);
+        lists.add(new ArrayList<>());
+        lists.add(new ArrayList<>());
+        lists.add(new ArrayList<>());
+
+        CombinedList combinedList = new CombinedList();
+        combinedList.setSublists(lists);
+
+        Utility.reportExecutionTime(this, "BusinessList composeCached(), " + nearby.size() + " nearby", startTime);
+        return combinedList;
     }
 
     /**
-     * Takes a list of `Business`s and sorts them according to user preferences stored in `UserRecords`
+     * Takes a list of `Business`s and sorts them according to user preferences stored in `UserRecords`.
+     * Each business is turned into a ready-to-display {@link BusinessCard} on the way.
+     * Called on a background thread while the adapter handles taps on the main thread. That's only
+     * safe because user records are read from a {@link UserRecords} snapshot and written through
+     * its compare-and-set; nothing here may touch records any other way.
      *
      * @param businessList_Source List to be sorted.
      * @return Returns separate, sorted lists
      */
+    @WorkerThread
     public CombinedList filter(List<Business> businessList_Source) {
         long startTime = System.nanoTime();
 
@@ -48,93 +114,89 @@ public class ListComposer {
         List<BusinessListBaseItem> unsortedTooSoonList = new ArrayList<>();
         List<BusinessListBaseItem> dontLikeList = new ArrayList<>();
 
-        // Make a copy of the source list
-        List<BusinessListBaseItem> businessList_temp = new ArrayList<>(businessList_Source);
+        // Cards for every business, in API order. Businesses that get sorted into one of the
+        // lists above are nulled out here, the rest are Unsorted.
+        List<BusinessListBaseItem> businessList_temp = new ArrayList<>(businessList_Source.size());
 
-        // Get user data
-        HashMap<String, BusinessItemRecord> userRecordMap = mUserRecords.getUserRecords();
+        long now = System.currentTimeMillis();
+
+        // Usually done by now, it started with the app
+        mUserRecords.awaitReady();
+
+        // Expire old Don't Likes in one indexed update, then fetch only the records of this result set
+        mUserRecords.expireDontLikes(now - AppSettings.DONTLIKE_THRESHOLD_INDAYS * DAY_MS);
+        List<String> businessIds = new ArrayList<>(businessList_Source.size());
+        for (Business business : businessList_Source) {
+            businessIds.add(business.getId());
+        }
+        RecordIndex userRecords = mUserRecords.getRecords(businessIds);
 
         // Iterate through API results, adjust order according to user records
         for (int i = 0; i < businessList_Source.size(); i++) {
             Business business = businessList_Source.get(i);
             String businessId = business.getId();
 
-            if (userRecordMap.containsKey(businessId)) {
+            // Usually a single probe
+            int slot = userRecords.indexOf(businessId);
 
-                BusinessItemRecord businessItemRecord = userRecordMap.get(businessId);
-
-                long tooSoonClickDate = businessItemRecord.getTooSoonClickDate();
-                long dontLikeClickDate = businessItemRecord.getDontLikeClickDate();
-                long dismissedDate = businessItemRecord.getDismissedDate();
-                int dismissedCount = businessItemRecord.getDismissedCount();
-
-                // Calculate difference between current time
-                long dontLikeDelta = System.currentTimeMillis() - dontLikeClickDate;
-                long dontLikeDelta_days = dontLikeDelta / 1000 / 60 / 60 / 24; // Convert to days
+            if (slot < 0) {
+                businessList_temp.add(cardFactory.create(business, 0, 0, now));
+                continue;
+            }
 
-                Timber.d("Match found! Id = " + businessId + " tooSoonClickDate = "
-                        + tooSoonClickDate + " dontLikeClickDate = " + dontLikeClickDate +
-                        " dismissedDate = " + dismissedDate
-                        + " dismissedCount = " + dismissedCount);
+            long tooSoonClickDate = userRecords.getTooSoonClickDate(slot);
+            long dontLikeClickDate = userRecords.getDontLikeClickDate(slot);
+            long dismissedDate = userRecords.getDismissedDate(slot);
+            int dismissedCount = userRecords.getDismissedCount(slot);
 
-                // On match found, do:
+            Timber.d("Match found! Id = " + businessId + " tooSoonClickDate = "
+                    + tooSoonClickDate + " dontLikeClickDate = " + dontLikeClickDate +
+                    " dismissedDate = " + dismissedDate
+                    + " dismissedCount = " + dismissedCount);
 
-                // Update the `business` object in memory
-                business.setDontLikeClickDate(dontLikeClickDate);
-                business.setTooSoonClickDate(tooSoonClickDate);
-                business.setDismissedCount(dismissedCount);
+            BusinessCard card = cardFactory.create(
+                    business,
+                    dontLikeClickDate,
+                    tooSoonClickDate,
+                    now);
+            businessList_temp.add(card);
 
-                // Handle Like case
+            // Handle Like case
 
-                if (dontLikeClickDate == -1) {
+            if (dontLikeClickDate == -1) {
 
-                    // Assign it to the "Liked" list, or the "Liked, but too soon" list
+                // Assign it to the "Liked" list, or the "Liked, but too soon" list
 
-                    if (business.getTooSoonClickDate() == 0 ||
-                            justAteHereExpiryCalculator.isExpired(business.getTooSoonClickDate())) {
+                if (tooSoonClickDate == 0 ||
+                        justAteHereExpiryCalculator.isExpired(now, tooSoonClickDate)) {
 
-                        likesList.add(business);
-                        businessList_temp.set(i, null); // Remove business from original list
-                        Timber.v("filter() deemed LIKED");
-                    } else {
-                        Timber.v("filter() deemed LIKED BUT TOO SOON");
-                        likedButTooSoonList.add(business);
-                        businessList_temp.set(i, null); // Remove business from original list
-                    }
+                    likesList.add(card);
+                    businessList_temp.set(i, null); // Remove business from original list
+                    Timber.v("filter() deemed LIKED");
+                } else {
+                    Timber.v("filter() deemed LIKED BUT TOO SOON");
+                    likedButTooSoonList.add(card);
+                    businessList_temp.set(i, null); // Remove business from original list
                 }
+            }
 
-                // Handle Dont Like case
-
-                if (dontLikeClickDate > 0) {
-
-                    // Add to DontLike list, unless expired
-                    if (dontLikeDelta_days < AppSettings.DONTLIKE_THRESHOLD_INDAYS) {
-                        // Not expired
-                        Timber.v("filter() Deemed DON'T LIKE!");
-                        dontLikeList.add(business);
-                        businessList_temp.set(i, null); // Remove business from original list
-                    } else {
-                        // Expired
-                        Timber.v("filter() DontLike EXPIRED, not assigned to DONTLIKE list");
-
-                        // Update SharedPrefs
-                        Timber.d("filter() DontLike EXPIRED, resetting %s in UserRecords", business.getName());
-                        mUserRecords.updateClickDate(business, 0, DONTLIKE);
+            // Handle Dont Like case
 
-                        // Update in-memory object
-                        business.setDontLikeClickDate(0);
-                    }
-                }
+            else if (dontLikeClickDate > 0) {
+                // Not expired
+                Timber.v("filter() Deemed DON'T LIKE!");
+                dontLikeList.add(card);
+                businessList_temp.set(i, null); // Remove business from original list
+            }
 
-                // Handle the "Too Soon" case:
+            // Handle the "Too Soon" case:
 
-                if (tooSoonClickDate != 0 && dontLikeClickDate != -1) {
-                    if (!justAteHereExpiryCalculator.isExpired(business.getTooSoonClickDate())) {
-                        Timber.v("filter() Deemed too soon, unsorted!");
-                        unsortedTooSoonList.add(business);
-                        businessList_temp.set(i, null); // Remove business from original list
-                    } else Timber.v("filter() TooSoon EXPIRED");
-                }
+            else if (tooSoonClickDate != 0) {
+                if (!justAteHereExpiryCalculator.isExpired(now, tooSoonClickDate)) {
+                    Timber.v("filter() Deemed too soon, unsorted!");
+                    unsortedTooSoonList.add(card);
+                    businessList_temp.set(i, null); // Remove business from original list
+                } else Timber.v("filter() TooSoon EXPIRED");
             }
         }
 
@@ -152,24 +214,6 @@ public class ListComposer {
         // Remove null elements
         businessList_temp.removeAll(Collections.singleton(null));
 
-        // Add headers
-
-        if (likesList.size() > 0) {
-            likesList.add(0, new BusinessListHeader(Categories.LIKES));
-        }
-        if (likedButTooSoonList.size() > 0) {
-            likedButTooSoonList.add(0, new BusinessListHeader(Categories.LIKES_TOO_SOON));
-        }
-        if (businessList_temp.size() > 0) {
-            businessList_temp.add(0, new BusinessListHeader(Categories.UNSORTED));
-        }
-        if (unsortedTooSoonList.size() > 0) {
-            unsortedTooSoonList.add(0, new BusinessListHeader(Categories.UNSORTED_TOO_SOON));
-        }
-        if (dontLikeList.size() > 0) {
-            dontLikeList.add(0, new BusinessListHeader(Categories.DONT_LIKE));
-        }
-
         List<List<BusinessListBaseItem>> lists = new ArrayList<>();
         lists.add(likesList);
         lists.add(likedButTooSoonList);
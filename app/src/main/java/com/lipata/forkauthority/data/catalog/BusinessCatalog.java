@@ -0,0 +1,270 @@
+package com.lipata.forkauthority.data.catalog;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.location.Location;
+
+import com.lipata.forkauthority.api.yelp3.entities.Business;
+import com.lipata.forkauthority.api.yelp3.entities.Coordinates;
+import com.lipata.forkauthority.businesslist.BusinessCard;
+import com.lipata.forkauthority.businesslist.BusinessCardFactory;
+import com.lipata.forkauthority.util.SqlIdQueries;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+
+import timber.log.Timber;
+
+/**
+ * Every business fetched from Yelp, kept across sessions so businesses the user rated can be shown
+ * before the network answers. Stored in {@link CatalogDatabase}; every database call runs on
+ * `executor`, one at a time, so reads see earlier saves.
+ *
+ * Each fetch is saved in one background transaction. Businesses fetched again get a new last-seen
+ * time, and past {@link #MAX_BUSINESSES} the least recently seen are evicted. A business the user
+ * goes back to is seen whenever they're nearby, so it stays.
+ */
+public class BusinessCatalog {
+
+    // A few hundred bytes a row
+    static final int MAX_BUSINESSES = 5000;
+
+    private static final String[] COLUMNS = {
+            CatalogDatabase.ID,
+            CatalogDatabase.NAME_COLUMN,
+            CatalogDatabase.URL,
+            CatalogDatabase.IMAGE_URL,
+            CatalogDatabase.IS_CLOSED,
+            CatalogDatabase.CATEGORIES,
+            CatalogDatabase.ADDRESS,
+            CatalogDatabase.REVIEW_COUNT,
+            CatalogDatabase.RATING_BUCKET,
+            CatalogDatabase.LATITUDE,
+            CatalogDatabase.LONGITUDE
+    };
+
+    private static final String UPSERT = "INSERT OR REPLACE INTO " + CatalogDatabase.TABLE + " ("
+            + CatalogDatabase.ID + ", "
+            + CatalogDatabase.NAME_COLUMN + ", "
+            + CatalogDatabase.URL + ", "
+            + CatalogDatabase.IMAGE_URL + ", "
+            + CatalogDatabase.IS_CLOSED + ", "
+            + CatalogDatabase.CATEGORIES + ", "
+            + CatalogDatabase.ADDRESS + ", "
+            + CatalogDatabase.REVIEW_COUNT + ", "
+            + CatalogDatabase.RATING_BUCKET + ", "
+            + CatalogDatabase.LATITUDE + ", "
+            + CatalogDatabase.LONGITUDE + ", "
+            + CatalogDatabase.LAST_SEEN + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String EVICT = "DELETE FROM " + CatalogDatabase.TABLE + " WHERE " + CatalogDatabase.ID
+            + " IN (SELECT " + CatalogDatabase.ID + " FROM " + CatalogDatabase.TABLE
+            + " ORDER BY " + CatalogDatabase.LAST_SEEN + " LIMIT ?)";
+
+    /**
+     * What's saved for one business, taken from its {@link Business}
+     */
+    private static final class Entry {
+        final BusinessCard.Info info;
+        final Float latitude;
+        final Float longitude;
+
+        Entry(final BusinessCard.Info info, final Float latitude, final Float longitude) {
+            this.info = info;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+    }
+
+    private final CatalogDatabase database;
+    private final ExecutorService executor;
+    private final int maxBusinesses;
+
+    // Only touched on the executor
+    private SQLiteDatabase db;
+    private SQLiteStatement upsert;
+
+    public static BusinessCatalog create(final Context context, final ExecutorService executor) {
+        return new BusinessCatalog(new CatalogDatabase(context, CatalogDatabase.NAME), executor, MAX_BUSINESSES);
+    }
+
+    BusinessCatalog(final CatalogDatabase database, final ExecutorService executor, final int maxBusinesses) {
+        this.database = database;
+        this.executor = executor;
+        this.maxBusinesses = maxBusinesses;
+    }
+
+    /**
+     * Adds or updates `businesses` and marks them seen now. Returns before the write is done; what's
+     * saved is taken from the businesses on the executor, so the caller mustn't change them after.
+     */
+    public void save(final List<Business> businesses) {
+        final long now = System.currentTimeMillis();
+        final List<Business> saved = new ArrayList<>(businesses);
+        executor.execute(() -> write(entries(saved), now));
+    }
+
+    private static List<Entry> entries(final List<Business> businesses) {
+        final List<Entry> entries = new ArrayList<>(businesses.size());
+        for (Business business : businesses) {
+            if (business.getId() == null) {
+                continue;
+            }
+            final Coordinates coordinates = business.coordinates;
+            entries.add(new Entry(
+                    BusinessCardFactory.info(business),
+                    coordinates != null ? coordinates.latitude : null,
+                    coordinates != null ? coordinates.longitude : null));
+        }
+        return entries;
+    }
+
+    private void write(final List<Entry> entries, final long now) {
+        try {
+            final SQLiteDatabase db = database();
+            int evicted = 0;
+            db.beginTransaction();
+            try {
+                for (Entry entry : entries) {
+                    bind(entry, now);
+                    upsert.executeInsert();
+                }
+                final long excess = DatabaseUtils.queryNumEntries(db, CatalogDatabase.TABLE) - maxBusinesses;
+                if (excess > 0) {
+                    try (SQLiteStatement evict = db.compileStatement(EVICT)) {
+                        evict.bindLong(1, excess);
+                        evicted = evict.executeUpdateDelete();
+                    }
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            Timber.d("Saved " + entries.size() + " businesses to the catalog, evicted " + evicted);
+        } catch (RuntimeException e) {
+            Timber.e(e, "Could not save " + entries.size() + " businesses to the catalog");
+        }
+    }
+
+    private void bind(final Entry entry, final long now) {
+        final BusinessCard.Info info = entry.info;
+        upsert.bindString(1, info.getId());
+        upsert.bindString(2, info.getName());
+        upsert.bindString(3, info.getUrl());
+        upsert.bindString(4, info.getImageUrl());
+        upsert.bindLong(5, info.isClosed() ? 1 : 0);
+        upsert.bindString(6, info.getCategories());
+        upsert.bindString(7, info.getAddress());
+        upsert.bindString(8, info.getReviewCount());
+        upsert.bindLong(9, info.getRatingBucket());
+        if (entry.latitude != null && entry.longitude != null) {
+            upsert.bindDouble(10, entry.latitude);
+            upsert.bindDouble(11, entry.longitude);
+        } else {
+            upsert.bindNull(10);
+            upsert.bindNull(11);
+        }
+        upsert.bindLong(12, now);
+    }
+
+    /**
+     * Reads the businesses among `businessIds` within `radiusMeters` of a location. Blocks, call it
+     * off the main thread.
+     *
+     * @return Card info, nearest first. Empty if the catalog can't be read.
+     */
+    public List<BusinessCard.Info> getNear(
+            final Collection<String> businessIds,
+            final double latitude,
+            final double longitude,
+            final float radiusMeters
+    ) {
+        if (businessIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final List<String> ids = new ArrayList<>(businessIds);
+        try {
+            return executor.submit(() -> {
+                final List<BusinessCard.Info> near = new ArrayList<>();
+                final List<Float> distances = new ArrayList<>();
+                for (List<String> chunk : SqlIdQueries.chunks(ids)) {
+                    query(chunk, latitude, longitude, radiusMeters, near, distances);
+                }
+                sortByDistance(near, distances);
+                return near;
+            }).get();
+        } catch (ExecutionException e) {
+            Timber.e(e.getCause(), "Business catalog query failed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return Collections.emptyList();
+    }
+
+    private void query(
+            final List<String> ids,
+            final double latitude,
+            final double longitude,
+            final float radiusMeters,
+            final List<BusinessCard.Info> near,
+            final List<Float> distances
+    ) {
+        final String selection = SqlIdQueries.selection(CatalogDatabase.ID, ids.size())
+                .append(" AND ").append(CatalogDatabase.LATITUDE).append(" IS NOT NULL")
+                .toString();
+
+        final float[] distance = new float[1];
+        try (Cursor cursor = database().query(CatalogDatabase.TABLE, COLUMNS, selection,
+                ids.toArray(new String[0]), null, null, null)) {
+            while (cursor.moveToNext()) {
+                Location.distanceBetween(latitude, longitude, cursor.getDouble(9), cursor.getDouble(10), distance);
+                if (distance[0] > radiusMeters) {
+                    continue;
+                }
+                near.add(new BusinessCard.Info(
+                        cursor.getString(0),
+                        cursor.getString(1),
+                        cursor.getString(2),
+                        cursor.getString(3),
+                        cursor.getInt(4) != 0,
+                        cursor.getString(5),
+                        cursor.getString(6),
+                        cursor.getString(7),
+                        cursor.getInt(8)));
+                distances.add(distance[0]);
+            }
+        }
+    }
+
+    private static void sortByDistance(final List<BusinessCard.Info> infos, final List<Float> distances) {
+        final List<Integer> order = new ArrayList<>(infos.size());
+        for (int i = 0; i < infos.size(); i++) {
+            order.add(i);
+        }
+        Collections.sort(order, (a, b) -> Float.compare(distances.get(a), distances.get(b)));
+        final List<BusinessCard.Info> sorted = new ArrayList<>(infos.size());
+        for (int i : order) {
+            sorted.add(infos.get(i));
+        }
+        infos.clear();
+        infos.addAll(sorted);
+    }
+
+    /**
+     * Opens the database on first use
+     */
+    private SQLiteDatabase database() {
+        if (db == null) {
+            db = database.getWritableDatabase();
+            upsert = db.compileStatement(UPSERT);
+        }
+        return db;
+    }
+}
@@ -0,0 +1,65 @@
+package com.lipata.forkauthority.data.catalog;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import androidx.annotation.Nullable;
+
+/**
+ * The `business` table, one row per business ever fetched, see {@link BusinessCatalog}. Columns hold
+ * what a card shows, already formatted, plus coordinates and when the business was last fetched.
+ *
+ * Indexes:
+ * - `id` is the primary key, for reading the businesses the user rated
+ * - `last_seen`, for evicting the least recently seen
+ */
+class CatalogDatabase extends SQLiteOpenHelper {
+
+    static final String NAME = "business-catalog.db";
+    private static final int VERSION = 1;
+
+    static final String TABLE = "business";
+    static final String ID = "id";
+    static final String NAME_COLUMN = "name";
+    static final String URL = "url";
+    static final String IMAGE_URL = "image_url";
+    static final String IS_CLOSED = "is_closed";
+    static final String CATEGORIES = "categories";
+    static final String ADDRESS = "address";
+    static final String REVIEW_COUNT = "review_count";
+    static final String RATING_BUCKET = "rating_bucket";
+    static final String LATITUDE = "latitude";
+    static final String LONGITUDE = "longitude";
+    static final String LAST_SEEN = "last_seen";
+
+    /**
+     * @param name Database file name, `null` for an in-memory database
+     */
+    CatalogDatabase(final Context context, @Nullable final String name) {
+        super(context, name, null, VERSION);
+    }
+
+    @Override
+    public void onCreate(final SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE + " ("
+                + ID + " TEXT PRIMARY KEY NOT NULL, "
+                + NAME_COLUMN + " TEXT NOT NULL, "
+                + URL + " TEXT NOT NULL, "
+                + IMAGE_URL + " TEXT NOT NULL, "
+                + IS_CLOSED + " INTEGER NOT NULL, "
+                + CATEGORIES + " TEXT NOT NULL, "
+                + ADDRESS + " TEXT NOT NULL, "
+                + REVIEW_COUNT + " TEXT NOT NULL, "
+                + RATING_BUCKET + " INTEGER NOT NULL, "
+                + LATITUDE + " REAL, "
+                + LONGITUDE + " REAL, "
+                + LAST_SEEN + " INTEGER NOT NULL)");
+        db.execSQL("CREATE INDEX " + TABLE + "_" + LAST_SEEN + " ON " + TABLE + " (" + LAST_SEEN + ")");
+    }
+
+    @Override
+    public void onUpgrade(final SQLiteDatabase db, final int oldVersion, final int newVersion) {
+        // Only one version so far
+    }
+}
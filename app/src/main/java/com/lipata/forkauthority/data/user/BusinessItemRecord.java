@@ -19,6 +19,17 @@ public class BusinessItemRecord {
 
     private int dismissedCount;
 
+    public BusinessItemRecord() {
+    }
+
+    public BusinessItemRecord(BusinessItemRecord other) {
+        Id = other.Id;
+        tooSoonClickDate = other.tooSoonClickDate;
+        dontLikeClickDate = other.dontLikeClickDate;
+        dismissedClickDate = other.dismissedClickDate;
+        dismissedCount = other.dismissedCount;
+    }
+
     public String getId() {
         return Id;
     }
@@ -55,6 +66,10 @@ public class BusinessItemRecord {
         return dismissedCount;
     }
 
+    public void setDismissedCount(int dismissedCount) {
+        this.dismissedCount = dismissedCount;
+    }
+
     public void incrementDismissedCount() {
         dismissedCount++;
     }
@@ -0,0 +1,125 @@
+package com.lipata.forkauthority.data.user;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * {@link RemoteRecordStore} in Firestore: one document per business at `users/{email}/records/{id}`.
+ * Every field is stored with the time it was set, and `syncedAt` is the server time of the last change,
+ * which is what {@link #changedSince(String, long, int)} queries.
+ */
+public class FirestoreRecordStore implements RemoteRecordStore {
+
+    private static final String USERS = "users";
+    private static final String RECORDS = "records";
+
+    private static final String TOO_SOON_CLICK_DATE = "tooSoonClickDate";
+    private static final String TOO_SOON_UPDATED_AT = "tooSoonUpdatedAt";
+    private static final String DONT_LIKE_CLICK_DATE = "dontLikeClickDate";
+    private static final String DONT_LIKE_UPDATED_AT = "dontLikeUpdatedAt";
+    private static final String DISMISSED_DATE = "dismissedDate";
+    private static final String DISMISSED_DATE_UPDATED_AT = "dismissedDateUpdatedAt";
+    private static final String DISMISSED_COUNT = "dismissedCount";
+    private static final String DISMISSED_COUNT_UPDATED_AT = "dismissedCountUpdatedAt";
+    private static final String SYNCED_AT = "syncedAt";
+
+    private final FirebaseFirestore db;
+
+    public FirestoreRecordStore(final FirebaseFirestore db) {
+        this.db = db;
+    }
+
+    /**
+     * Reads and writes the documents in one transaction, so a push from another device can't land
+     * between the read and the merge. Documents that already have every field as new aren't written.
+     */
+    @Override
+    public void push(final String userId, final List<SyncRecord> records) throws ExecutionException, InterruptedException {
+        final CollectionReference collection = records(userId);
+        Tasks.await(db.runTransaction(transaction -> {
+            // A transaction must do all of its reads before any write
+            final List<DocumentSnapshot> documents = new ArrayList<>(records.size());
+            for (SyncRecord record : records) {
+                documents.add(transaction.get(collection.document(record.businessId)));
+            }
+
+            for (int i = 0; i < records.size(); i++) {
+                final SyncRecord record = records.get(i);
+                final DocumentSnapshot document = documents.get(i);
+                final SyncRecord merged = document.exists() ? fromDocument(document) : new SyncRecord(record.businessId);
+                if (merged.mergeFrom(record) || !document.exists()) {
+                    transaction.set(document.getReference(), toDocument(merged));
+                }
+            }
+            return null;
+        }));
+    }
+
+    @Override
+    public List<SyncRecord> changedSince(final String userId, final long syncedAt, final int limit)
+            throws ExecutionException, InterruptedException {
+        // From the server only: a page from the offline cache could move the watermark past changes it lacks
+        final QuerySnapshot snapshot = Tasks.await(records(userId)
+                .whereGreaterThanOrEqualTo(SYNCED_AT, new Timestamp(new Date(syncedAt)))
+                .orderBy(SYNCED_AT)
+                .limit(limit)
+                .get(Source.SERVER));
+
+        final List<SyncRecord> records = new ArrayList<>(snapshot.size());
+        for (DocumentSnapshot document : snapshot.getDocuments()) {
+            records.add(fromDocument(document));
+        }
+        return records;
+    }
+
+    private CollectionReference records(final String userId) {
+        return db.collection(USERS).document(userId).collection(RECORDS);
+    }
+
+    private static SyncRecord fromDocument(final DocumentSnapshot document) {
+        final SyncRecord record = new SyncRecord(document.getId());
+        record.tooSoonClickDate = getLong(document, TOO_SOON_CLICK_DATE);
+        record.tooSoonUpdatedAt = getLong(document, TOO_SOON_UPDATED_AT);
+        record.dontLikeClickDate = getLong(document, DONT_LIKE_CLICK_DATE);
+        record.dontLikeUpdatedAt = getLong(document, DONT_LIKE_UPDATED_AT);
+        record.dismissedDate = getLong(document, DISMISSED_DATE);
+        record.dismissedDateUpdatedAt = getLong(document, DISMISSED_DATE_UPDATED_AT);
+        record.dismissedCount = (int) getLong(document, DISMISSED_COUNT);
+        record.dismissedCountUpdatedAt = getLong(document, DISMISSED_COUNT_UPDATED_AT);
+        final Timestamp syncedAt = document.getTimestamp(SYNCED_AT);
+        record.syncedAt = syncedAt != null ? syncedAt.toDate().getTime() : 0;
+        return record;
+    }
+
+    private static long getLong(final DocumentSnapshot document, final String field) {
+        final Long value = document.getLong(field);
+        return value != null ? value : 0;
+    }
+
+    private static Map<String, Object> toDocument(final SyncRecord record) {
+        final Map<String, Object> document = new HashMap<>();
+        document.put(TOO_SOON_CLICK_DATE, record.tooSoonClickDate);
+        document.put(TOO_SOON_UPDATED_AT, record.tooSoonUpdatedAt);
+        document.put(DONT_LIKE_CLICK_DATE, record.dontLikeClickDate);
+        document.put(DONT_LIKE_UPDATED_AT, record.dontLikeUpdatedAt);
+        document.put(DISMISSED_DATE, record.dismissedDate);
+        document.put(DISMISSED_DATE_UPDATED_AT, record.dismissedDateUpdatedAt);
+        document.put(DISMISSED_COUNT, record.dismissedCount);
+        document.put(DISMISSED_COUNT_UPDATED_AT, record.dismissedCountUpdatedAt);
+        document.put(SYNCED_AT, FieldValue.serverTimestamp());
+        return document;
+    }
+}
@@ -0,0 +1,128 @@
+package com.lipata.forkauthority.data.user;
+
+import android.content.SharedPreferences;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import timber.log.Timber;
+
+/**
+ * Moves records from where older versions kept them, a JSON blob in SharedPreferences mapping
+ * business ID to record, into {@link RecordDatabase}. The blob is streamed record by record rather
+ * than parsed into one map first.
+ */
+class LegacyRecordMigration {
+
+    interface RecordSink {
+        void accept(BusinessItemRecord record);
+    }
+
+    private final SharedPreferences sharedPrefs;
+    private final String blobKey;
+
+    LegacyRecordMigration(final SharedPreferences sharedPrefs, final String blobKey) {
+        this.sharedPrefs = sharedPrefs;
+        this.blobKey = blobKey;
+    }
+
+    /**
+     * Writes every legacy record into `db`. Called from {@link RecordDatabase#onCreate}, inside its
+     * transaction.
+     *
+     * @return Number of rows written
+     */
+    int importInto(final SQLiteDatabase db) {
+        final SQLiteStatement insert = db.compileStatement("INSERT OR REPLACE INTO " + RecordDatabase.TABLE + " ("
+                + RecordDatabase.BUSINESS_ID + ", "
+                + RecordDatabase.TOO_SOON_CLICK_DATE + ", "
+                + RecordDatabase.DONT_LIKE_CLICK_DATE + ", "
+                + RecordDatabase.DISMISSED_DATE + ", "
+                + RecordDatabase.DISMISSED_COUNT + ") VALUES (?, ?, ?, ?, ?)");
+        final int[] count = {0};
+        final RecordSink sink = record -> {
+            SqliteRecordStore.bind(insert, record);
+            insert.executeInsert();
+            count[0]++;
+        };
+
+        final String blob = sharedPrefs.getString(blobKey, null);
+        if (blob != null) {
+            try {
+                readBlob(new StringReader(blob), sink);
+            } catch (IOException | IllegalStateException e) {
+                // Keep whatever was read before the bad part
+                Timber.e(e, "Could not read all legacy user records");
+            }
+        }
+
+        insert.close();
+        return count[0];
+    }
+
+    /**
+     * Removes the legacy records. Only call it once the database holding their copy is open.
+     */
+    void cleanUp() {
+        if (sharedPrefs.contains(blobKey)) {
+            sharedPrefs.edit().remove(blobKey).apply();
+        }
+    }
+
+    /**
+     * Reads a blob of the form `{"<id>": {"Id": "<id>", "tooSoonClickDate": 0, ...}, ...}`, handing
+     * each record to `sink` as soon as it's read. Unknown fields are skipped.
+     */
+    static void readBlob(final Reader blob, final RecordSink sink) throws IOException {
+        final JsonReader reader = new JsonReader(blob);
+        if (reader.peek() == JsonToken.NULL) {
+            return;
+        }
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String key = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+
+            final BusinessItemRecord record = new BusinessItemRecord();
+            record.setId(key);
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "Id":
+                        if (reader.peek() == JsonToken.NULL) {
+                            reader.nextNull();
+                        } else {
+                            record.setId(reader.nextString());
+                        }
+                        break;
+                    case "tooSoonClickDate":
+                        record.setTooSoonClickDate(reader.nextLong());
+                        break;
+                    case "dontLikeClickDate":
+                        record.setDontLikeClickDate(reader.nextLong());
+                        break;
+                    case "dismissedClickDate":
+                        record.setDismissedDate(reader.nextLong());
+                        break;
+                    case "dismissedCount":
+                        record.setDismissedCount(reader.nextInt());
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+            sink.accept(record);
+        }
+        reader.endObject();
+    }
+}
@@ -0,0 +1,226 @@
+package com.lipata.forkauthority.data.user;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import javax.inject.Inject;
+
+import timber.log.Timber;
+
+/**
+ * Writes the user's records to a backup file and reads them back, e.g. to keep their history across
+ * a reinstall. The file is JSON:
+ *
+ * `{"format": "fork-authority-user-records", "version": 1, "records": [{"id": ..., ...}, ...]}`
+ *
+ * Both directions stream a page of {@link #BATCH_SIZE} records at a time, so memory doesn't grow with
+ * the history. An import merges each batch into the store field by field, as a sync would (see
+ * {@link SyncRecord#mergeFrom(SyncRecord)}), so restoring an old backup doesn't undo newer clicks.
+ * Each batch is its own transaction on the store's queue, so clicks made during an import are saved
+ * between batches instead of waiting for the whole file.
+ *
+ * Every call blocks, call them off the main thread.
+ */
+public class RecordBackup {
+
+    static final int VERSION = 1;
+    static final int BATCH_SIZE = 500;
+
+    private static final String FORMAT_NAME = "fork-authority-user-records";
+
+    private static final String FORMAT = "format";
+    private static final String VERSION_FIELD = "version";
+    private static final String RECORDS = "records";
+
+    private static final String ID = "id";
+    private static final String TOO_SOON_CLICK_DATE = "tooSoonClickDate";
+    private static final String TOO_SOON_UPDATED_AT = "tooSoonUpdatedAt";
+    private static final String DONT_LIKE_CLICK_DATE = "dontLikeClickDate";
+    private static final String DONT_LIKE_UPDATED_AT = "dontLikeUpdatedAt";
+    private static final String DISMISSED_DATE = "dismissedDate";
+    private static final String DISMISSED_DATE_UPDATED_AT = "dismissedDateUpdatedAt";
+    private static final String DISMISSED_COUNT = "dismissedCount";
+    private static final String DISMISSED_COUNT_UPDATED_AT = "dismissedCountUpdatedAt";
+
+    private final SyncableRecordStore store;
+    private final UserRecords userRecords;
+
+    @Inject
+    RecordBackup(final SyncableRecordStore store, final UserRecords userRecords) {
+        this.store = store;
+        this.userRecords = userRecords;
+    }
+
+    /**
+     * Writes every stored record with something in it to `out`. Flushes `out` but leaves it open.
+     *
+     * @return Number of records written
+     */
+    public int export(final Writer out) throws IOException, ExecutionException, InterruptedException {
+        final long startTime = System.nanoTime();
+        final JsonWriter json = new JsonWriter(out);
+        json.beginObject();
+        json.name(FORMAT).value(FORMAT_NAME);
+        json.name(VERSION_FIELD).value(VERSION);
+        json.name(RECORDS).beginArray();
+
+        int count = 0;
+        String after = "";
+        while (true) {
+            final List<SyncRecord> page = store.recordsAfter(after, BATCH_SIZE);
+            for (SyncRecord record : page) {
+                if (hasValues(record)) {
+                    write(json, record);
+                    count++;
+                }
+            }
+            if (page.size() < BATCH_SIZE) {
+                break;
+            }
+            after = page.get(page.size() - 1).businessId;
+        }
+
+        json.endArray();
+        json.endObject();
+        json.flush();
+        Timber.d("Exported " + count + " user records in " + (System.nanoTime() - startTime) / 1000000 + " ms");
+        return count;
+    }
+
+    /**
+     * Merges the records in `in` into the store and the cached records. A batch that was merged stays
+     * merged if a later part of the file turns out to be bad.
+     *
+     * @return Number of stored records that changed
+     * @throws IOException If `in` isn't a backup, or is from a newer version of the app
+     */
+    public int importFrom(final Reader in) throws IOException, ExecutionException, InterruptedException {
+        final long startTime = System.nanoTime();
+        final JsonReader json = new JsonReader(in);
+        boolean isBackup = false;
+        int version = 0;
+        int changed = 0;
+
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case FORMAT:
+                    isBackup = FORMAT_NAME.equals(json.nextString());
+                    break;
+                case VERSION_FIELD:
+                    version = json.nextInt();
+                    break;
+                case RECORDS:
+                    if (!isBackup) {
+                        throw new IOException("Not a user record backup");
+                    }
+                    if (version < 1 || version > VERSION) {
+                        throw new IOException("Unsupported user record backup version " + version);
+                    }
+                    changed += importRecords(json);
+                    break;
+                default:
+                    // Added by a later version, and not needed to read the records
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+
+        Timber.d("Imported user records, " + changed + " changed, in "
+                + (System.nanoTime() - startTime) / 1000000 + " ms");
+        return changed;
+    }
+
+    private int importRecords(final JsonReader json) throws IOException, ExecutionException, InterruptedException {
+        int changed = 0;
+        List<SyncRecord> batch = new ArrayList<>(BATCH_SIZE);
+        json.beginArray();
+        while (json.hasNext()) {
+            batch.add(read(json));
+            if (batch.size() == BATCH_SIZE) {
+                changed += importBatch(batch);
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+        }
+        json.endArray();
+        if (!batch.isEmpty()) {
+            changed += importBatch(batch);
+        }
+        return changed;
+    }
+
+    private int importBatch(final List<SyncRecord> batch) throws ExecutionException, InterruptedException {
+        final List<SyncRecord> changed = store.importRecords(batch);
+        userRecords.refresh(changed);
+        return changed.size();
+    }
+
+    private static boolean hasValues(final SyncRecord record) {
+        return record.tooSoonClickDate != 0 || record.dontLikeClickDate != 0
+                || record.dismissedDate != 0 || record.dismissedCount != 0;
+    }
+
+    private static void write(final JsonWriter json, final SyncRecord record) throws IOException {
+        json.beginObject();
+        json.name(ID).value(record.businessId);
+        json.name(TOO_SOON_CLICK_DATE).value(record.tooSoonClickDate);
+        json.name(TOO_SOON_UPDATED_AT).value(record.tooSoonUpdatedAt);
+        json.name(DONT_LIKE_CLICK_DATE).value(record.dontLikeClickDate);
+        json.name(DONT_LIKE_UPDATED_AT).value(record.dontLikeUpdatedAt);
+        json.name(DISMISSED_DATE).value(record.dismissedDate);
+        json.name(DISMISSED_DATE_UPDATED_AT).value(record.dismissedDateUpdatedAt);
+        json.name(DISMISSED_COUNT).value(record.dismissedCount);
+        json.name(DISMISSED_COUNT_UPDATED_AT).value(record.dismissedCountUpdatedAt);
+        json.endObject();
+    }
+
+    private static SyncRecord read(final JsonReader json) throws IOException {
+        final SyncRecord record = new SyncRecord(null);
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case ID:
+                    record.businessId = json.nextString();
+                    break;
+                case TOO_SOON_CLICK_DATE:
+                    record.tooSoonClickDate = json.nextLong();
+                    break;
+                case TOO_SOON_UPDATED_AT:
+                    record.tooSoonUpdatedAt = json.nextLong();
+                    break;
+                case DONT_LIKE_CLICK_DATE:
+                    record.dontLikeClickDate = json.nextLong();
+                    break;
+                case DONT_LIKE_UPDATED_AT:
+                    record.dontLikeUpdatedAt = json.nextLong();
+                    break;
+                case DISMISSED_DATE:
+                    record.dismissedDate = json.nextLong();
+                    break;
+                case DISMISSED_DATE_UPDATED_AT:
+                    record.dismissedDateUpdatedAt = json.nextLong();
+                    break;
+                case DISMISSED_COUNT:
+                    record.dismissedCount = json.nextInt();
+                    break;
+                case DISMISSED_COUNT_UPDATED_AT:
+                    record.dismissedCountUpdatedAt = json.nextLong();
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+        if (record.businessId == null || record.businessId.isEmpty()) {
+            throw new IOException("User record without an ID at " + json.getPath());
+        }
+        return record;
+    }
+}
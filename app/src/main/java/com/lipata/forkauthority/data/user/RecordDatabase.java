@@ -0,0 +1,107 @@
+package com.lipata.forkauthority.data.user;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import androidx.annotation.Nullable;
+
+import timber.log.Timber;
+
+/**
+ * The `business_record` table, one row per {@link BusinessItemRecord}.
+ *
+ * Indexes:
+ * - `business_id` is the primary key, for fetching the records of a result set
+ * - `dont_like_click_date` also holds the Like state (-1), so one index serves Like/Don't Like
+ *   lookups and the Don't Like expiry range
+ * - `too_soon_click_date`, for the Too Soon expiry range
+ * - `change_seq`, for finding the records changed since the last sync
+ *
+ * Version 2 added the sync columns: when each field was last set, and the local change number. Rows
+ * from before then get the click date as the time, since that's when it was clicked, and a change
+ * number each so the first sync pushes them. The `sync_watermark` table holds how far each sync got.
+ */
+class RecordDatabase extends SQLiteOpenHelper {
+
+    static final String NAME = "user-records.db";
+    private static final int VERSION = 2;
+
+    static final String TABLE = "business_record";
+    static final String BUSINESS_ID = "business_id";
+    static final String TOO_SOON_CLICK_DATE = "too_soon_click_date";
+    static final String DONT_LIKE_CLICK_DATE = "dont_like_click_date";
+    static final String DISMISSED_DATE = "dismissed_date";
+    static final String DISMISSED_COUNT = "dismissed_count";
+    static final String TOO_SOON_UPDATED_AT = "too_soon_updated_at";
+    static final String DONT_LIKE_UPDATED_AT = "dont_like_updated_at";
+    static final String DISMISSED_DATE_UPDATED_AT = "dismissed_date_updated_at";
+    static final String DISMISSED_COUNT_UPDATED_AT = "dismissed_count_updated_at";
+    static final String CHANGE_SEQ = "change_seq";
+
+    static final String WATERMARK_TABLE = "sync_watermark";
+    static final String WATERMARK_NAME = "name";
+    static final String WATERMARK_VALUE = "value";
+
+    @Nullable private final LegacyRecordMigration migration;
+
+    /**
+     * @param name      Database file name, `null` for an in-memory database
+     * @param migration Imports older records when the database is created
+     */
+    RecordDatabase(final Context context, @Nullable final String name, @Nullable final LegacyRecordMigration migration) {
+        super(context, name, null, VERSION);
+        this.migration = migration;
+    }
+
+    @Override
+    public void onCreate(final SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE + " ("
+                + BUSINESS_ID + " TEXT PRIMARY KEY NOT NULL, "
+                + TOO_SOON_CLICK_DATE + " INTEGER NOT NULL DEFAULT 0, "
+                + DONT_LIKE_CLICK_DATE + " INTEGER NOT NULL DEFAULT 0, "
+                + DISMISSED_DATE + " INTEGER NOT NULL DEFAULT 0, "
+                + DISMISSED_COUNT + " INTEGER NOT NULL DEFAULT 0)");
+        db.execSQL("CREATE INDEX " + TABLE + "_" + DONT_LIKE_CLICK_DATE
+                + " ON " + TABLE + " (" + DONT_LIKE_CLICK_DATE + ")");
+        db.execSQL("CREATE INDEX " + TABLE + "_" + TOO_SOON_CLICK_DATE
+                + " ON " + TABLE + " (" + TOO_SOON_CLICK_DATE + ")");
+
+        // onCreate runs in the same transaction as the table creation, so the import either
+        // finishes or the database is created again next time
+        if (migration != null) {
+            final int imported = migration.importInto(db);
+            Timber.d("Imported " + imported + " user records");
+        }
+
+        addSyncColumns(db);
+    }
+
+    @Override
+    public void onUpgrade(final SQLiteDatabase db, final int oldVersion, final int newVersion) {
+        if (oldVersion < 2) {
+            addSyncColumns(db);
+        }
+    }
+
+    private static void addSyncColumns(final SQLiteDatabase db) {
+        for (String column : new String[]{TOO_SOON_UPDATED_AT, DONT_LIKE_UPDATED_AT,
+                DISMISSED_DATE_UPDATED_AT, DISMISSED_COUNT_UPDATED_AT, CHANGE_SEQ}) {
+            db.execSQL("ALTER TABLE " + TABLE + " ADD COLUMN " + column + " INTEGER NOT NULL DEFAULT 0");
+        }
+        db.execSQL("CREATE INDEX " + TABLE + "_" + CHANGE_SEQ + " ON " + TABLE + " (" + CHANGE_SEQ + ")");
+        db.execSQL("CREATE TABLE " + WATERMARK_TABLE + " ("
+                + WATERMARK_NAME + " TEXT PRIMARY KEY NOT NULL, "
+                + WATERMARK_VALUE + " INTEGER NOT NULL)");
+
+        // A Like is stored as -1 and has no date, so it's older than any Like or Don't Like synced since
+        db.execSQL("UPDATE " + TABLE + " SET "
+                + TOO_SOON_UPDATED_AT + " = " + TOO_SOON_CLICK_DATE + ", "
+                + DONT_LIKE_UPDATED_AT + " = CASE WHEN " + DONT_LIKE_CLICK_DATE + " < 0 THEN 1 ELSE "
+                + DONT_LIKE_CLICK_DATE + " END, "
+                + DISMISSED_DATE_UPDATED_AT + " = " + DISMISSED_DATE + ", "
+                + DISMISSED_COUNT_UPDATED_AT + " = CASE WHEN " + DISMISSED_COUNT + " > 0 THEN MAX("
+                + DISMISSED_DATE + ", 1) ELSE 0 END, "
+                + CHANGE_SEQ + " = rowid");
+    }
+}
@@ -0,0 +1,256 @@
+package com.lipata.forkauthority.data.user;
+
+/**
+ * Business records by ID in parallel primitive arrays, with open addressing (linear probing) on the
+ * ID. Holds the same data as a `Map<String, BusinessItemRecord>` without a record object or map entry
+ * per business, and a lookup usually takes one probe: the table is kept at most half full.
+ *
+ * Records are addressed by slot. {@link #indexOf(String)} finds a record's slot; the slot is valid
+ * until the next {@link #put} of a new ID, which may grow the table. Records are never removed.
+ *
+ * Not thread safe.
+ */
+public class RecordIndex {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private String[] ids;
+    // The IDs' hash codes, so a probe that hits another ID rarely needs equals()
+    private int[] hashes;
+    private long[] tooSoonClickDates;
+    private long[] dontLikeClickDates;
+    private long[] dismissedDates;
+    private int[] dismissedCounts;
+
+    private int size;
+    private int mask;
+
+    public RecordIndex() {
+        this(0);
+    }
+
+    /**
+     * @param expectedSize Number of records to make room for up front
+     */
+    public RecordIndex(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * @param extraRecords Number of records the copy should have room for on top of these
+     * @return An independent copy
+     */
+    public RecordIndex copy(int extraRecords) {
+        final RecordIndex copy = new RecordIndex(size + extraRecords);
+        if (copy.ids.length == ids.length) {
+            // Same table size, so every record goes in the same slot
+            System.arraycopy(ids, 0, copy.ids, 0, ids.length);
+            System.arraycopy(hashes, 0, copy.hashes, 0, ids.length);
+            System.arraycopy(tooSoonClickDates, 0, copy.tooSoonClickDates, 0, ids.length);
+            System.arraycopy(dontLikeClickDates, 0, copy.dontLikeClickDates, 0, ids.length);
+            System.arraycopy(dismissedDates, 0, copy.dismissedDates, 0, ids.length);
+            System.arraycopy(dismissedCounts, 0, copy.dismissedCounts, 0, ids.length);
+            copy.size = size;
+        } else {
+            for (int slot = nextSlot(0); slot >= 0; slot = nextSlot(slot + 1)) {
+                copy.putFrom(this, slot);
+            }
+        }
+        return copy;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The slot holding `id`'s record, or -1 if there is none
+     */
+    public int indexOf(String id) {
+        final int hash = id.hashCode();
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            final String key = ids[slot];
+            if (key == null) {
+                return -1;
+            }
+            if (hashes[slot] == hash && (key == id || key.equals(id))) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * Adds a record for `id` or overwrites the one there is
+     *
+     * @return The record's slot
+     */
+    public int put(String id, long tooSoonClickDate, long dontLikeClickDate, long dismissedDate, int dismissedCount) {
+        final int slot = slotFor(id);
+        tooSoonClickDates[slot] = tooSoonClickDate;
+        dontLikeClickDates[slot] = dontLikeClickDate;
+        dismissedDates[slot] = dismissedDate;
+        dismissedCounts[slot] = dismissedCount;
+        return slot;
+    }
+
+    public int put(BusinessItemRecord record) {
+        return put(record.getId(), record.getTooSoonClickDate(), record.getDontLikeClickDate(),
+                record.getDismissedDate(), record.getDismissedCount());
+    }
+
+    /**
+     * Copies the record at `slot` of `other` into this index
+     *
+     * @return The record's slot here
+     */
+    public int putFrom(RecordIndex other, int slot) {
+        return put(other.ids[slot], other.tooSoonClickDates[slot], other.dontLikeClickDates[slot],
+                other.dismissedDates[slot], other.dismissedCounts[slot]);
+    }
+
+    /**
+     * @return The slot holding `id`'s record, added with all fields 0 if there was none
+     */
+    public int slotFor(String id) {
+        final int existing = indexOf(id);
+        if (existing >= 0) {
+            return existing;
+        }
+
+        if ((size + 1) * 2 > ids.length) {
+            grow();
+        }
+        final int hash = id.hashCode();
+        int slot = mix(hash) & mask;
+        while (ids[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        ids[slot] = id;
+        hashes[slot] = hash;
+        size++;
+        return slot;
+    }
+
+    /**
+     * For walking every record: `for (int slot = index.nextSlot(0); slot >= 0; slot = index.nextSlot(slot + 1))`
+     *
+     * @return The first occupied slot at or after `from`, or -1 if there is none
+     */
+    public int nextSlot(int from) {
+        for (int slot = from; slot < ids.length; slot++) {
+            if (ids[slot] != null) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    public String getId(int slot) {
+        return ids[slot];
+    }
+
+    public long getTooSoonClickDate(int slot) {
+        return tooSoonClickDates[slot];
+    }
+
+    public void setTooSoonClickDate(int slot, long tooSoonClickDate) {
+        tooSoonClickDates[slot] = tooSoonClickDate;
+    }
+
+    public long getDontLikeClickDate(int slot) {
+        return dontLikeClickDates[slot];
+    }
+
+    public void setDontLikeClickDate(int slot, long dontLikeClickDate) {
+        dontLikeClickDates[slot] = dontLikeClickDate;
+    }
+
+    public long getDismissedDate(int slot) {
+        return dismissedDates[slot];
+    }
+
+    public void setDismissedDate(int slot, long dismissedDate) {
+        dismissedDates[slot] = dismissedDate;
+    }
+
+    public int getDismissedCount(int slot) {
+        return dismissedCounts[slot];
+    }
+
+    public void setDismissedCount(int slot, int dismissedCount) {
+        dismissedCounts[slot] = dismissedCount;
+    }
+
+    /**
+     * @return A new record object with the values at `slot`, e.g. to hand to a {@link RecordStore}
+     */
+    public BusinessItemRecord toRecord(int slot) {
+        final BusinessItemRecord record = new BusinessItemRecord();
+        record.setId(ids[slot]);
+        record.setTooSoonClickDate(tooSoonClickDates[slot]);
+        record.setDontLikeClickDate(dontLikeClickDates[slot]);
+        record.setDismissedDate(dismissedDates[slot]);
+        record.setDismissedCount(dismissedCounts[slot]);
+        return record;
+    }
+
+    private void grow() {
+        final String[] oldIds = ids;
+        final int[] oldHashes = hashes;
+        final long[] oldTooSoon = tooSoonClickDates;
+        final long[] oldDontLike = dontLikeClickDates;
+        final long[] oldDismissed = dismissedDates;
+        final int[] oldDismissedCounts = dismissedCounts;
+
+        allocate(oldIds.length * 2);
+        for (int old = 0; old < oldIds.length; old++) {
+            if (oldIds[old] == null) {
+                continue;
+            }
+            int slot = mix(oldHashes[old]) & mask;
+            while (ids[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            ids[slot] = oldIds[old];
+            hashes[slot] = oldHashes[old];
+            tooSoonClickDates[slot] = oldTooSoon[old];
+            dontLikeClickDates[slot] = oldDontLike[old];
+            dismissedDates[slot] = oldDismissed[old];
+            dismissedCounts[slot] = oldDismissedCounts[old];
+        }
+    }
+
+    private void allocate(int capacity) {
+        ids = new String[capacity];
+        hashes = new int[capacity];
+        tooSoonClickDates = new long[capacity];
+        dontLikeClickDates = new long[capacity];
+        dismissedDates = new long[capacity];
+        dismissedCounts = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * @return The smallest power of two that keeps `size` records at most half full
+     */
+    private static int capacityFor(int size) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < size * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * Spreads the hash code's bits, so IDs with close hash codes don't fill neighbouring slots
+     */
+    private static int mix(int hash) {
+        final int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    @Override
+    public String toString() {
+        return "RecordIndex{size=" + size + ", capacity=" + ids.length + "}";
+    }
+}
@@ -0,0 +1,113 @@
+package com.lipata.forkauthority.data.user;
+
+import androidx.annotation.Nullable;
+
+import java.util.Collection;
+
+/**
+ * An immutable, point-in-time view of the cached user records. Safe to read from any thread while
+ * {@link UserRecords} publishes newer snapshots.
+ *
+ * A change doesn't copy every record. The snapshot is two {@link RecordIndex}es: a large `base` and a
+ * small `recent` holding changes since `base` was built. A change copies only `recent`, which holds at
+ * most {@link #MAX_RECENT} records, so a tap costs a constant. Once `recent` is full the two are
+ * merged into a new `base`, a copy of every cached record: O(n), but at most once every
+ * {@link #MAX_RECENT} changes, and cheap for the few thousand businesses a session caches. Neither
+ * index is modified after the snapshot is created.
+ */
+public final class RecordSnapshot {
+
+    static final RecordSnapshot EMPTY = new RecordSnapshot(new RecordIndex(), new RecordIndex());
+
+    static final int MAX_RECENT = 64;
+
+    private final RecordIndex base;
+    private final RecordIndex recent;
+
+    private RecordSnapshot(final RecordIndex base, final RecordIndex recent) {
+        this.base = base;
+        this.recent = recent;
+    }
+
+    public boolean contains(final String businessId) {
+        return recent.indexOf(businessId) >= 0 || base.indexOf(businessId) >= 0;
+    }
+
+    /**
+     * @return A new record object with `businessId`'s values, or `null` if it isn't cached
+     */
+    @Nullable
+    public BusinessItemRecord get(final String businessId) {
+        int slot = recent.indexOf(businessId);
+        if (slot >= 0) {
+            return recent.toRecord(slot);
+        }
+        slot = base.indexOf(businessId);
+        return slot >= 0 ? base.toRecord(slot) : null;
+    }
+
+    /**
+     * Copies `businessId`'s record into `into`, if it's cached
+     *
+     * @return The record's slot in `into`, or -1 if it isn't cached
+     */
+    public int copyTo(final String businessId, final RecordIndex into) {
+        int slot = recent.indexOf(businessId);
+        if (slot >= 0) {
+            return into.putFrom(recent, slot);
+        }
+        slot = base.indexOf(businessId);
+        return slot >= 0 ? into.putFrom(base, slot) : -1;
+    }
+
+    /**
+     * @return A new snapshot with `records` added or replacing the cached ones. This one is unchanged.
+     */
+    RecordSnapshot with(final Collection<BusinessItemRecord> records) {
+        final RecordIndex newRecent = recent.copy(records.size());
+        for (BusinessItemRecord record : records) {
+            newRecent.put(record);
+        }
+
+        if (newRecent.size() < MAX_RECENT) {
+            return new RecordSnapshot(base, newRecent);
+        }
+        final RecordIndex newBase = base.copy(newRecent.size());
+        for (int slot = newRecent.nextSlot(0); slot >= 0; slot = newRecent.nextSlot(slot + 1)) {
+            newBase.putFrom(newRecent, slot);
+        }
+        return new RecordSnapshot(newBase, new RecordIndex());
+    }
+
+    /**
+     * @return A new snapshot with every Don't Like clicked at or before `clickedBefore` cleared, or this
+     * one if there are none
+     */
+    RecordSnapshot withExpiredDontLikes(final long clickedBefore) {
+        if (!hasDontLikeAtOrBefore(base, clickedBefore) && !hasDontLikeAtOrBefore(recent, clickedBefore)) {
+            return this;
+        }
+
+        final RecordIndex merged = base.copy(recent.size());
+        for (int slot = recent.nextSlot(0); slot >= 0; slot = recent.nextSlot(slot + 1)) {
+            merged.putFrom(recent, slot);
+        }
+        for (int slot = merged.nextSlot(0); slot >= 0; slot = merged.nextSlot(slot + 1)) {
+            final long dontLikeClickDate = merged.getDontLikeClickDate(slot);
+            if (dontLikeClickDate > 0 && dontLikeClickDate <= clickedBefore) {
+                merged.setDontLikeClickDate(slot, 0);
+            }
+        }
+        return new RecordSnapshot(merged, new RecordIndex());
+    }
+
+    private static boolean hasDontLikeAtOrBefore(final RecordIndex index, final long clickedBefore) {
+        for (int slot = index.nextSlot(0); slot >= 0; slot = index.nextSlot(slot + 1)) {
+            final long dontLikeClickDate = index.getDontLikeClickDate(slot);
+            if (dontLikeClickDate > 0 && dontLikeClickDate <= clickedBefore) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,59 @@
+package com.lipata.forkauthority.data.user;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+/**
+ * Where {@link UserRecords} persists its {@link BusinessItemRecord}s. Records are read by business ID,
+ * only for the businesses being shown, and saved one row per record.
+ *
+ * Reads and writes go through one queue, so a read always sees the writes made before it.
+ */
+public interface RecordStore {
+
+    /**
+     * Starts opening the store in the background, e.g. at app start. Any other call queues behind it,
+     * so calling this is optional; it only moves the work off the critical path.
+     *
+     * @return Done once the store is open
+     */
+    Future<?> open();
+
+    /**
+     * Reads the stored records for `businessIds`. Blocks, call it off the main thread.
+     *
+     * @return Records by business ID. Businesses without a record are left out.
+     */
+    Map<String, BusinessItemRecord> get(Collection<String> businessIds);
+
+    /**
+     * Saves `records`, replacing what was stored for them. Returns before the write is done, and the
+     * write may be held back to go together with later puts. Implementations must capture the values
+     * before returning.
+     */
+    void put(Collection<BusinessItemRecord> records);
+
+    /**
+     * Starts writing anything held back by {@link #put(Collection)} now, e.g. when the app goes to
+     * the background. Doesn't wait for the write.
+     *
+     * @return Done once everything put so far is written
+     */
+    Future<?> flush();
+
+    /**
+     * Clears every Don't Like clicked at or before `clickedBefore`. Blocks, call it off the main thread.
+     *
+     * @return Number of records changed
+     */
+    int expireDontLikes(long clickedBefore);
+
+    /**
+     * Reads the IDs of every business the user Liked. Blocks, call it off the main thread.
+     *
+     * @return Business IDs, empty if the store can't be read
+     */
+    List<String> getLikedIds();
+}
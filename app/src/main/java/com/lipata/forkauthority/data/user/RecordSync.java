@@ -0,0 +1,141 @@
+package com.lipata.forkauthority.data.user;
+
+import com.lipata.forkauthority.di.ApplicationScope;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.inject.Inject;
+
+import timber.log.Timber;
+
+/**
+ * Keeps the user's records the same on all their devices, through a {@link RemoteRecordStore} under
+ * their email address. Only deltas move in either direction:
+ * - push: records changed locally since the last push, found by their local change number
+ * - pull: records whose remote copy changed since the last pull, by the remote's clock
+ *
+ * Both sides merge field by field, newest wins (see {@link SyncRecord#mergeFrom(SyncRecord)}), so the
+ * order of pushes and pulls between devices doesn't matter. Each page moves its watermark forward once
+ * it's merged; a sync that fails part way goes on from there next time.
+ */
+@ApplicationScope
+public class RecordSync {
+
+    // Pushed together, so they share a remote change time. Less than a pull page, or a pull could
+    // keep reading the same page.
+    static final int PUSH_BATCH_SIZE = 100;
+    static final int PULL_PAGE_SIZE = 500;
+
+    private static final String PUSHED_WATERMARK = "pushed:";
+    private static final String PULLED_WATERMARK = "pulled:";
+
+    private final SyncableRecordStore local;
+    private final RemoteRecordStore remote;
+    private final UserRecords userRecords;
+    private final UserIdentityManager userIdentityManager;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "user-records-sync"));
+    private final AtomicBoolean syncQueued = new AtomicBoolean();
+
+    @Inject
+    RecordSync(
+            final SyncableRecordStore local,
+            final RemoteRecordStore remote,
+            final UserRecords userRecords,
+            final UserIdentityManager userIdentityManager
+    ) {
+        this.local = local;
+        this.remote = remote;
+        this.userRecords = userRecords;
+        this.userIdentityManager = userIdentityManager;
+    }
+
+    /**
+     * Syncs in the background if the user has entered an email address. A request made while one is
+     * already waiting to start is dropped; the waiting one will include its changes.
+     */
+    public void requestSync() {
+        if (!userIdentityManager.hasIdentity() || !syncQueued.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(() -> {
+            syncQueued.set(false);
+            final String email = userIdentityManager.getEmail();
+            if (email != null) {
+                sync(email.trim().toLowerCase(Locale.US));
+            }
+        });
+    }
+
+    /**
+     * Pushes local changes, then pulls and merges remote ones. Blocks.
+     *
+     * @return Whether both finished
+     */
+    boolean sync(final String userId) {
+        final long startTime = System.nanoTime();
+        try {
+            final int pushed = push(userId);
+            final int pulled = pull(userId);
+            Timber.d("Synced user records: pushed " + pushed + ", merged " + pulled + " in "
+                    + (System.nanoTime() - startTime) / 1000000 + " ms");
+            return true;
+        } catch (ExecutionException e) {
+            Timber.e(e.getCause(), "User record sync failed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    private int push(final String userId) throws ExecutionException, InterruptedException {
+        final String watermark = PUSHED_WATERMARK + userId;
+        long pushedSeq = local.getWatermark(watermark);
+        int pushed = 0;
+        while (true) {
+            final List<SyncRecord> changes = local.changesSince(pushedSeq, PUSH_BATCH_SIZE);
+            if (changes.isEmpty()) {
+                return pushed;
+            }
+            remote.push(userId, changes);
+            pushed += changes.size();
+            pushedSeq = changes.get(changes.size() - 1).changeSeq;
+            local.setWatermark(watermark, pushedSeq);
+            if (changes.size() < PUSH_BATCH_SIZE) {
+                return pushed;
+            }
+        }
+    }
+
+    private int pull(final String userId) throws ExecutionException, InterruptedException {
+        final String watermark = PULLED_WATERMARK + userId;
+        long pulledAt = local.getWatermark(watermark);
+        int merged = 0;
+        while (true) {
+            final List<SyncRecord> page = remote.changedSince(userId, pulledAt, PULL_PAGE_SIZE);
+            if (page.isEmpty()) {
+                return merged;
+            }
+            final List<SyncRecord> changed = local.merge(page);
+            userRecords.refresh(changed);
+            merged += changed.size();
+
+            final long lastSyncedAt = page.get(page.size() - 1).syncedAt;
+            if (lastSyncedAt == pulledAt && page.size() == PULL_PAGE_SIZE) {
+                // A whole page changed at the same time; see PUSH_BATCH_SIZE
+                Timber.w("Could not pull past " + pulledAt);
+                return merged;
+            }
+            pulledAt = lastSyncedAt;
+            local.setWatermark(watermark, pulledAt);
+            if (page.size() < PULL_PAGE_SIZE) {
+                return merged;
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.lipata.forkauthority.data.user;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Where {@link RecordSync} keeps a user's records for their other devices. Every call blocks, call it
+ * off the main thread.
+ */
+public interface RemoteRecordStore {
+
+    /**
+     * Merges `records` into the user's remote copies field by field, see
+     * {@link SyncRecord#mergeFrom(SyncRecord)}. All of them or none are saved.
+     */
+    void push(String userId, List<SyncRecord> records) throws ExecutionException, InterruptedException;
+
+    /**
+     * Reads the user's records whose remote copy changed at or after `syncedAt`, oldest change first.
+     * Records pushed together may share a {@link SyncRecord#syncedAt}, so callers go on from the last
+     * one they read and see it again.
+     *
+     * @return Up to `limit` records with {@link SyncRecord#syncedAt} set
+     */
+    List<SyncRecord> changedSince(String userId, long syncedAt, int limit) throws ExecutionException, InterruptedException;
+}
@@ -0,0 +1,552 @@
+package com.lipata.forkauthority.data.user;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.annotation.Nullable;
+
+import com.lipata.forkauthority.util.SqlIdQueries;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import timber.log.Timber;
+
+/**
+ * {@link RecordStore} on an SQLite table, see {@link RecordDatabase}. Every database call runs on
+ * `executor`, which must run one task at a time: that's what keeps reads behind earlier writes.
+ *
+ * Writes are held back for {@link #WRITE_DELAY_MS} after the first unwritten put, so a burst of taps
+ * becomes one transaction with one row per business. A read writes anything held back first.
+ *
+ * A write only touches rows whose values changed. It stamps the fields that changed with the time of
+ * the put and gives the row the next change number, which is what {@link #changesSince(long, int)}
+ * reads.
+ */
+public class SqliteRecordStore implements SyncableRecordStore {
+
+    static final long WRITE_DELAY_MS = 500;
+
+    private static final String[] COLUMNS = {
+            RecordDatabase.BUSINESS_ID,
+            RecordDatabase.TOO_SOON_CLICK_DATE,
+            RecordDatabase.DONT_LIKE_CLICK_DATE,
+            RecordDatabase.DISMISSED_DATE,
+            RecordDatabase.DISMISSED_COUNT
+    };
+
+    private static final String[] SYNC_COLUMNS = {
+            RecordDatabase.BUSINESS_ID,
+            RecordDatabase.TOO_SOON_CLICK_DATE,
+            RecordDatabase.DONT_LIKE_CLICK_DATE,
+            RecordDatabase.DISMISSED_DATE,
+            RecordDatabase.DISMISSED_COUNT,
+            RecordDatabase.TOO_SOON_UPDATED_AT,
+            RecordDatabase.DONT_LIKE_UPDATED_AT,
+            RecordDatabase.DISMISSED_DATE_UPDATED_AT,
+            RecordDatabase.DISMISSED_COUNT_UPDATED_AT,
+            RecordDatabase.CHANGE_SEQ
+    };
+
+    // ?1-?4 are the values, ?5 the time of the put, ?6 the change number. SQLite evaluates every SET
+    // expression against the old row, so each CASE compares with the value being replaced.
+    private static final String UPDATE_CHANGED = "UPDATE " + RecordDatabase.TABLE + " SET "
+            + stampIfChanged(RecordDatabase.TOO_SOON_UPDATED_AT, RecordDatabase.TOO_SOON_CLICK_DATE, 1) + ", "
+            + stampIfChanged(RecordDatabase.DONT_LIKE_UPDATED_AT, RecordDatabase.DONT_LIKE_CLICK_DATE, 2) + ", "
+            + stampIfChanged(RecordDatabase.DISMISSED_DATE_UPDATED_AT, RecordDatabase.DISMISSED_DATE, 3) + ", "
+            + stampIfChanged(RecordDatabase.DISMISSED_COUNT_UPDATED_AT, RecordDatabase.DISMISSED_COUNT, 4) + ", "
+            + RecordDatabase.TOO_SOON_CLICK_DATE + " = ?1, "
+            + RecordDatabase.DONT_LIKE_CLICK_DATE + " = ?2, "
+            + RecordDatabase.DISMISSED_DATE + " = ?3, "
+            + RecordDatabase.DISMISSED_COUNT + " = ?4, "
+            + RecordDatabase.CHANGE_SEQ + " = ?6"
+            + " WHERE " + RecordDatabase.BUSINESS_ID + " = ?7 AND ("
+            + RecordDatabase.TOO_SOON_CLICK_DATE + " != ?1 OR "
+            + RecordDatabase.DONT_LIKE_CLICK_DATE + " != ?2 OR "
+            + RecordDatabase.DISMISSED_DATE + " != ?3 OR "
+            + RecordDatabase.DISMISSED_COUNT + " != ?4)";
+
+    // ?1 the time of the expiry, ?2 the change number
+    private static final String EXPIRE_DONT_LIKE = "UPDATE " + RecordDatabase.TABLE + " SET "
+            + RecordDatabase.DONT_LIKE_CLICK_DATE + " = 0, "
+            + RecordDatabase.DONT_LIKE_UPDATED_AT + " = ?1, "
+            + RecordDatabase.CHANGE_SEQ + " = ?2"
+            + " WHERE " + RecordDatabase.BUSINESS_ID + " = ?3";
+
+    private static final String INSERT_NEW = "INSERT OR IGNORE INTO " + RecordDatabase.TABLE
+            + columnsAndPlaceholders(SYNC_COLUMNS);
+
+    private static final String REPLACE_SYNCED = "INSERT OR REPLACE INTO " + RecordDatabase.TABLE
+            + columnsAndPlaceholders(SYNC_COLUMNS);
+
+    private final RecordDatabase database;
+    @Nullable private final LegacyRecordMigration migration;
+    private final ScheduledExecutorService executor;
+
+    // Only touched on the executor
+    private SQLiteDatabase db;
+    private SQLiteStatement updateChanged;
+    private SQLiteStatement insertNew;
+    // The last change number given out
+    private long lastChangeSeq;
+
+    // Put but not written yet, latest record per business, and when it was put. Guarded by `this`.
+    private Map<String, BusinessItemRecord> pending = new LinkedHashMap<>();
+    private Map<String, Long> pendingTimes = new HashMap<>();
+    private boolean writeScheduled;
+
+    /**
+     * @param sharedPrefs Holds the legacy JSON blob under `blobKey`
+     */
+    public static SqliteRecordStore create(
+            final Context context,
+            final SharedPreferences sharedPrefs,
+            final String blobKey,
+            final ScheduledExecutorService executor
+    ) {
+        final LegacyRecordMigration migration = new LegacyRecordMigration(sharedPrefs, blobKey);
+        return new SqliteRecordStore(new RecordDatabase(context, RecordDatabase.NAME, migration), migration, executor);
+    }
+
+    SqliteRecordStore(
+            final RecordDatabase database,
+            @Nullable final LegacyRecordMigration migration,
+            final ScheduledExecutorService executor
+    ) {
+        this.database = database;
+        this.migration = migration;
+        this.executor = executor;
+    }
+
+    @Override
+    public Map<String, BusinessItemRecord> get(final Collection<String> businessIds) {
+        if (businessIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        final List<String> ids = new ArrayList<>(businessIds);
+        final Map<String, BusinessItemRecord> records = await(() -> {
+            writePending();
+            final Map<String, BusinessItemRecord> result = new HashMap<>();
+            for (List<String> chunk : SqlIdQueries.chunks(ids)) {
+                query(chunk, result);
+            }
+            return result;
+        });
+        return records != null ? records : Collections.emptyMap();
+    }
+
+    private void query(final List<String> ids, final Map<String, BusinessItemRecord> result) {
+        final String selection = SqlIdQueries.selection(RecordDatabase.BUSINESS_ID, ids.size()).toString();
+        try (Cursor cursor = database().query(RecordDatabase.TABLE, COLUMNS, selection,
+                ids.toArray(new String[0]), null, null, null)) {
+            while (cursor.moveToNext()) {
+                final BusinessItemRecord record = new BusinessItemRecord();
+                record.setId(cursor.getString(0));
+                record.setTooSoonClickDate(cursor.getLong(1));
+                record.setDontLikeClickDate(cursor.getLong(2));
+                record.setDismissedDate(cursor.getLong(3));
+                record.setDismissedCount(cursor.getInt(4));
+                result.put(record.getId(), record);
+            }
+        }
+    }
+
+    @Override
+    public void put(final Collection<BusinessItemRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        synchronized (this) {
+            for (BusinessItemRecord record : records) {
+                // The caller may change the records once this returns
+                pending.put(record.getId(), new BusinessItemRecord(record));
+                pendingTimes.put(record.getId(), now);
+            }
+            if (!writeScheduled) {
+                writeScheduled = true;
+                executor.schedule(this::writePending, WRITE_DELAY_MS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    @Override
+    public Future<?> flush() {
+        return executor.submit(this::writePending);
+    }
+
+    /**
+     * Writes the pending records in one transaction. Runs on the executor.
+     */
+    private void writePending() {
+        final Collection<BusinessItemRecord> records;
+        final Map<String, Long> times;
+        synchronized (this) {
+            writeScheduled = false;
+            if (pending.isEmpty()) {
+                return;
+            }
+            records = pending.values();
+            times = pendingTimes;
+            pending = new LinkedHashMap<>();
+            pendingTimes = new HashMap<>();
+        }
+
+        try {
+            final SQLiteDatabase db = database();
+            int changed = 0;
+            db.beginTransaction();
+            try {
+                for (BusinessItemRecord record : records) {
+                    if (write(record, times.get(record.getId()), lastChangeSeq + 1)) {
+                        lastChangeSeq++;
+                        changed++;
+                    }
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            Timber.d("Saved " + records.size() + " user records, " + changed + " changed");
+        } catch (RuntimeException e) {
+            Timber.e(e, "Could not save " + records.size() + " user records");
+        }
+    }
+
+    /**
+     * Writes `record` if it differs from the stored one
+     *
+     * @return Whether it was written
+     */
+    private boolean write(final BusinessItemRecord record, final long putAt, final long seq) {
+        updateChanged.bindLong(1, record.getTooSoonClickDate());
+        updateChanged.bindLong(2, record.getDontLikeClickDate());
+        updateChanged.bindLong(3, record.getDismissedDate());
+        updateChanged.bindLong(4, record.getDismissedCount());
+        updateChanged.bindLong(5, putAt);
+        updateChanged.bindLong(6, seq);
+        updateChanged.bindString(7, record.getId());
+        if (updateChanged.executeUpdateDelete() > 0) {
+            return true;
+        }
+
+        // Either there's no row or nothing changed. A new row only stamps the fields that were set.
+        final SyncRecord created = new SyncRecord(record.getId());
+        created.tooSoonClickDate = record.getTooSoonClickDate();
+        created.tooSoonUpdatedAt = created.tooSoonClickDate != 0 ? putAt : 0;
+        created.dontLikeClickDate = record.getDontLikeClickDate();
+        created.dontLikeUpdatedAt = created.dontLikeClickDate != 0 ? putAt : 0;
+        created.dismissedDate = record.getDismissedDate();
+        created.dismissedDateUpdatedAt = created.dismissedDate != 0 ? putAt : 0;
+        created.dismissedCount = record.getDismissedCount();
+        created.dismissedCountUpdatedAt = created.dismissedCount != 0 ? putAt : 0;
+        created.changeSeq = seq;
+        bind(insertNew, created);
+        return insertNew.executeInsert() != -1;
+    }
+
+    @Override
+    public List<SyncRecord> changesSince(final long changeSeq, final int limit)
+            throws ExecutionException, InterruptedException {
+        return call(() -> {
+            writePending();
+            final List<SyncRecord> changes = new ArrayList<>();
+            try (Cursor cursor = database().query(RecordDatabase.TABLE, SYNC_COLUMNS,
+                    RecordDatabase.CHANGE_SEQ + " > ?", new String[]{Long.toString(changeSeq)},
+                    null, null, RecordDatabase.CHANGE_SEQ, Integer.toString(limit))) {
+                while (cursor.moveToNext()) {
+                    changes.add(readSyncRecord(cursor));
+                }
+            }
+            return changes;
+        });
+    }
+
+    @Override
+    public List<SyncRecord> merge(final Collection<SyncRecord> records)
+            throws ExecutionException, InterruptedException {
+        return merge(records, false);
+    }
+
+    @Override
+    public List<SyncRecord> importRecords(final Collection<SyncRecord> records)
+            throws ExecutionException, InterruptedException {
+        return merge(records, true);
+    }
+
+    /**
+     * @param localChange Whether changed rows get a new change number, so they're pushed on the next sync
+     */
+    private List<SyncRecord> merge(final Collection<SyncRecord> records, final boolean localChange)
+            throws ExecutionException, InterruptedException {
+        final List<SyncRecord> incoming = new ArrayList<>(records);
+        return call(() -> {
+            writePending();
+            final SQLiteDatabase db = database();
+            final List<SyncRecord> changed = new ArrayList<>();
+            db.beginTransaction();
+            try (SQLiteStatement replace = db.compileStatement(REPLACE_SYNCED)) {
+                for (List<SyncRecord> chunk : SqlIdQueries.chunks(incoming)) {
+                    final Map<String, SyncRecord> stored = querySyncRecords(chunk);
+                    for (SyncRecord record : chunk) {
+                        SyncRecord merged = stored.get(record.businessId);
+                        if (merged == null) {
+                            merged = new SyncRecord(record.businessId);
+                            stored.put(record.businessId, merged);
+                        }
+                        if (merged.mergeFrom(record)) {
+                            if (localChange) {
+                                merged.changeSeq = ++lastChangeSeq;
+                            }
+                            bind(replace, merged);
+                            replace.executeInsert();
+                            changed.add(merged);
+                        }
+                    }
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            Timber.d("Merged " + records.size() + " user records, " + changed.size() + " changed");
+            return changed;
+        });
+    }
+
+    @Override
+    public List<SyncRecord> recordsAfter(final String businessId, final int limit)
+            throws ExecutionException, InterruptedException {
+        return call(() -> {
+            writePending();
+            final List<SyncRecord> records = new ArrayList<>();
+            try (Cursor cursor = database().query(RecordDatabase.TABLE, SYNC_COLUMNS,
+                    RecordDatabase.BUSINESS_ID + " > ?", new String[]{businessId},
+                    null, null, RecordDatabase.BUSINESS_ID, Integer.toString(limit))) {
+                while (cursor.moveToNext()) {
+                    records.add(readSyncRecord(cursor));
+                }
+            }
+            return records;
+        });
+    }
+
+    private Map<String, SyncRecord> querySyncRecords(final List<SyncRecord> records) {
+        final String[] ids = new String[records.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = records.get(i).businessId;
+        }
+        final String selection = SqlIdQueries.selection(RecordDatabase.BUSINESS_ID, ids.length).toString();
+
+        final Map<String, SyncRecord> result = new HashMap<>();
+        try (Cursor cursor = database().query(RecordDatabase.TABLE, SYNC_COLUMNS, selection,
+                ids, null, null, null)) {
+            while (cursor.moveToNext()) {
+                final SyncRecord record = readSyncRecord(cursor);
+                result.put(record.businessId, record);
+            }
+        }
+        return result;
+    }
+
+    private static SyncRecord readSyncRecord(final Cursor cursor) {
+        final SyncRecord record = new SyncRecord(cursor.getString(0));
+        record.tooSoonClickDate = cursor.getLong(1);
+        record.dontLikeClickDate = cursor.getLong(2);
+        record.dismissedDate = cursor.getLong(3);
+        record.dismissedCount = cursor.getInt(4);
+        record.tooSoonUpdatedAt = cursor.getLong(5);
+        record.dontLikeUpdatedAt = cursor.getLong(6);
+        record.dismissedDateUpdatedAt = cursor.getLong(7);
+        record.dismissedCountUpdatedAt = cursor.getLong(8);
+        record.changeSeq = cursor.getLong(9);
+        return record;
+    }
+
+    @Override
+    public long getWatermark(final String name) throws ExecutionException, InterruptedException {
+        return call(() -> {
+            try (Cursor cursor = database().query(RecordDatabase.WATERMARK_TABLE,
+                    new String[]{RecordDatabase.WATERMARK_VALUE}, RecordDatabase.WATERMARK_NAME + " = ?",
+                    new String[]{name}, null, null, null)) {
+                return cursor.moveToFirst() ? cursor.getLong(0) : 0L;
+            }
+        });
+    }
+
+    @Override
+    public void setWatermark(final String name, final long value) throws ExecutionException, InterruptedException {
+        call(() -> {
+            final ContentValues values = new ContentValues(2);
+            values.put(RecordDatabase.WATERMARK_NAME, name);
+            values.put(RecordDatabase.WATERMARK_VALUE, value);
+            return database().insertWithOnConflict(RecordDatabase.WATERMARK_TABLE, null, values,
+                    SQLiteDatabase.CONFLICT_REPLACE);
+        });
+    }
+
+    /**
+     * Expiring is a write like any other: each cleared Don't Like is stamped with the time and the row
+     * gets the next change number, so the expiry is pushed and an older copy pulled later loses.
+     */
+    @Override
+    public int expireDontLikes(final long clickedBefore) {
+        final long now = System.currentTimeMillis();
+        final Integer count = await(() -> {
+            writePending();
+            final SQLiteDatabase db = database();
+            final List<String> ids = new ArrayList<>();
+            try (Cursor cursor = db.query(RecordDatabase.TABLE, new String[]{RecordDatabase.BUSINESS_ID},
+                    RecordDatabase.DONT_LIKE_CLICK_DATE + " > 0 AND "
+                            + RecordDatabase.DONT_LIKE_CLICK_DATE + " <= ?",
+                    new String[]{Long.toString(clickedBefore)}, null, null, null)) {
+                while (cursor.moveToNext()) {
+                    ids.add(cursor.getString(0));
+                }
+            }
+            if (ids.isEmpty()) {
+                return 0;
+            }
+
+            db.beginTransaction();
+            try (SQLiteStatement expire = db.compileStatement(EXPIRE_DONT_LIKE)) {
+                for (String id : ids) {
+                    expire.bindLong(1, now);
+                    expire.bindLong(2, ++lastChangeSeq);
+                    expire.bindString(3, id);
+                    expire.executeUpdateDelete();
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            return ids.size();
+        });
+        return count != null ? count : 0;
+    }
+
+    @Override
+    public List<String> getLikedIds() {
+        final List<String> ids = await(() -> {
+            writePending();
+            final List<String> result = new ArrayList<>();
+            try (Cursor cursor = database().query(RecordDatabase.TABLE, new String[]{RecordDatabase.BUSINESS_ID},
+                    RecordDatabase.DONT_LIKE_CLICK_DATE + " = ?",
+                    new String[]{Integer.toString(BusinessItemRecord.LIKED)}, null, null, null)) {
+                while (cursor.moveToNext()) {
+                    result.add(cursor.getString(0));
+                }
+            }
+            return result;
+        });
+        return ids != null ? ids : Collections.emptyList();
+    }
+
+    @Override
+    public Future<?> open() {
+        return executor.submit(() -> {
+            try {
+                database();
+            } catch (RuntimeException e) {
+                // The next call tries again
+                Timber.e(e, "Could not open the user record database");
+            }
+        });
+    }
+
+    /**
+     * Opens the database on first use, which imports legacy records if it's new
+     */
+    private SQLiteDatabase database() {
+        if (db == null) {
+            db = database.getWritableDatabase();
+            updateChanged = db.compileStatement(UPDATE_CHANGED);
+            insertNew = db.compileStatement(INSERT_NEW);
+            lastChangeSeq = DatabaseUtils.longForQuery(db,
+                    "SELECT MAX(" + RecordDatabase.CHANGE_SEQ + ") FROM " + RecordDatabase.TABLE, null);
+            if (migration != null) {
+                migration.cleanUp();
+            }
+        }
+        return db;
+    }
+
+    /**
+     * Runs `task` on the executor and waits for it
+     *
+     * @return The task's result, or `null` if it failed
+     */
+    @Nullable
+    private <T> T await(final Callable<T> task) {
+        try {
+            return call(task);
+        } catch (ExecutionException e) {
+            Timber.e(e.getCause(), "User record query failed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    /**
+     * Runs `task` on the executor and waits for it, throwing what it throws
+     */
+    private <T> T call(final Callable<T> task) throws ExecutionException, InterruptedException {
+        return executor.submit(task).get();
+    }
+
+    private static String stampIfChanged(final String updatedAtColumn, final String column, final int valueIndex) {
+        return updatedAtColumn + " = CASE WHEN " + column + " = ?" + valueIndex
+                + " THEN " + updatedAtColumn + " ELSE ?5 END";
+    }
+
+    private static String columnsAndPlaceholders(final String[] columns) {
+        final StringBuilder sql = new StringBuilder(" (");
+        for (int i = 0; i < columns.length; i++) {
+            sql.append(i == 0 ? "" : ", ").append(columns[i]);
+        }
+        sql.append(") VALUES (");
+        for (int i = 0; i < columns.length; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        return sql.append(')').toString();
+    }
+
+    /**
+     * Binds `record` in {@link #SYNC_COLUMNS} order
+     */
+    private static void bind(final SQLiteStatement statement, final SyncRecord record) {
+        statement.bindString(1, record.businessId);
+        statement.bindLong(2, record.tooSoonClickDate);
+        statement.bindLong(3, record.dontLikeClickDate);
+        statement.bindLong(4, record.dismissedDate);
+        statement.bindLong(5, record.dismissedCount);
+        statement.bindLong(6, record.tooSoonUpdatedAt);
+        statement.bindLong(7, record.dontLikeUpdatedAt);
+        statement.bindLong(8, record.dismissedDateUpdatedAt);
+        statement.bindLong(9, record.dismissedCountUpdatedAt);
+        statement.bindLong(10, record.changeSeq);
+    }
+
+    static void bind(final SQLiteStatement statement, final BusinessItemRecord record) {
+        statement.bindString(1, record.getId());
+        statement.bindLong(2, record.getTooSoonClickDate());
+        statement.bindLong(3, record.getDontLikeClickDate());
+        statement.bindLong(4, record.getDismissedDate());
+        statement.bindLong(5, record.getDismissedCount());
+    }
+}
@@ -0,0 +1,80 @@
+package com.lipata.forkauthority.data.user;
+
+/**
+ * A {@link BusinessItemRecord} as it's synced between devices: every field carries the time it was last
+ * set, and two copies are merged field by field, the newer value winning. That way a Too Soon tapped on
+ * one device and a Like tapped on another both survive.
+ *
+ * A field that was never set has an `updatedAt` of 0 and loses to any set value.
+ */
+public final class SyncRecord {
+
+    String businessId;
+
+    long tooSoonClickDate;
+    long tooSoonUpdatedAt;
+
+    long dontLikeClickDate;
+    long dontLikeUpdatedAt;
+
+    long dismissedDate;
+    long dismissedDateUpdatedAt;
+
+    int dismissedCount;
+    long dismissedCountUpdatedAt;
+
+    // Local only: the record's position in the local change order, see SyncableRecordStore
+    long changeSeq;
+
+    // Remote only: when the remote copy last changed, by the remote's clock
+    long syncedAt;
+
+    SyncRecord(final String businessId) {
+        this.businessId = businessId;
+    }
+
+    /**
+     * Takes every field of `other` that was set later than the same field here. On equal times the
+     * larger value wins, so every copy ends up the same whichever order they're merged in.
+     *
+     * @return Whether any field changed
+     */
+    boolean mergeFrom(final SyncRecord other) {
+        boolean changed = false;
+        if (wins(other.tooSoonUpdatedAt, other.tooSoonClickDate, tooSoonUpdatedAt, tooSoonClickDate)) {
+            tooSoonClickDate = other.tooSoonClickDate;
+            tooSoonUpdatedAt = other.tooSoonUpdatedAt;
+            changed = true;
+        }
+        if (wins(other.dontLikeUpdatedAt, other.dontLikeClickDate, dontLikeUpdatedAt, dontLikeClickDate)) {
+            dontLikeClickDate = other.dontLikeClickDate;
+            dontLikeUpdatedAt = other.dontLikeUpdatedAt;
+            changed = true;
+        }
+        if (wins(other.dismissedDateUpdatedAt, other.dismissedDate, dismissedDateUpdatedAt, dismissedDate)) {
+            dismissedDate = other.dismissedDate;
+            dismissedDateUpdatedAt = other.dismissedDateUpdatedAt;
+            changed = true;
+        }
+        if (wins(other.dismissedCountUpdatedAt, other.dismissedCount, dismissedCountUpdatedAt, dismissedCount)) {
+            dismissedCount = other.dismissedCount;
+            dismissedCountUpdatedAt = other.dismissedCountUpdatedAt;
+            changed = true;
+        }
+        return changed;
+    }
+
+    private static boolean wins(final long updatedAt, final long value, final long currentUpdatedAt, final long current) {
+        return updatedAt > currentUpdatedAt || (updatedAt == currentUpdatedAt && value > current);
+    }
+
+    BusinessItemRecord toRecord() {
+        final BusinessItemRecord record = new BusinessItemRecord();
+        record.setId(businessId);
+        record.setTooSoonClickDate(tooSoonClickDate);
+        record.setDontLikeClickDate(dontLikeClickDate);
+        record.setDismissedDate(dismissedDate);
+        record.setDismissedCount(dismissedCount);
+        return record;
+    }
+}
@@ -0,0 +1,61 @@
+package com.lipata.forkauthority.data.user;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A {@link RecordStore} that {@link RecordSync} can sync with other devices and {@link RecordBackup}
+ * can back up.
+ *
+ * Every record saved with {@link #put(Collection)} gets the next number in a local change order, and
+ * each field that changed gets the time of the put, so {@link #changesSince(long, int)} can find what
+ * changed since the last push without reading every record.
+ *
+ * Unlike the {@link RecordStore} calls, these throw if the database fails, so a sync stops where it is
+ * instead of going on as if nothing was stored.
+ */
+public interface SyncableRecordStore extends RecordStore {
+
+    /**
+     * Reads records changed after `changeSeq` in change order. Blocks, call it off the main thread.
+     *
+     * @return Up to `limit` records with {@link SyncRecord#changeSeq} set
+     */
+    List<SyncRecord> changesSince(long changeSeq, int limit) throws ExecutionException, InterruptedException;
+
+    /**
+     * Merges records from another device into the stored ones field by field, see
+     * {@link SyncRecord#mergeFrom(SyncRecord)}. Merging doesn't count as a local change, so merged
+     * records aren't pushed back. Blocks, call it off the main thread.
+     *
+     * @return The stored records that changed, with the time each field was set
+     */
+    List<SyncRecord> merge(Collection<SyncRecord> records) throws ExecutionException, InterruptedException;
+
+    /**
+     * Same as {@link #merge(Collection)}, but the records that changed count as local changes and are
+     * pushed on the next sync, e.g. records restored from a backup. Blocks.
+     *
+     * @return The stored records that changed, with the time each field was set
+     */
+    List<SyncRecord> importRecords(Collection<SyncRecord> records) throws ExecutionException, InterruptedException;
+
+    /**
+     * Reads stored records in business ID order, starting after `businessId`. Pass "" for the first
+     * page and the last ID read for the next. Blocks.
+     *
+     * @return Up to `limit` records
+     */
+    List<SyncRecord> recordsAfter(String businessId, int limit) throws ExecutionException, InterruptedException;
+
+    /**
+     * @return The value last saved under `name` with {@link #setWatermark(String, long)}, or 0. Blocks.
+     */
+    long getWatermark(String name) throws ExecutionException, InterruptedException;
+
+    /**
+     * Saves how far a sync got. Kept with the records, so a new store starts over. Blocks.
+     */
+    void setWatermark(String name, long value) throws ExecutionException, InterruptedException;
+}
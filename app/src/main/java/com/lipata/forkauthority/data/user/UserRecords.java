@@ -1,172 +1,400 @@
 package com.lipata.forkauthority.data.user;
 
-import android.content.Context;
-import android.content.SharedPreferences;
-
-import com.google.gson.Gson;
-import com.google.gson.JsonSyntaxException;
-import com.google.gson.reflect.TypeToken;
-import com.lipata.forkauthority.R;
-import com.lipata.forkauthority.api.yelp3.entities.Business;
+import com.lipata.forkauthority.BuildConfig;
 import com.lipata.forkauthority.di.ApplicationScope;
+import com.lipata.forkauthority.businesslist.BusinessCard;
 import com.lipata.forkauthority.businesslist.BusinessListAdapter;
 
-import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.inject.Inject;
 
 import timber.log.Timber;
 
+/**
+ * The user's Like, Don't Like, Too Soon and dismiss history, by business ID. Kept in a
+ * {@link RecordStore}; only the records of businesses that were fetched or changed are held in memory.
+ *
+ * The in-memory records are an immutable {@link RecordSnapshot}. Readers on any thread take the current
+ * one and never block. A writer builds the next snapshot from the current one and publishes it with a
+ * compare-and-set, retrying if another writer got there first, so taps on the main thread never wait
+ * for list composition on a background thread, or the other way around.
+ */
 @ApplicationScope
 public class UserRecords {
 
-    private Context mContext;
-    private SharedPreferences sharedPrefs;
-    private Type collectionType;
-    private Gson gson;
+    // Indexes into the times kept in `changedAt`
+    private static final int TOO_SOON = 0;
+    private static final int DONT_LIKE = 1;
+    private static final int DISMISSED_DATE = 2;
+    private static final int DISMISSED_COUNT = 3;
 
-    private HashMap<String, BusinessItemRecord> map;
+    // Longest flush() blocks the main thread. Writing the held-back records takes a few ms; this only
+    // caps a wait behind other work on the store's thread.
+    static final long FLUSH_TIMEOUT_MS = 250;
+
+    private final RecordStore store;
+
+    private final AtomicReference<RecordSnapshot> snapshot = new AtomicReference<>(RecordSnapshot.EMPTY);
+
+    // When each field was last changed on this device, by business ID, so refresh() can tell a tap
+    // from an older stored copy. One entry per business changed since launch. Guarded by itself.
+    private final Map<String, long[]> changedAt = new HashMap<>();
+
+    // Set by warmUp(). Null from stores that open synchronously.
+    private Future<?> ready;
+    private boolean warmingUp;
 
     @Inject
-    UserRecords(final Context context, final SharedPreferences sharedPrefs) {
-        this.mContext = context;
-        this.sharedPrefs = sharedPrefs;
-
-        gson = new Gson();
-        collectionType = new TypeToken<HashMap<String, BusinessItemRecord>>(){}.getType();
-
-        // If there's an existing list of records, load it
-        if (sharedPrefs.contains(mContext.getString(R.string.key_user_records_v2))) {
-            try {
-                HashMap<String, BusinessItemRecord> userRecordMap = gson.fromJson(sharedPrefs
-                        .getString(mContext.getString(R.string.key_user_records_v2), null), collectionType);
-                map = userRecordMap;
-            } catch (JsonSyntaxException e) {
-                map = new HashMap<>();
-            }
+    UserRecords(final RecordStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Starts opening the store on its own thread, including any one-time migration, so it's ready by
+     * the time the first list is composed. Called from `Application.onCreate`; later calls do nothing.
+     */
+    public synchronized void warmUp() {
+        if (!warmingUp) {
+            warmingUp = true;
+            ready = store.open();
         }
-        // If there's no existing UserRecords
-        else {
-            map = new HashMap<>();
+    }
+
+    /**
+     * Blocks until {@link #warmUp()} is done, starting it if nobody did. Returns at once when the store
+     * is already open, which is the usual case by the time a list is composed. Call it off the main thread.
+     */
+    public void awaitReady() {
+        final Future<?> ready;
+        synchronized (this) {
+            warmUp();
+            ready = this.ready;
+        }
+        if (ready == null || ready.isDone()) {
+            return;
+        }
+
+        long startTime = System.nanoTime();
+        try {
+            ready.get();
+        } catch (ExecutionException e) {
+            // The store logs its own errors and retries on the next call
+            Timber.e(e.getCause(), "User records failed to open");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
+        Timber.d("Waited " + (System.nanoTime() - startTime) / 1000000 + " ms for user records");
     }
 
-    public HashMap<String, BusinessItemRecord> getUserRecords() {
-        return map;
+    /**
+     * Writes any changes the store is holding back and waits for the write, at most
+     * {@link #FLUSH_TIMEOUT_MS}. Called on the main thread when the app goes to the background or is
+     * asked to trim memory, so a process kill right after doesn't lose them. If the wait times out,
+     * e.g. behind a long sync merge, the write still finishes on the store's thread, which isn't a
+     * daemon and keeps running in the background.
+     */
+    public void flush() {
+        Future<?> written = store.flush();
+        if (written == null) {
+            return;
+        }
+        try {
+            written.get(FLUSH_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            Timber.w("User records still being written after " + FLUSH_TIMEOUT_MS + " ms");
+        } catch (ExecutionException e) {
+            // The store logs its own errors
+            Timber.e(e.getCause(), "User records failed to flush");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     /**
-     *
-     * @param businessId Business to update
+     * @return The cached records as they are now. Later changes publish a new snapshot and leave this
+     * one as it is.
      */
-    public void incrementDismissedCount(String businessId) {
-        Timber.d("incrementDismissedCount()");
+    public RecordSnapshot snapshot() {
+        return snapshot.get();
+    }
 
-        if (!map.containsKey(businessId)) {
-            Timber.d("Item does not exist");
+    /**
+     * Reads the records of `businessIds`, e.g. the businesses in a new result set. Blocks on the
+     * store, call it off the main thread. What's read stays cached, so taps on the businesses'
+     * cards never need the store.
+     *
+     * @return A copy of the records, for the caller to keep, taken from one snapshot. A business
+     * without a record gets one with every field 0.
+     */
+    public RecordIndex getRecords(Collection<String> businessIds) {
+        Map<String, BusinessItemRecord> records = store.get(businessIds);
+
+        // Cache what was read. A click can land while the query runs, the cached record is newer then.
+        RecordSnapshot current;
+        RecordSnapshot next;
+        do {
+            current = snapshot.get();
+            List<BusinessItemRecord> added = new ArrayList<>();
+            for (String businessId : businessIds) {
+                if (!current.contains(businessId)) {
+                    BusinessItemRecord record = records.get(businessId);
+                    if (record == null) {
+                        // Nothing stored, so a click can start from a new record without asking the store
+                        record = new BusinessItemRecord();
+                        record.setId(businessId);
+                    }
+                    added.add(record);
+                }
+            }
+            next = added.isEmpty() ? current : current.with(added);
+        } while (!snapshot.compareAndSet(current, next));
 
-            BusinessItemRecord businessItemRecord = new BusinessItemRecord();
-            businessItemRecord.setId(businessId);
+        RecordIndex result = new RecordIndex(businessIds.size());
+        for (String businessId : businessIds) {
+            next.copyTo(businessId, result);
+        }
+        return result;
+    }
 
-            // Increment
-            businessItemRecord.incrementDismissedCount();
+    /**
+     * Clears every Don't Like clicked at or before `clickedBefore`, in the store and in memory.
+     * Blocks on the store, call it off the main thread.
+     *
+     * @return Number of records changed
+     */
+    public int expireDontLikes(long clickedBefore) {
+        int expired = store.expireDontLikes(clickedBefore);
+        if (expired > 0) {
+            RecordSnapshot current;
+            do {
+                current = snapshot.get();
+            } while (!snapshot.compareAndSet(current, current.withExpiredDontLikes(clickedBefore)));
+        }
+        Timber.d("expireDontLikes() expired " + expired + " records");
+        return expired;
+    }
 
-            // Store data
-            updateStores(businessItemRecord);
+    /**
+     * Reads the IDs of every business the user Liked, including ones that aren't cached. Blocks on
+     * the store, call it off the main thread.
+     */
+    public List<String> getLikedIds() {
+        return store.getLikedIds();
+    }
 
-        } else {
-            Timber.d("Item does exist.");
+    /**
+     * Merges `stored` into the cached records field by field, e.g. records the store merged from
+     * another device. A field changed here after the stored copy was set keeps the cached value: a tap
+     * can land between the store's merge and this call, and the store writes it after the merge.
+     * Records that aren't cached are left to be read when they're needed. Doesn't write to the store.
+     */
+    public void refresh(Collection<SyncRecord> stored) {
+        if (stored.isEmpty()) {
+            return;
+        }
+        RecordSnapshot current;
+        RecordSnapshot next;
+        do {
+            current = snapshot.get();
+            List<BusinessItemRecord> cached = new ArrayList<>();
+            for (SyncRecord record : stored) {
+                BusinessItemRecord cachedRecord = current.get(record.businessId);
+                if (cachedRecord != null) {
+                    cached.add(newest(record, cachedRecord));
+                }
+            }
+            next = cached.isEmpty() ? current : current.with(cached);
+        } while (!snapshot.compareAndSet(current, next));
+    }
 
-            // Update dismissedCount
-            BusinessItemRecord record = map.get(businessId);
-            record.incrementDismissedCount();
+    private BusinessItemRecord newest(SyncRecord stored, BusinessItemRecord cached) {
+        BusinessItemRecord record = stored.toRecord();
+        synchronized (changedAt) {
+            long[] times = changedAt.get(stored.businessId);
+            if (times == null) {
+                return record;
+            }
+            if (times[TOO_SOON] > stored.tooSoonUpdatedAt) {
+                record.setTooSoonClickDate(cached.getTooSoonClickDate());
+            }
+            if (times[DONT_LIKE] > stored.dontLikeUpdatedAt) {
+                record.setDontLikeClickDate(cached.getDontLikeClickDate());
+            }
+            if (times[DISMISSED_DATE] > stored.dismissedDateUpdatedAt) {
+                record.setDismissedDate(cached.getDismissedDate());
+            }
+            if (times[DISMISSED_COUNT] > stored.dismissedCountUpdatedAt) {
+                record.setDismissedCount(cached.getDismissedCount());
+            }
+        }
+        return record;
+    }
 
-            // Store data
-            updateStores(record);
+    /**
+     *
+     * @param businessId Business to update
+     */
+    public void incrementDismissedCount(String businessId) {
+        Timber.d("incrementDismissedCount()");
 
-            Timber.d("Item " + businessId + " updated");
-        }
+        update(Collections.singletonList(businessId), (record, i) -> record.incrementDismissedCount());
 
+        Timber.d("Item " + businessId + " updated");
     }
 
     /**
      * To un-"Don't Like", set `time` to 0
      *
-     * @param business
+     * @param businessId
      * @param time
      * @param buttonId
      */
-    public void updateClickDate(Business business, long time, int buttonId) {
+    public void updateClickDate(String businessId, long time, int buttonId) {
         Timber.d("updateClickDate()");
 
-        if (!map.containsKey(business.getId())) {
-            Timber.d(business.getId() + " - Item does not exist");
-
-            BusinessItemRecord businessItemRecord = new BusinessItemRecord();
-            businessItemRecord.setId(business.getId());
-
-            // Assign based on button type
-            switch (buttonId) {
-                case BusinessListAdapter.TOOSOON:
-                    businessItemRecord.setTooSoonClickDate(time);
-                    break;
-                case BusinessListAdapter.DONTLIKE:
-                    businessItemRecord.setDontLikeClickDate(time);
-                    break;
-                case BusinessListAdapter.DISMISS:
-                    businessItemRecord.setDismissedDate(time);
-                    break;
-                case BusinessListAdapter.LIKE:
-                    businessItemRecord.setDontLikeClickDate(time); // Use "-1" for "Like"
-            }
+        update(Collections.singletonList(businessId), (record, i) -> setClickDate(record, time, buttonId));
+    }
 
-            updateStores(businessItemRecord);
-
-        } else {
-            Timber.d("Item does exist.");
-
-            // Update record ClickDate
-            BusinessItemRecord record = map.get(business.getId());
-            switch (buttonId) {
-                case BusinessListAdapter.TOOSOON:
-                    record.setTooSoonClickDate(time);
-                    break;
-                case BusinessListAdapter.DONTLIKE:
-                    record.setDontLikeClickDate(time);
-                    break;
-                case BusinessListAdapter.DISMISS:
-                    record.setDismissedDate(time);
-                case BusinessListAdapter.LIKE:
-                    record.setDontLikeClickDate(time); // Use "-1" for "Like"
-            }
+    /**
+     * Same as {@link #updateClickDate(String, long, int)} for several businesses at once. The
+     * records are handed to the store together, after all of them are updated.
+     *
+     * @param businessIds Businesses to update
+     */
+    public void updateClickDates(Collection<String> businessIds, long time, int buttonId) {
+        Timber.d("updateClickDates() for " + businessIds.size() + " businesses");
 
-            updateStores(record);
-        }
+        update(new ArrayList<>(businessIds), (record, i) -> setClickDate(record, time, buttonId));
+    }
+
+    /**
+     * Same as {@link #incrementDismissedCount(String)} for several businesses, saved together
+     */
+    public void incrementDismissedCounts(Collection<String> businessIds) {
+        Timber.d("incrementDismissedCounts() for " + businessIds.size() + " businesses");
+
+        update(new ArrayList<>(businessIds), (record, i) -> record.incrementDismissedCount());
     }
 
-    private void insertUserRecord(BusinessItemRecord businessItemRecord) {
-        map.put(businessItemRecord.getId(), businessItemRecord);
+    /**
+     * Sets the Like, Don't Like and Too Soon dates of each business back to what its card shows, e.g.
+     * to undo an action. Saved together.
+     */
+    public void restoreClickDates(Collection<BusinessCard> cards) {
+        Timber.d("restoreClickDates() for " + cards.size() + " businesses");
 
-        Timber.d("BusinessItemRecord " + businessItemRecord.getId() + " updated " + map.get(businessItemRecord));
+        List<BusinessCard> cardList = new ArrayList<>(cards);
+        List<String> businessIds = new ArrayList<>(cardList.size());
+        for (BusinessCard card : cardList) {
+            businessIds.add(card.getId());
+        }
+        update(businessIds, (record, i) -> {
+            record.setDontLikeClickDate(cardList.get(i).getDontLikeClickDate());
+            record.setTooSoonClickDate(cardList.get(i).getTooSoonClickDate());
+        });
     }
 
-    private void updateStores(BusinessItemRecord businessItemRecord) {
-        insertUserRecord(businessItemRecord);
-        updateSharedPrefs();
+    private interface Change {
+        /**
+         * @param record   A fresh copy of the record to change
+         * @param position The record's position in the list of IDs being updated
+         */
+        void apply(BusinessItemRecord record, int position);
     }
 
-    private void updateSharedPrefs() {
-        // Convert UserRecords to JSON
-        String jsonString = gson.toJson(map, collectionType);
+    /**
+     * Applies `change` to the records of `businessIds`, publishes them and hands them to the store
+     * together. If another thread publishes first, the change is applied again to its records.
+     *
+     * Never reads the store, since taps call it on the main thread. Every card shown was composed from
+     * {@link #getRecords(Collection)}, which caches its records for the rest of the process, so they
+     * are all in the snapshot. A record that isn't is skipped: starting it from 0 would overwrite the
+     * stored one.
+     */
+    private void update(List<String> businessIds, Change change) {
+        long now = System.currentTimeMillis();
+        List<BusinessItemRecord> changed;
+        RecordSnapshot current;
+        do {
+            current = snapshot.get();
+            changed = new ArrayList<>(businessIds.size());
+            for (int i = 0; i < businessIds.size(); i++) {
+                String businessId = businessIds.get(i);
+                BusinessItemRecord record = current.get(businessId);
+                if (record == null) {
+                    if (BuildConfig.DEBUG) {
+                        throw new IllegalStateException("Record of " + businessId + " changed before it was read");
+                    }
+                    Timber.e("Record of " + businessId + " changed before it was read, change dropped");
+                    continue;
+                }
+                BusinessItemRecord original = new BusinessItemRecord(record);
+                change.apply(record, i);
+                // Noted before publishing, so a refresh() racing this keeps the change
+                noteChanged(original, record, now);
+                changed.add(record);
+            }
+            if (changed.isEmpty()) {
+                return;
+            }
+        } while (!snapshot.compareAndSet(current, current.with(changed)));
+
+        Timber.d(changed.size() + " BusinessItemRecords updated");
+        store.put(changed);
+    }
 
-        // Check
-        Timber.d(jsonString);
+    private void noteChanged(BusinessItemRecord original, BusinessItemRecord record, long now) {
+        boolean tooSoon = original.getTooSoonClickDate() != record.getTooSoonClickDate();
+        boolean dontLike = original.getDontLikeClickDate() != record.getDontLikeClickDate();
+        boolean dismissedDate = original.getDismissedDate() != record.getDismissedDate();
+        boolean dismissedCount = original.getDismissedCount() != record.getDismissedCount();
+        if (!tooSoon && !dontLike && !dismissedDate && !dismissedCount) {
+            return;
+        }
+        synchronized (changedAt) {
+            long[] times = changedAt.get(record.getId());
+            if (times == null) {
+                times = new long[4];
+                changedAt.put(record.getId(), times);
+            }
+            if (tooSoon) {
+                times[TOO_SOON] = now;
+            }
+            if (dontLike) {
+                times[DONT_LIKE] = now;
+            }
+            if (dismissedDate) {
+                times[DISMISSED_DATE] = now;
+            }
+            if (dismissedCount) {
+                times[DISMISSED_COUNT] = now;
+            }
+        }
+    }
 
-        // Store data
-        Timber.d("Writing to SharedPreferences...");
-        SharedPreferences.Editor editor = sharedPrefs.edit();
-        editor.putString(mContext.getString(R.string.key_user_records_v2), jsonString);
-        editor.apply();
+    private static void setClickDate(BusinessItemRecord record, long time, int buttonId) {
+        switch (buttonId) {
+            case BusinessListAdapter.TOOSOON:
+                record.setTooSoonClickDate(time);
+                break;
+            case BusinessListAdapter.DONTLIKE:
+            case BusinessListAdapter.LIKE:
+                record.setDontLikeClickDate(time); // Use "-1" for "Like"
+                break;
+            case BusinessListAdapter.DISMISS:
+                record.setDismissedDate(time);
+                break;
+        }
     }
 }
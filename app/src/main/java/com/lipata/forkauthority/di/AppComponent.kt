@@ -1,6 +1,10 @@
 package com.lipata.forkauthority.di
 
+import com.lipata.forkauthority.LaunchActivity
 import com.lipata.forkauthority.businesslist.BusinessListActivity
+import com.lipata.forkauthority.businesslist.SettingsFragment
+import com.lipata.forkauthority.data.user.RecordSync
+import com.lipata.forkauthority.data.user.UserRecords
 import com.lipata.forkauthority.poll.PollActivity
 import com.lipata.forkauthority.poll.home.PollHomeFragment
 import com.lipata.forkauthority.poll.viewpoll.ViewPollFragment
@@ -9,8 +13,12 @@ import dagger.Component
 @ApplicationScope
 @Component(modules = [AppModule::class, YelpModule::class, FirebaseModule::class])
 interface AppComponent {
+    fun inject(target: LaunchActivity)
     fun inject(target: BusinessListActivity)
     fun inject(activity: PollActivity)
     fun inject(target: ViewPollFragment)
     fun inject(target: PollHomeFragment)
+    fun inject(target: SettingsFragment)
+    fun userRecords(): UserRecords
+    fun recordSync(): RecordSync
 }
\ No newline at end of file
@@ -6,9 +6,14 @@ import android.content.SharedPreferences
 import com.lipata.forkauthority.R
 import com.lipata.forkauthority.businesslist.ExpirationProvider
 import com.lipata.forkauthority.businesslist.JustAteHereExpirationProviderImpl
+import com.lipata.forkauthority.data.catalog.BusinessCatalog
+import com.lipata.forkauthority.data.user.RecordStore
+import com.lipata.forkauthority.data.user.SqliteRecordStore
+import com.lipata.forkauthority.data.user.SyncableRecordStore
 import com.lipata.forkauthority.util.AddressParser
 import dagger.Module
 import dagger.Provides
+import java.util.concurrent.Executors
 
 @Module
 class AppModule(private val application: Application) {
@@ -39,6 +44,32 @@ class AppModule(private val application: Application) {
         return AddressParser()
     }
 
+    @Provides
+    @ApplicationScope
+    fun provideSyncableRecordStore(context: Context, sharedPrefs: SharedPreferences): SyncableRecordStore {
+        return SqliteRecordStore.create(
+            context,
+            sharedPrefs,
+            context.getString(R.string.key_user_records_v2),
+            Executors.newSingleThreadScheduledExecutor { Thread(it, "user-records-io") }
+        )
+    }
+
+    @Provides
+    @ApplicationScope
+    fun provideRecordStore(store: SyncableRecordStore): RecordStore {
+        return store
+    }
+
+    @Provides
+    @ApplicationScope
+    fun provideBusinessCatalog(context: Context): BusinessCatalog {
+        return BusinessCatalog.create(
+            context,
+            Executors.newSingleThreadExecutor { Thread(it, "business-catalog-io") }
+        )
+    }
+
     @Provides
     @ApplicationScope
     fun provideJustAteHerePref(context: Context): ExpirationProvider {
@@ -1,6 +1,8 @@
 package com.lipata.forkauthority.di
 
 import com.google.firebase.firestore.FirebaseFirestore
+import com.lipata.forkauthority.data.user.FirestoreRecordStore
+import com.lipata.forkauthority.data.user.RemoteRecordStore
 import dagger.Module
 import dagger.Provides
 
@@ -12,4 +14,10 @@ open class FirebaseModule {
         return FirebaseFirestore.getInstance()
     }
 
+    @Provides
+    @ApplicationScope
+    open fun provideRemoteRecordStore(db: FirebaseFirestore): RemoteRecordStore {
+        return FirestoreRecordStore(db)
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,82 @@
+package com.lipata.forkauthority.image;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/**
+ * OkHttp network interceptor that counts image bytes actually read off the network. Responses
+ * served from the disk cache never reach a network interceptor, so they are not counted.
+ */
+class DownloadCounter implements Interceptor {
+
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong responses = new AtomicLong();
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull final Chain chain) throws IOException {
+        final Response response = chain.proceed(chain.request());
+        final ResponseBody body = response.body();
+        if (body == null) {
+            return response;
+        }
+        responses.incrementAndGet();
+        return response.newBuilder().body(new CountingBody(body)).build();
+    }
+
+    long getBytes() {
+        return bytes.get();
+    }
+
+    long getResponses() {
+        return responses.get();
+    }
+
+    private class CountingBody extends ResponseBody {
+        private final ResponseBody delegate;
+        private final BufferedSource source;
+
+        CountingBody(final ResponseBody delegate) {
+            this.delegate = delegate;
+            this.source = Okio.buffer(new ForwardingSource(delegate.source()) {
+                @Override
+                public long read(@NonNull final Buffer sink, final long byteCount) throws IOException {
+                    final long read = super.read(sink, byteCount);
+                    if (read > 0) {
+                        bytes.addAndGet(read);
+                    }
+                    return read;
+                }
+            });
+        }
+
+        @Nullable
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @NonNull
+        @Override
+        public BufferedSource source() {
+            return source;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.lipata.forkauthority.image;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.widget.ImageView;
+
+import androidx.annotation.NonNull;
+
+import com.lipata.forkauthority.R;
+import com.lipata.forkauthority.di.ApplicationScope;
+import com.squareup.picasso.Callback;
+import com.squareup.picasso.LruCache;
+import com.squareup.picasso.Picasso;
+import com.squareup.picasso.RequestCreator;
+
+import java.io.File;
+
+import javax.inject.Inject;
+
+import okhttp3.Cache;
+import okhttp3.OkHttpClient;
+import timber.log.Timber;
+
+/**
+ * Loads business thumbnails. Two tiers: decoded bitmaps in a memory LRU sized in bytes, and the
+ * downloaded files in OkHttp's disk cache.
+ *
+ * Thumbnails are decoded at the size of the ImageView (not the size of the photo) and as RGB_565,
+ * since they are opaque. That is roughly an eighth of the memory of a full size ARGB_8888 decode
+ * of a typical Yelp photo, and much less decode time. Yelp photos are also requested in the
+ * smallest size the CDN has that covers the view, see {@link YelpImageUrlResolver}.
+ */
+@ApplicationScope
+public class ImageLoader {
+
+    private static final Object PREFETCH_TAG = new Object();
+
+    private static final long DISK_CACHE_BYTES = 50L * 1024 * 1024;
+    private static final String DISK_CACHE_DIR = "image-cache";
+
+    // Share of the app's heap given to decoded bitmaps
+    private static final int MEMORY_CACHE_HEAP_DIVISOR = 8;
+
+    private final Picasso picasso;
+    private final DownloadCounter downloadCounter = new DownloadCounter();
+    private final int thumbnailSizePx;
+
+    @Inject
+    public ImageLoader(final Context context) {
+        final ActivityManager activityManager =
+                (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        final int memoryCacheBytes =
+                activityManager.getMemoryClass() * 1024 * 1024 / MEMORY_CACHE_HEAP_DIVISOR;
+
+        final OkHttpClient client = new OkHttpClient.Builder()
+                .cache(new Cache(new File(context.getCacheDir(), DISK_CACHE_DIR), DISK_CACHE_BYTES))
+                .addNetworkInterceptor(downloadCounter)
+                .build();
+
+        picasso = new Picasso.Builder(context)
+                .memoryCache(new LruCache(memoryCacheBytes))
+                .downloader(new OkHttp3Downloader(client))
+                .build();
+
+        thumbnailSizePx = context.getResources().getDimensionPixelSize(R.dimen.business_thumbnail_size);
+    }
+
+    /**
+     * Always requests the same size and config for a URL, so every load of a thumbnail (and any
+     * warm-up of it) hits the same memory cache entry.
+     */
+    public void loadThumbnail(final String url, final ImageView target) {
+        final String sizedUrl = YelpImageUrlResolver.resolve(url, thumbnailSizePx);
+        if (sizedUrl.equals(url)) {
+            thumbnail(url).into(target);
+        } else {
+            thumbnail(sizedUrl).into(target, new FallbackToOriginal(url, target));
+        }
+    }
+
+    /**
+     * Downloads and decodes a thumbnail into the memory cache at low priority, without a target.
+     * A later {@link #loadThumbnail} of the same URL is then served from memory.
+     */
+    public void prefetchThumbnail(final String url) {
+        thumbnail(YelpImageUrlResolver.resolve(url, thumbnailSizePx))
+                .priority(Picasso.Priority.LOW)
+                .tag(PREFETCH_TAG)
+                .fetch();
+    }
+
+    /**
+     * Drops prefetches that haven't completed. Loads into views for the same images carry on.
+     */
+    public void cancelPrefetches() {
+        picasso.cancelTag(PREFETCH_TAG);
+    }
+
+    /**
+     * Cancels a pending load into `target`, e.g. when its ViewHolder is recycled, so a late
+     * response for a business that scrolled away doesn't get decoded or shown.
+     */
+    public void cancel(final ImageView target) {
+        picasso.cancelRequest(target);
+    }
+
+    /**
+     * @return Image bytes read from the network since launch, not counting disk cache hits
+     */
+    public long getDownloadedBytes() {
+        return downloadCounter.getBytes();
+    }
+
+    public long getDownloadCount() {
+        return downloadCounter.getResponses();
+    }
+
+    private RequestCreator thumbnail(final String url) {
+        return picasso.load(url)
+                .resize(thumbnailSizePx, thumbnailSizePx)
+                .centerCrop()
+                .config(Bitmap.Config.RGB_565);
+    }
+
+    /**
+     * Not every photo has every variant. If the sized one fails, load the original. A new load into
+     * the same ImageView cancels this callback, so it never fires for a recycled view.
+     */
+    private class FallbackToOriginal implements Callback {
+        private final String originalUrl;
+        private final ImageView target;
+
+        FallbackToOriginal(@NonNull final String originalUrl, @NonNull final ImageView target) {
+            this.originalUrl = originalUrl;
+            this.target = target;
+        }
+
+        @Override
+        public void onSuccess() {
+        }
+
+        @Override
+        public void onError() {
+            Timber.d("No sized variant, falling back to %s", originalUrl);
+            thumbnail(originalUrl).into(target);
+        }
+    }
+}
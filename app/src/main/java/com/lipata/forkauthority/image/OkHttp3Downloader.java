@@ -0,0 +1,78 @@
+package com.lipata.forkauthority.image;
+
+import android.net.Uri;
+
+import com.squareup.picasso.Downloader;
+import com.squareup.picasso.NetworkPolicy;
+
+import java.io.IOException;
+
+import okhttp3.Cache;
+import okhttp3.CacheControl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+
+/**
+ * Picasso 2.5.2 only ships a downloader for OkHttp 2. This one does the same job on the OkHttp 3
+ * client the rest of the app uses, so images get OkHttp's disk cache, honouring HTTP cache headers.
+ */
+class OkHttp3Downloader implements Downloader {
+
+    private final OkHttpClient client;
+    private final Cache cache;
+
+    OkHttp3Downloader(final OkHttpClient client) {
+        this.client = client;
+        this.cache = client.cache();
+    }
+
+    @Override
+    public Response load(final Uri uri, final int networkPolicy) throws IOException {
+        final Request.Builder request = new Request.Builder().url(uri.toString());
+        final CacheControl cacheControl = cacheControlFor(networkPolicy);
+        if (cacheControl != null) {
+            request.cacheControl(cacheControl);
+        }
+
+        final okhttp3.Response response = client.newCall(request.build()).execute();
+        final ResponseBody body = response.body();
+        final int code = response.code();
+        if (code >= 300 || body == null) {
+            if (body != null) {
+                body.close();
+            }
+            throw new ResponseException(code + " " + response.message(), networkPolicy, code);
+        }
+
+        final boolean fromCache = response.cacheResponse() != null;
+        return new Response(body.byteStream(), fromCache, body.contentLength());
+    }
+
+    @Override
+    public void shutdown() {
+        if (cache != null) {
+            try {
+                cache.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private static CacheControl cacheControlFor(final int networkPolicy) {
+        if (networkPolicy == 0) {
+            return null;
+        }
+        if (NetworkPolicy.isOfflineOnly(networkPolicy)) {
+            return CacheControl.FORCE_CACHE;
+        }
+        final CacheControl.Builder builder = new CacheControl.Builder();
+        if (!NetworkPolicy.shouldReadFromDiskCache(networkPolicy)) {
+            builder.noCache();
+        }
+        if (!NetworkPolicy.shouldWriteToDiskCache(networkPolicy)) {
+            builder.noStore();
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,39 @@
+package com.lipata.forkauthority.image;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Yelp's search API hands out the original upload (`.../bphoto/<id>/o.jpg`), often well over a
+ * thousand pixels wide. The same CDN serves square crops of each photo under other file names, so
+ * we can ask for one just big enough for the view instead.
+ */
+final class YelpImageUrlResolver {
+
+    private static final String CDN_HOST = "yelpcdn.com/";
+    private static final String ORIGINAL = "o.jpg";
+
+    // Square variants served by the CDN, smallest first
+    private static final int[] VARIANT_SIZES_PX = {30, 60, 90, 100, 180, 258, 348};
+    private static final String[] VARIANT_NAMES = {"30s", "60s", "90s", "ms", "180s", "258s", "348s"};
+
+    private YelpImageUrlResolver() {
+    }
+
+    /**
+     * @param targetPx Largest side of the view the image will be shown in, in pixels
+     * @return URL of the smallest variant covering `targetPx`, or `url` unchanged if it is not a
+     * Yelp original or no variant is big enough
+     */
+    @Nullable
+    static String resolve(@Nullable final String url, final int targetPx) {
+        if (url == null || !url.contains(CDN_HOST) || !url.endsWith("/" + ORIGINAL)) {
+            return url;
+        }
+        for (int i = 0; i < VARIANT_SIZES_PX.length; i++) {
+            if (VARIANT_SIZES_PX[i] >= targetPx) {
+                return url.substring(0, url.length() - ORIGINAL.length()) + VARIANT_NAMES[i] + ".jpg";
+            }
+        }
+        return url;
+    }
+}
@@ -0,0 +1,94 @@
+package com.lipata.forkauthority.util;
+
+import java.util.Locale;
+
+/**
+ * Fixed-bucket histogram of durations. Recording is a bucket search and a few increments, with no
+ * allocation, so it can sit on the frame and bind paths.
+ *
+ * Not thread-safe. Record and read on the same thread.
+ */
+public class Histogram {
+
+    // Upper bounds of the buckets, in microseconds. Dense around one and two 60 Hz frames.
+    private static final long[] BOUNDS_US = {
+            250, 500, 1_000, 2_000, 4_000, 8_000, 12_000, 16_700, 25_000, 33_400, 50_000, 100_000, 250_000
+    };
+
+    private final long[] counts = new long[BOUNDS_US.length + 1];
+    private long count;
+    private long sumNanos;
+    private long maxNanos;
+
+    public void record(final long nanos) {
+        final long micros = nanos / 1000;
+        int bucket = 0;
+        while (bucket < BOUNDS_US.length && micros > BOUNDS_US[bucket]) {
+            bucket++;
+        }
+        counts[bucket]++;
+        count++;
+        sumNanos += nanos;
+        if (nanos > maxNanos) {
+            maxNanos = nanos;
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public long getMeanNanos() {
+        return count == 0 ? 0 : sumNanos / count;
+    }
+
+    /**
+     * @param percentile 0 to 100
+     * @return Upper bound of the bucket holding that percentile, capped at the largest value seen.
+     * 0 if nothing was recorded.
+     */
+    public long getPercentileNanos(final double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = 0;
+        for (int bucket = 0; bucket < BOUNDS_US.length; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return Math.min(BOUNDS_US[bucket] * 1000, maxNanos);
+            }
+        }
+        return maxNanos;
+    }
+
+    public void reset() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = 0;
+        }
+        count = 0;
+        sumNanos = 0;
+        maxNanos = 0;
+    }
+
+    /**
+     * e.g. "n=120 mean 1.2 p50 1.0 p90 2.0 p99 4.0 max 5.3 ms"
+     */
+    public String summary() {
+        return String.format(Locale.US, "n=%d mean %.1f p50 %.1f p90 %.1f p99 %.1f max %.1f ms",
+                count,
+                toMillis(getMeanNanos()),
+                toMillis(getPercentileNanos(50)),
+                toMillis(getPercentileNanos(90)),
+                toMillis(getPercentileNanos(99)),
+                toMillis(maxNanos));
+    }
+
+    private static double toMillis(final long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
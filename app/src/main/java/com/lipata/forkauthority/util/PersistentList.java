@@ -0,0 +1,274 @@
+package com.lipata.forkauthority.util;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable list where every change returns a new list that shares all untouched nodes with the
+ * old one. Backed by an AVL tree keyed by position, so get, insert, remove and replace at any index
+ * are O(log n), and keeping an old version around costs only the O(log n) nodes the change copied.
+ *
+ * The {@link List} mutators inherited from {@link AbstractList} throw. Use {@link #plus},
+ * {@link #minus} and {@link #with} instead.
+ */
+public final class PersistentList<E> extends AbstractList<E> {
+
+    private static final PersistentList<Object> EMPTY = new PersistentList<>(null);
+
+    private final Node<E> root;
+
+    private PersistentList(final Node<E> root) {
+        this.root = root;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentList<E> empty() {
+        return (PersistentList<E>) EMPTY;
+    }
+
+    /**
+     * Builds a balanced tree in O(n)
+     */
+    public static <E> PersistentList<E> of(final List<? extends E> items) {
+        if (items instanceof PersistentList) {
+            @SuppressWarnings("unchecked")
+            final PersistentList<E> persistent = (PersistentList<E>) items;
+            return persistent;
+        }
+        if (items.isEmpty()) {
+            return empty();
+        }
+        final Object[] array = items.toArray();
+        return new PersistentList<>(PersistentList.<E>build(array, 0, array.length));
+    }
+
+    @Override
+    public int size() {
+        return size(root);
+    }
+
+    @Override
+    public E get(int index) {
+        checkIndex(index, size());
+        Node<E> node = root;
+        while (true) {
+            final int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node.value;
+            }
+        }
+    }
+
+    /**
+     * @return A list with `item` inserted at `index`
+     */
+    public PersistentList<E> plus(final int index, final E item) {
+        checkIndex(index, size() + 1);
+        return new PersistentList<>(insert(root, index, item));
+    }
+
+    public PersistentList<E> plus(final E item) {
+        return plus(size(), item);
+    }
+
+    /**
+     * @return A list with `items` inserted at `index`, in iteration order
+     */
+    public PersistentList<E> plusAll(final int index, final Collection<? extends E> items) {
+        checkIndex(index, size() + 1);
+        Node<E> node = root;
+        int at = index;
+        for (E item : items) {
+            node = insert(node, at++, item);
+        }
+        return node == root ? this : new PersistentList<>(node);
+    }
+
+    public PersistentList<E> plusAll(final Collection<? extends E> items) {
+        return plusAll(size(), items);
+    }
+
+    /**
+     * @return A list without the item at `index`
+     */
+    public PersistentList<E> minus(final int index) {
+        checkIndex(index, size());
+        return new PersistentList<>(remove(root, index));
+    }
+
+    /**
+     * @return A list with the item at `index` replaced by `item`
+     */
+    public PersistentList<E> with(final int index, final E item) {
+        checkIndex(index, size());
+        return new PersistentList<>(replace(root, index, item));
+    }
+
+    /**
+     * In-order walk with an explicit stack, O(n) for the whole list instead of O(n log n) through
+     * {@link #get(int)}
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private final ArrayDeque<Node<E>> stack = new ArrayDeque<>();
+
+            {
+                pushLeft(root);
+            }
+
+            private void pushLeft(Node<E> node) {
+                while (node != null) {
+                    stack.push(node);
+                    node = node.left;
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return !stack.isEmpty();
+            }
+
+            @Override
+            public E next() {
+                if (stack.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                final Node<E> node = stack.pop();
+                pushLeft(node.right);
+                return node.value;
+            }
+        };
+    }
+
+    /**
+     * Height of the underlying tree, for tests
+     */
+    int height() {
+        return height(root);
+    }
+
+    // region Tree
+
+    private static final class Node<E> {
+        final E value;
+        final Node<E> left;
+        final Node<E> right;
+        final int size;
+        final int height;
+
+        Node(final E value, final Node<E> left, final Node<E> right) {
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.size = size(left) + size(right) + 1;
+            this.height = Math.max(height(left), height(right)) + 1;
+        }
+    }
+
+    private static int size(final Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static int height(final Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> Node<E> build(final Object[] items, final int from, final int to) {
+        if (from >= to) {
+            return null;
+        }
+        final int mid = (from + to) >>> 1;
+        return new Node<>((E) items[mid], PersistentList.<E>build(items, from, mid), PersistentList.<E>build(items, mid + 1, to));
+    }
+
+    private static <E> Node<E> insert(final Node<E> node, final int index, final E item) {
+        if (node == null) {
+            return new Node<>(item, null, null);
+        }
+        final int leftSize = size(node.left);
+        if (index <= leftSize) {
+            return balance(node.value, insert(node.left, index, item), node.right);
+        }
+        return balance(node.value, node.left, insert(node.right, index - leftSize - 1, item));
+    }
+
+    private static <E> Node<E> remove(final Node<E> node, final int index) {
+        final int leftSize = size(node.left);
+        if (index < leftSize) {
+            return balance(node.value, remove(node.left, index), node.right);
+        }
+        if (index > leftSize) {
+            return balance(node.value, node.left, remove(node.right, index - leftSize - 1));
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        // Replace with the first item of the right subtree
+        Node<E> first = node.right;
+        while (first.left != null) {
+            first = first.left;
+        }
+        return balance(first.value, node.left, remove(node.right, 0));
+    }
+
+    private static <E> Node<E> replace(final Node<E> node, final int index, final E item) {
+        final int leftSize = size(node.left);
+        if (index < leftSize) {
+            return new Node<>(node.value, replace(node.left, index, item), node.right);
+        }
+        if (index > leftSize) {
+            return new Node<>(node.value, node.left, replace(node.right, index - leftSize - 1, item));
+        }
+        return new Node<>(item, node.left, node.right);
+    }
+
+    /**
+     * Makes a node from `value`, `left` and `right`, rotating if their heights differ by 2, which
+     * is the most a single insert or remove can cause
+     */
+    private static <E> Node<E> balance(final E value, final Node<E> left, final Node<E> right) {
+        final int leftHeight = height(left);
+        final int rightHeight = height(right);
+        if (leftHeight > rightHeight + 1) {
+            if (height(left.left) >= height(left.right)) {
+                return new Node<>(left.value, left.left, new Node<>(value, left.right, right));
+            }
+            final Node<E> pivot = left.right;
+            return new Node<>(pivot.value,
+                    new Node<>(left.value, left.left, pivot.left),
+                    new Node<>(value, pivot.right, right));
+        }
+        if (rightHeight > leftHeight + 1) {
+            if (height(right.right) >= height(right.left)) {
+                return new Node<>(right.value, new Node<>(value, left, right.left), right.right);
+            }
+            final Node<E> pivot = right.left;
+            return new Node<>(pivot.value,
+                    new Node<>(value, left, pivot.left),
+                    new Node<>(right.value, pivot.right, right.right));
+        }
+        return new Node<>(value, left, right);
+    }
+
+    // endregion
+
+    private static void checkIndex(final int index, final int bound) {
+        if (index < 0 || index >= bound) {
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + bound);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.lipata.forkauthority.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Helpers for reading rows by a list of IDs with `column IN (?, ?, ...)`. Long lists are queried in
+ * chunks, each small enough for SQLite's limit on bound parameters.
+ */
+public final class SqlIdQueries {
+
+    // SQLite allows 999 bound parameters by default
+    public static final int MAX_IDS_PER_QUERY = 500;
+
+    private SqlIdQueries() {
+    }
+
+    /**
+     * @return Views of consecutive runs of `ids`, at most {@link #MAX_IDS_PER_QUERY} long each
+     */
+    public static <T> List<List<T>> chunks(final List<T> ids) {
+        final List<List<T>> chunks = new ArrayList<>((ids.size() + MAX_IDS_PER_QUERY - 1) / MAX_IDS_PER_QUERY);
+        for (int start = 0; start < ids.size(); start += MAX_IDS_PER_QUERY) {
+            chunks.add(ids.subList(start, Math.min(ids.size(), start + MAX_IDS_PER_QUERY)));
+        }
+        return chunks;
+    }
+
+    /**
+     * @return `column IN (?,?,...)` with `count` placeholders, to bind the IDs of one chunk to
+     */
+    public static StringBuilder selection(final String column, final int count) {
+        final StringBuilder selection = new StringBuilder(column).append(" IN (");
+        for (int i = 0; i < count; i++) {
+            selection.append(i == 0 ? "?" : ",?");
+        }
+        return selection.append(')');
+    }
+}
@@ -0,0 +1,161 @@
+package com.lipata.forkauthority.businesslist;
+
+import com.lipata.forkauthority.api.yelp3.entities.Business;
+import com.lipata.forkauthority.data.Categories;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+public class BusinessCardBinderTest {
+
+    private static final int BINDS = 10000;
+
+    private BusinessListRow.Card card;
+    private CountingCardView view;
+
+    @Before
+    public void setUp() {
+        Business business = new Business();
+        business.setId("test-business");
+        business.name = "Test Business";
+
+        BusinessCard businessCard = new BusinessCardFactory(new CardTextPrecomputer())
+                .create(business, -1, 0, System.currentTimeMillis()); // -1 means "Like"
+        card = BusinessListRow.Card.of(businessCard, 1, Categories.LIKES, false, null);
+        view = new CountingCardView();
+    }
+
+    @Test
+    public void bind_copiesPreparedValues() {
+        BusinessCardBinder.bind(card, view);
+
+        Assert.assertEquals("1.", view.rank);
+        Assert.assertEquals("Test Business", view.name);
+        Assert.assertEquals(Business.YOU_LIKE_THIS, view.descriptiveText);
+        Assert.assertTrue(view.liked);
+        Assert.assertFalse(view.dontLike);
+    }
+
+    @Test
+    public void bindChanges_onlyTouchesChangedFields() {
+        BusinessCardBinder.bindChanges(card, CardPayload.LIKED, view);
+
+        Assert.assertEquals(1, view.calls);
+        Assert.assertTrue(view.liked);
+    }
+
+    /**
+     * Binding runs for every card scrolled into view. Anything allocated here is garbage on the
+     * scroll path, so the budget is zero bytes per bind. A little slack is allowed for the
+     * measurement itself.
+     */
+    @Test
+    public void bind_doesNotAllocate() {
+        Assume.assumeTrue(isAllocationCountingSupported());
+
+        // Warm up, so class loading and the like aren't counted
+        for (int i = 0; i < BINDS; i++) {
+            BusinessCardBinder.bind(card, view);
+            BusinessCardBinder.bindChanges(card, CardPayload.RANK | CardPayload.DESCRIPTIVE_TEXT, view);
+        }
+
+        long before = allocatedBytes();
+        for (int i = 0; i < BINDS; i++) {
+            BusinessCardBinder.bind(card, view);
+            BusinessCardBinder.bindChanges(card, CardPayload.RANK | CardPayload.DESCRIPTIVE_TEXT, view);
+        }
+        long allocated = allocatedBytes() - before;
+
+        Assert.assertTrue("Bind allocated " + allocated + " bytes over " + BINDS + " iterations",
+                allocated < BINDS);
+    }
+
+    private static boolean isAllocationCountingSupported() {
+        return ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .isThreadAllocatedMemorySupported();
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static class CountingCardView implements BusinessCardView {
+        int calls;
+        CharSequence rank;
+        CharSequence name;
+        CharSequence descriptiveText;
+        boolean liked;
+        boolean dontLike;
+
+        @Override
+        public void setImageUrl(String imageUrl) {
+            calls++;
+        }
+
+        @Override
+        public void setClosed(boolean closed) {
+            calls++;
+        }
+
+        @Override
+        public void setRank(CharSequence rankLabel) {
+            calls++;
+            this.rank = rankLabel;
+        }
+
+        @Override
+        public void setName(CharSequence name) {
+            calls++;
+            this.name = name;
+        }
+
+        @Override
+        public void setRating(int ratingBucket) {
+            calls++;
+        }
+
+        @Override
+        public void setReviewCount(CharSequence reviewCount) {
+            calls++;
+        }
+
+        @Override
+        public void setCategories(CharSequence categories) {
+            calls++;
+        }
+
+        @Override
+        public void setAddress(CharSequence address) {
+            calls++;
+        }
+
+        @Override
+        public void setDescriptiveText(CharSequence descriptiveText) {
+            calls++;
+            this.descriptiveText = descriptiveText;
+        }
+
+        @Override
+        public void setLiked(boolean liked) {
+            calls++;
+            this.liked = liked;
+        }
+
+        @Override
+        public void setDontLike(boolean dontLike) {
+            calls++;
+            this.dontLike = dontLike;
+        }
+
+        @Override
+        public void setChecked(boolean checked) {
+            calls++;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.lipata.forkauthority.businesslist
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule
+import com.lipata.forkauthority.api.GooglePlayApi
+import com.lipata.forkauthority.api.yelp3.entities.Business
+import com.lipata.forkauthority.data.CombinedList
+import com.lipata.forkauthority.data.ListComposer
+import com.lipata.forkauthority.data.ListFetcher
+import com.nhaarman.mockitokotlin2.any
+import com.nhaarman.mockitokotlin2.doReturn
+import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.times
+import com.nhaarman.mockitokotlin2.verify
+import com.nhaarman.mockitokotlin2.whenever
+import io.reactivex.Single
+import io.reactivex.android.plugins.RxAndroidPlugins
+import io.reactivex.plugins.RxJavaPlugins
+import io.reactivex.schedulers.Schedulers
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.After
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+
+class BusinessListViewModelTest {
+
+    @get:Rule
+    val instantTaskExecutorRule = InstantTaskExecutorRule()
+
+    private val fetcher: ListFetcher = mock()
+    private val googlePlayApi: GooglePlayApi = mock()
+    private val listComposer: ListComposer = mock()
+    private val fullList: CombinedList = mock { on { size() } doReturn 20 }
+    private val likedList: CombinedList = mock { on { size() } doReturn 2 }
+
+    private lateinit var viewModel: BusinessListViewModel
+
+    @Before
+    fun setUp() {
+        RxJavaPlugins.setIoSchedulerHandler { Schedulers.trampoline() }
+        RxAndroidPlugins.setInitMainThreadSchedulerHandler { Schedulers.trampoline() }
+
+        whenever(googlePlayApi.isLocationStale).thenReturn(false)
+        whenever(googlePlayApi.lastLocation).thenReturn(mock())
+        whenever(listComposer.composeCached(any(), any())).thenReturn(likedList)
+        whenever(listComposer.filter(any())).thenReturn(fullList)
+
+        viewModel = BusinessListViewModel(fetcher, googlePlayApi, mock(), listComposer, mock(), mock())
+    }
+
+    @After
+    fun tearDown() {
+        RxJavaPlugins.reset()
+        RxAndroidPlugins.reset()
+    }
+
+    @Test
+    fun firstFetch_showsCachedThenSuccess() {
+        whenever(fetcher.getList(any(), any())).thenReturn(Single.just(listOf(Business())))
+        val states = mutableListOf<FetchListState>()
+        viewModel.listLiveData.observeForever { states.add(it) }
+
+        viewModel.onStart()
+
+        assertThat(states.map { it.javaClass.simpleName }, `is`(listOf("Loading", "Cached", "Success")))
+    }
+
+    @Test
+    fun refreshWhileShowingSuccess_keepsTheListInsteadOfShowingCached() {
+        whenever(fetcher.getList(any(), any())).thenReturn(Single.just(listOf(Business())), Single.never())
+        viewModel.onStart()
+        val states = mutableListOf<FetchListState>()
+        viewModel.listLiveData.observeForever { states.add(it) }
+
+        // The FAB, while Yelp hasn't answered yet
+        viewModel.fetchBusinessList()
+
+        assertThat(states.map { it.javaClass.simpleName }, `is`(listOf("Success", "Loading")))
+    }
+
+    @Test
+    fun startWhileFetching_doesNotFetchAgain() {
+        whenever(fetcher.getList(any(), any())).thenReturn(Single.never())
+        viewModel.onStart()
+        assertThat(viewModel.listLiveData.value is FetchListState.Cached, `is`(true))
+
+        // Back from the background before Yelp answered
+        viewModel.onStart()
+
+        verify(fetcher, times(1)).getList(any(), any())
+    }
+}
@@ -0,0 +1,67 @@
+package com.lipata.forkauthority.businesslist;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ExpiryQueueTest {
+
+    @Test
+    public void pollDue_returnsOnlyDueIdsAsOneBatch() {
+        ExpiryQueue queue = new ExpiryQueue();
+        queue.schedule("a", 30);
+        queue.schedule("b", 10);
+        queue.schedule("c", 20);
+
+        assertThat(queue.nextDueAt(), is(10L));
+        assertThat(queue.pollDue(20), is(ids("b", "c")));
+        assertThat(queue.nextDueAt(), is(30L));
+        assertThat(queue.size(), is(1));
+    }
+
+    @Test
+    public void reschedulingAndCancelling_skipOldEntries() {
+        ExpiryQueue queue = new ExpiryQueue();
+        queue.schedule("a", 10);
+        queue.schedule("b", 15);
+        queue.schedule("a", 50);
+        queue.cancel("b");
+
+        assertThat(queue.nextDueAt(), is(50L));
+        assertThat(queue.pollDue(40).isEmpty(), is(true));
+        assertThat(queue.pollDue(50), is(ids("a")));
+        assertThat(queue.nextDueAt(), is(ExpiryQueue.NONE));
+    }
+
+    @Test
+    public void manyReschedules_keepLatestDueTime() {
+        ExpiryQueue queue = new ExpiryQueue();
+        for (int i = 0; i < 1_000; i++) {
+            queue.schedule("a", 1_000 - i);
+            queue.schedule("b", 2_000 + i);
+        }
+
+        assertThat(queue.pollDue(1), is(ids("a")));
+        assertThat(queue.pollDue(2_998).isEmpty(), is(true));
+        assertThat(queue.pollDue(2_999), is(ids("b")));
+    }
+
+    @Test
+    public void scheduleNone_cancels() {
+        ExpiryQueue queue = new ExpiryQueue();
+        queue.schedule("a", 10);
+        queue.schedule("a", ExpiryQueue.NONE);
+
+        assertThat(queue.size(), is(0));
+        assertThat(queue.nextDueAt(), is(ExpiryQueue.NONE));
+    }
+
+    private static Set<String> ids(String... ids) {
+        return new HashSet<>(Arrays.asList(ids));
+    }
+}
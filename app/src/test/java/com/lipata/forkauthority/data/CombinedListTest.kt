@@ -1,8 +1,11 @@
 package com.lipata.forkauthority.data
 
 import com.lipata.forkauthority.api.yelp3.entities.Business
+import com.lipata.forkauthority.businesslist.BusinessCard
+import com.lipata.forkauthority.businesslist.BusinessCardFactory
 import com.lipata.forkauthority.businesslist.BusinessListBaseItem
-import com.lipata.forkauthority.businesslist.BusinessListHeader
+import com.lipata.forkauthority.businesslist.BusinessListRow
+import com.lipata.forkauthority.businesslist.CardTextPrecomputer
 import org.hamcrest.CoreMatchers.`is`
 import org.hamcrest.CoreMatchers.equalTo
 import org.hamcrest.MatcherAssert.assertThat
@@ -37,33 +40,21 @@ class CombinedListTest {
         val dontLikeBusiness = Business()
         dontLikeBusiness.name = "Don't Like Business"
 
-        val likesList = mutableListOf<BusinessListBaseItem>(
-                BusinessListHeader(Categories.LIKES),
-                likedBusiness
-        )
+        val likesList = mutableListOf<BusinessListBaseItem>(likedBusiness)
 
-        val tooSoonList = mutableListOf<BusinessListBaseItem>(
-                BusinessListHeader(Categories.LIKES_TOO_SOON),
-                tooSoonBusiness
-        )
+        val tooSoonList = mutableListOf<BusinessListBaseItem>(tooSoonBusiness)
 
-        val unsortedList = mutableListOf<BusinessListBaseItem>(
-                BusinessListHeader(Categories.UNSORTED),
-                unsortedBusiness
-        )
+        val unsortedList = mutableListOf<BusinessListBaseItem>(unsortedBusiness)
 
-        val dontLikeList = mutableListOf<BusinessListBaseItem>(
-                BusinessListHeader(Categories.DONT_LIKE),
-                dontLikeBusiness
-        )
+        val dontLikeList = mutableListOf<BusinessListBaseItem>(dontLikeBusiness)
 
         listProxy.setSublists(
                 listOf(likesList, tooSoonList, unsortedList, mutableListOf(),dontLikeList))
 
-        assertThat((listProxy.get(1) as Business).getName(), `is`(equalTo(likedBusiness.getName())))
-        assertThat((listProxy.get(3) as Business).getName(), `is`(equalTo(tooSoonBusiness.getName())))
-        assertThat((listProxy.get(5) as Business).getName(), `is`(equalTo(unsortedBusiness.getName())))
-        assertThat((listProxy.get(7) as Business).getName(), `is`(equalTo(dontLikeBusiness.getName())))
+        assertThat((listProxy.get(0) as Business).getName(), `is`(equalTo(likedBusiness.getName())))
+        assertThat((listProxy.get(1) as Business).getName(), `is`(equalTo(tooSoonBusiness.getName())))
+        assertThat((listProxy.get(2) as Business).getName(), `is`(equalTo(unsortedBusiness.getName())))
+        assertThat((listProxy.get(3) as Business).getName(), `is`(equalTo(dontLikeBusiness.getName())))
     }
 
     /**
@@ -72,16 +63,202 @@ class CombinedListTest {
     @Test
     fun get_noTooSoon() {
         val listProxy = initList_WithoutTooSoon()
-        assertThat((listProxy.get(1) as Business).getName(), `is`(equalTo(LIKED_BUSINESS)))
-        assertThat((listProxy.get(3) as Business).getName(), `is`(equalTo(UNSORTED_BUSINESS)))
-        assertThat((listProxy.get(5) as Business).getName(), `is`(equalTo(DONT_LIKE_BUSINESS)))
+        assertThat((listProxy.get(0) as Business).getName(), `is`(equalTo(LIKED_BUSINESS)))
+        assertThat((listProxy.get(1) as Business).getName(), `is`(equalTo(UNSORTED_BUSINESS)))
+        assertThat((listProxy.get(2) as Business).getName(), `is`(equalTo(DONT_LIKE_BUSINESS)))
     }
 
     @Test
     fun add() {
         val listProxy = initList_WithoutTooSoon()
-        listProxy.add(2, BusinessListHeader(Categories.LIKES_TOO_SOON))
-        assertThat((listProxy.get(2) as BusinessListHeader).key, `is`(equalTo(Categories.LIKES_TOO_SOON)))
+        val added = card("added")
+        listProxy.add(1, added)
+        assertThat(listProxy.get(1) === added, `is`(true))
+        assertThat(listProxy.getSublist(Categories.UNSORTED)[0] === added, `is`(true))
+    }
+
+    @Test
+    fun snapshot_numbersCardsAndTagsSections() {
+        val listProxy = CombinedList()
+        listProxy.setSublists(
+                listOf<List<BusinessListBaseItem>>(
+                        mutableListOf(card("liked")),
+                        mutableListOf(),
+                        mutableListOf(card("unsorted")),
+                        mutableListOf(),
+                        mutableListOf(card("dontLike"))))
+
+        val rows = listProxy.snapshot().map { it as BusinessListRow.Card }
+
+        assertThat(rows.size, `is`(equalTo(listProxy.size())))
+        assertThat(rows.map { it.rank }, `is`(equalTo(listOf(1, 2, 3))))
+        assertThat(rows.map { it.section },
+                `is`(equalTo(listOf(Categories.LIKES, Categories.UNSORTED, Categories.DONT_LIKE))))
+    }
+
+    @Test
+    fun removeLastItemOfSublist_leavesSublistEmpty() {
+        val listProxy = initList_WithoutTooSoon()
+        val liked = listProxy.get(0)
+
+        listProxy.remove(liked)
+
+        assertThat(listProxy.getSublist(Categories.LIKES).isEmpty(), `is`(true))
+        assertThat(listProxy.indexOf(liked), `is`(equalTo(-1)))
+        assertThat((listProxy.get(0) as Business).getName(), `is`(equalTo(UNSORTED_BUSINESS)))
+    }
+
+    @Test
+    fun insertIntoEmptySublist() {
+        val listProxy = initList_WithoutTooSoon()
+        val unsorted = listProxy.get(1)
+
+        listProxy.remove(unsorted)
+        listProxy.insertIntoSublist(Categories.LIKES_TOO_SOON, 0, unsorted)
+
+        assertThat(listProxy.getSublist(Categories.LIKES_TOO_SOON)[0] === unsorted, `is`(true))
+        assertThat(listProxy.indexOf(unsorted), `is`(equalTo(1)))
+    }
+
+    @Test
+    fun snapshot_cardMovedToAnotherSection_getsNewRow() {
+        val listProxy = CombinedList()
+        val moving = card("a")
+        listProxy.setSublists(
+                listOf<List<BusinessListBaseItem>>(
+                        mutableListOf(),
+                        mutableListOf(),
+                        mutableListOf(moving),
+                        mutableListOf(),
+                        mutableListOf()))
+
+        val first = listProxy.snapshot()
+        listProxy.remove(moving)
+        listProxy.appendToSublist(Categories.DONT_LIKE, moving)
+        val second = listProxy.snapshot()
+
+        // Same card and rank, but the header above it changes
+        assertThat((second[0] as BusinessListRow.Card).section, `is`(equalTo(Categories.DONT_LIKE)))
+        assertThat(second[0] === first[0], `is`(false))
+    }
+
+    @Test
+    fun snapshot_reusesUnchangedRows() {
+        val listProxy = CombinedList()
+        listProxy.setSublists(
+                listOf<List<BusinessListBaseItem>>(
+                        mutableListOf(),
+                        mutableListOf(),
+                        mutableListOf(card("a"), card("b"), card("c")),
+                        mutableListOf(),
+                        mutableListOf()))
+
+        val first = listProxy.snapshot()
+        listProxy.remove(listProxy.get(1))
+        val second = listProxy.snapshot()
+
+        // "a" didn't change or move, so its row is reused
+        assertThat(second[0] === first[0], `is`(true))
+        // "c" moved up and was renumbered, so it's a new row
+        assertThat((second[1] as BusinessListRow.Card).rankLabel, `is`(equalTo("2.")))
+        assertThat(second[1] === first[2], `is`(false))
+    }
+
+    @Test
+    fun removeCards_removesAcrossSublistsAndKeepsOrder() {
+        val listProxy = CombinedList()
+        listProxy.setSublists(
+                listOf<List<BusinessListBaseItem>>(
+                        mutableListOf(card("a")),
+                        mutableListOf(),
+                        mutableListOf(card("b"), card("c"), card("d")),
+                        mutableListOf(),
+                        mutableListOf(card("e"))))
+        val ids = setOf("e", "b", "d")
+
+        val found = listProxy.findCards(ids)
+        listProxy.removeCards(ids)
+        listProxy.appendAllToSublist(Categories.DONT_LIKE, found)
+
+        assertThat(found.map { it.id }, `is`(equalTo(listOf("b", "d", "e"))))
+        assertThat(listProxy.snapshot().map { (it as BusinessListRow.Card).card.id },
+                `is`(equalTo(listOf("a", "c", "b", "d", "e"))))
+    }
+
+    @Test
+    fun locate_followsChangesAndRemoveAtKeepsTheRest() {
+        val listProxy = CombinedList()
+        listProxy.setSublists(
+                listOf<List<BusinessListBaseItem>>(
+                        mutableListOf(card("a")),
+                        mutableListOf(),
+                        mutableListOf(card("b"), card("c"), card("d")),
+                        mutableListOf(),
+                        mutableListOf()))
+        listProxy.snapshot()
+        listProxy.insertIntoSublist(Categories.UNSORTED, 0, card("new"))
+
+        val d = listProxy.locate("d")!!
+        assertThat(d.section, `is`(equalTo(Categories.UNSORTED)))
+        assertThat(listProxy.getCard(d).id, `is`(equalTo("d")))
+        assertThat(listProxy.locate("missing") == null, `is`(true))
+
+        listProxy.removeAt(listOf(listProxy.locate("b")!!, d, listProxy.locate("a")!!))
+
+        assertThat(listProxy.snapshot().map { (it as BusinessListRow.Card).card.id },
+                `is`(equalTo(listOf("new", "c"))))
+    }
+
+    @Test
+    fun snapshot_marksSelectedRows() {
+        val listProxy = CombinedList()
+        listProxy.setSublists(
+                listOf<List<BusinessListBaseItem>>(
+                        mutableListOf(),
+                        mutableListOf(),
+                        mutableListOf(card("a"), card("b")),
+                        mutableListOf(),
+                        mutableListOf()))
+
+        val first = listProxy.snapshot()
+        val second = listProxy.snapshot(setOf("b"))
+
+        assertThat(second[0] === first[0], `is`(true))
+        assertThat((second[1] as BusinessListRow.Card).isSelected, `is`(true))
+    }
+
+    @Test
+    fun restore_bringsBackEarlierContents() {
+        val listProxy = CombinedList()
+        val a = card("a")
+        listProxy.setSublists(
+                listOf<List<BusinessListBaseItem>>(
+                        mutableListOf(),
+                        mutableListOf(),
+                        mutableListOf(a, card("b")),
+                        mutableListOf(),
+                        mutableListOf(card("c"))))
+        val before = listProxy.contents
+        val dontLike = listProxy.getSublist(Categories.DONT_LIKE)
+
+        listProxy.remove(a)
+        listProxy.insertIntoSublist(Categories.LIKES, 0, a)
+
+        // The edit didn't touch Don't Like, so the new contents share it with the old
+        assertThat(listProxy.getSublist(Categories.DONT_LIKE) === dontLike, `is`(true))
+        assertThat(listProxy.indexOf(a), `is`(equalTo(0)))
+
+        listProxy.restore(before)
+
+        assertThat(listProxy.getSublist(Categories.UNSORTED)[0] === a, `is`(true))
+        assertThat(listProxy.getSublist(Categories.LIKES).isEmpty(), `is`(true))
+    }
+
+    private fun card(id: String): BusinessCard {
+        val business = Business()
+        business.id = id
+        business.name = id
+        return BusinessCardFactory(CardTextPrecomputer()).create(business, 0, 0, 0)
     }
 
     /**
@@ -100,22 +277,13 @@ class CombinedListTest {
         val dontLikeBusiness = Business()
         dontLikeBusiness.name = DONT_LIKE_BUSINESS
 
-        val likesList = mutableListOf<BusinessListBaseItem>(
-                BusinessListHeader(Categories.LIKES),
-                likedBusiness
-        )
+        val likesList = mutableListOf<BusinessListBaseItem>(likedBusiness)
 
         val tooSoonList = mutableListOf<BusinessListBaseItem>()
 
-        val unsortedList = mutableListOf<BusinessListBaseItem>(
-                BusinessListHeader(Categories.UNSORTED),
-                unsortedBusiness
-        )
+        val unsortedList = mutableListOf<BusinessListBaseItem>(unsortedBusiness)
 
-        val dontLikeList = mutableListOf<BusinessListBaseItem>(
-                BusinessListHeader(Categories.DONT_LIKE),
-                dontLikeBusiness
-        )
+        val dontLikeList = mutableListOf<BusinessListBaseItem>(dontLikeBusiness)
 
         listProxy.setSublists(
                 listOf<List<BusinessListBaseItem>>(likesList, tooSoonList, unsortedList, mutableListOf(), dontLikeList))
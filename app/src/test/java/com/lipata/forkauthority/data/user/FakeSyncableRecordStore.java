@@ -0,0 +1,181 @@
+package com.lipata.forkauthority.data.user;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Future;
+
+/**
+ * In-memory {@link SyncableRecordStore}. Stamps and numbers changes the way {@link SqliteRecordStore} does.
+ */
+class FakeSyncableRecordStore implements SyncableRecordStore {
+    // By business ID, for recordsAfter()
+    final TreeMap<String, SyncRecord> rows = new TreeMap<>();
+    final Map<String, Long> watermarks = new HashMap<>();
+    long now;
+    long lastChangeSeq;
+
+    @Override
+    public Future<?> open() {
+        return null;
+    }
+
+    @Override
+    public Map<String, BusinessItemRecord> get(Collection<String> businessIds) {
+        Map<String, BusinessItemRecord> result = new HashMap<>();
+        for (String businessId : businessIds) {
+            SyncRecord row = rows.get(businessId);
+            if (row != null) {
+                result.put(businessId, row.toRecord());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void put(Collection<BusinessItemRecord> records) {
+        for (BusinessItemRecord record : records) {
+            SyncRecord row = rows.get(record.getId());
+            if (row == null) {
+                row = new SyncRecord(record.getId());
+                rows.put(record.getId(), row);
+            }
+            boolean changed = false;
+            if (row.tooSoonClickDate != record.getTooSoonClickDate()) {
+                row.tooSoonClickDate = record.getTooSoonClickDate();
+                row.tooSoonUpdatedAt = now;
+                changed = true;
+            }
+            if (row.dontLikeClickDate != record.getDontLikeClickDate()) {
+                row.dontLikeClickDate = record.getDontLikeClickDate();
+                row.dontLikeUpdatedAt = now;
+                changed = true;
+            }
+            if (row.dismissedDate != record.getDismissedDate()) {
+                row.dismissedDate = record.getDismissedDate();
+                row.dismissedDateUpdatedAt = now;
+                changed = true;
+            }
+            if (row.dismissedCount != record.getDismissedCount()) {
+                row.dismissedCount = record.getDismissedCount();
+                row.dismissedCountUpdatedAt = now;
+                changed = true;
+            }
+            if (changed) {
+                row.changeSeq = ++lastChangeSeq;
+            }
+        }
+    }
+
+    @Override
+    public Future<?> flush() {
+        return null;
+    }
+
+    @Override
+    public int expireDontLikes(long clickedBefore) {
+        int expired = 0;
+        for (SyncRecord row : rows.values()) {
+            if (row.dontLikeClickDate > 0 && row.dontLikeClickDate <= clickedBefore) {
+                row.dontLikeClickDate = 0;
+                row.dontLikeUpdatedAt = now;
+                row.changeSeq = ++lastChangeSeq;
+                expired++;
+            }
+        }
+        return expired;
+    }
+
+    @Override
+    public List<String> getLikedIds() {
+        List<String> ids = new ArrayList<>();
+        for (SyncRecord row : rows.values()) {
+            if (row.dontLikeClickDate == BusinessItemRecord.LIKED) {
+                ids.add(row.businessId);
+            }
+        }
+        return ids;
+    }
+
+    @Override
+    public List<SyncRecord> changesSince(long changeSeq, int limit) {
+        List<SyncRecord> changes = new ArrayList<>();
+        for (SyncRecord row : rows.values()) {
+            if (row.changeSeq > changeSeq) {
+                changes.add(copy(row));
+            }
+        }
+        Collections.sort(changes, (a, b) -> Long.compare(a.changeSeq, b.changeSeq));
+        return changes.size() > limit ? changes.subList(0, limit) : changes;
+    }
+
+    @Override
+    public List<SyncRecord> merge(Collection<SyncRecord> records) {
+        return merge(records, false);
+    }
+
+    @Override
+    public List<SyncRecord> importRecords(Collection<SyncRecord> records) {
+        return merge(records, true);
+    }
+
+    @Override
+    public List<SyncRecord> recordsAfter(String businessId, int limit) {
+        List<SyncRecord> page = new ArrayList<>();
+        for (SyncRecord row : rows.tailMap(businessId, false).values()) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(copy(row));
+        }
+        return page;
+    }
+
+    private List<SyncRecord> merge(Collection<SyncRecord> records, boolean localChange) {
+        List<SyncRecord> changed = new ArrayList<>();
+        for (SyncRecord record : records) {
+            SyncRecord row = rows.get(record.businessId);
+            if (row == null) {
+                row = new SyncRecord(record.businessId);
+                rows.put(record.businessId, row);
+            }
+            if (row.mergeFrom(record)) {
+                if (localChange) {
+                    row.changeSeq = ++lastChangeSeq;
+                }
+                changed.add(copy(row));
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public long getWatermark(String name) {
+        Long value = watermarks.get(name);
+        return value != null ? value : 0;
+    }
+
+    @Override
+    public void setWatermark(String name, long value) {
+        watermarks.put(name, value);
+    }
+
+    static SyncRecord copy(SyncRecord record) {
+        SyncRecord copy = new SyncRecord(record.businessId);
+        copy.tooSoonClickDate = record.tooSoonClickDate;
+        copy.tooSoonUpdatedAt = record.tooSoonUpdatedAt;
+        copy.dontLikeClickDate = record.dontLikeClickDate;
+        copy.dontLikeUpdatedAt = record.dontLikeUpdatedAt;
+        copy.dismissedDate = record.dismissedDate;
+        copy.dismissedDateUpdatedAt = record.dismissedDateUpdatedAt;
+        copy.dismissedCount = record.dismissedCount;
+        copy.dismissedCountUpdatedAt = record.dismissedCountUpdatedAt;
+        copy.changeSeq = record.changeSeq;
+        copy.syncedAt = record.syncedAt;
+        return copy;
+    }
+}
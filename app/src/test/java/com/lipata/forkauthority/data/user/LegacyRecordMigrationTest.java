@@ -0,0 +1,38 @@
+package com.lipata.forkauthority.data.user;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class LegacyRecordMigrationTest {
+
+    @Test
+    public void readBlob_readsEveryRecordAndSkipsUnknownFields() throws IOException {
+        String blob = "{"
+                + "\"a\":{\"Id\":\"a\",\"tooSoonClickDate\":1,\"dontLikeClickDate\":-1,"
+                + "\"dismissedClickDate\":2,\"dismissedCount\":3,\"unknown\":{\"x\":[1,2]}},"
+                + "\"b\":{\"dontLikeClickDate\":4},"
+                + "\"c\":null"
+                + "}";
+        List<BusinessItemRecord> records = new ArrayList<>();
+
+        LegacyRecordMigration.readBlob(new StringReader(blob), records::add);
+
+        assertThat(records.size(), is(2));
+        BusinessItemRecord a = records.get(0);
+        assertThat(a.getId(), is("a"));
+        assertThat(a.getTooSoonClickDate(), is(1L));
+        assertThat(a.getDontLikeClickDate(), is(-1L));
+        assertThat(a.getDismissedDate(), is(2L));
+        assertThat(a.getDismissedCount(), is(3));
+        // The map key stands in for a missing Id
+        assertThat(records.get(1).getId(), is("b"));
+        assertThat(records.get(1).getDontLikeClickDate(), is(4L));
+    }
+}
@@ -0,0 +1,92 @@
+package com.lipata.forkauthority.data.user;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Collections;
+
+import static com.lipata.forkauthority.testutils.TestUtilsKt.record;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class RecordBackupTest {
+
+    @Test
+    public void largeHistory_roundTripsInBoundedTime() throws Exception {
+        int count = 30_000;
+        FakeSyncableRecordStore source = new FakeSyncableRecordStore();
+        for (int i = 0; i < count; i++) {
+            source.now = 1_000 + i;
+            source.put(Collections.singletonList(record("business-" + i, i + 1, i % 3 == 0 ? BusinessItemRecord.LIKED : 0)));
+        }
+        // A record with nothing in it isn't worth writing
+        source.put(Collections.singletonList(record("empty", 0, 0)));
+        FakeSyncableRecordStore target = new FakeSyncableRecordStore();
+
+        long start = System.nanoTime();
+        StringWriter file = new StringWriter();
+        int exported = backup(source).export(file);
+        int imported = backup(target).importFrom(new StringReader(file.toString()));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(exported, is(count));
+        assertThat(imported, is(count));
+        assertThat(elapsedMs < 10_000, is(true));
+        assertThat(target.rows.containsKey("empty"), is(false));
+        for (int i = 0; i < count; i += 997) {
+            SyncRecord expected = source.rows.get("business-" + i);
+            SyncRecord actual = target.rows.get("business-" + i);
+            assertThat(actual.tooSoonClickDate, is(expected.tooSoonClickDate));
+            assertThat(actual.tooSoonUpdatedAt, is(expected.tooSoonUpdatedAt));
+            assertThat(actual.dontLikeClickDate, is(expected.dontLikeClickDate));
+            assertThat(actual.dontLikeUpdatedAt, is(expected.dontLikeUpdatedAt));
+        }
+        // Restored records are pushed on the next sync
+        assertThat(target.changesSince(0, count + 1).size(), is(count));
+    }
+
+    @Test
+    public void importFrom_keepsNewerLocalFields() throws Exception {
+        FakeSyncableRecordStore store = new FakeSyncableRecordStore();
+        store.now = 5_000;
+        store.put(Collections.singletonList(record("a", 5_000, 0)));
+
+        int changed = backup(store).importFrom(new StringReader("{\"format\":\"fork-authority-user-records\","
+                + "\"version\":1,\"records\":[{\"id\":\"a\",\"tooSoonClickDate\":1000,\"tooSoonUpdatedAt\":1000,"
+                + "\"dontLikeClickDate\":-1,\"dontLikeUpdatedAt\":1000,\"addedLater\":{\"x\":1}}]}"));
+
+        assertThat(changed, is(1));
+        assertThat(store.rows.get("a").tooSoonClickDate, is(5_000L));
+        assertThat(store.rows.get("a").dontLikeClickDate, is((long) BusinessItemRecord.LIKED));
+    }
+
+    @Test
+    public void importFrom_cachedRecordsSeeImportedValues() throws Exception {
+        FakeSyncableRecordStore store = new FakeSyncableRecordStore();
+        UserRecords userRecords = new UserRecords(store);
+        userRecords.getRecords(Collections.singletonList("a"));
+
+        new RecordBackup(store, userRecords).importFrom(new StringReader("{\"format\":\"fork-authority-user-records\","
+                + "\"version\":1,\"records\":[{\"id\":\"a\",\"tooSoonClickDate\":1000,\"tooSoonUpdatedAt\":1000}]}"));
+
+        assertThat(userRecords.snapshot().get("a").getTooSoonClickDate(), is(1_000L));
+    }
+
+    @Test(expected = IOException.class)
+    public void importFrom_rejectsNewerVersion() throws Exception {
+        backup(new FakeSyncableRecordStore()).importFrom(new StringReader(
+                "{\"format\":\"fork-authority-user-records\",\"version\":" + (RecordBackup.VERSION + 1)
+                        + ",\"records\":[]}"));
+    }
+
+    @Test(expected = IOException.class)
+    public void importFrom_rejectsOtherFiles() throws Exception {
+        backup(new FakeSyncableRecordStore()).importFrom(new StringReader("{\"version\":1,\"records\":[]}"));
+    }
+
+    private static RecordBackup backup(FakeSyncableRecordStore store) {
+        return new RecordBackup(store, new UserRecords(store));
+    }
+}
@@ -0,0 +1,71 @@
+package com.lipata.forkauthority.data.user;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class RecordIndexTest {
+
+    @Test
+    public void randomPuts_matchHashMap() {
+        Random random = new Random(42);
+        Map<String, Long> expected = new HashMap<>();
+        RecordIndex index = new RecordIndex();
+
+        for (int i = 0; i < 20_000; i++) {
+            // Repeats some IDs so puts overwrite as well as add, and grow the table on the way
+            String id = "business-" + random.nextInt(8_000);
+            expected.put(id, (long) i);
+            index.put(id, i, -i, 2L * i, i % 7);
+        }
+
+        assertThat(index.size(), is(expected.size()));
+        for (Map.Entry<String, Long> entry : expected.entrySet()) {
+            // A different String object with the same contents
+            int slot = index.indexOf(new String(entry.getKey()));
+            long value = entry.getValue();
+            assertThat(index.getId(slot), is(entry.getKey()));
+            assertThat(index.getTooSoonClickDate(slot), is(value));
+            assertThat(index.getDontLikeClickDate(slot), is(-value));
+            assertThat(index.getDismissedDate(slot), is(2L * value));
+            assertThat(index.getDismissedCount(slot), is((int) (value % 7)));
+        }
+        assertThat(index.indexOf("business-missing"), is(-1));
+    }
+
+    @Test
+    public void nextSlot_visitsEveryRecordOnce() {
+        RecordIndex index = new RecordIndex();
+        for (int i = 0; i < 100; i++) {
+            index.put("business-" + i, i, 0, 0, 0);
+        }
+
+        long sum = 0;
+        int count = 0;
+        for (int slot = index.nextSlot(0); slot >= 0; slot = index.nextSlot(slot + 1)) {
+            sum += index.getTooSoonClickDate(slot);
+            count++;
+        }
+
+        assertThat(count, is(100));
+        assertThat(sum, is(99L * 100 / 2));
+    }
+
+    @Test
+    public void slotFor_addsEmptyRecordOnce() {
+        RecordIndex index = new RecordIndex();
+
+        int slot = index.slotFor("a");
+        index.setDismissedCount(slot, 3);
+
+        assertThat(index.slotFor("a"), is(slot));
+        assertThat(index.size(), is(1));
+        assertThat(index.toRecord(slot).getDismissedCount(), is(3));
+        assertThat(index.toRecord(slot).getDontLikeClickDate(), is(0L));
+    }
+}
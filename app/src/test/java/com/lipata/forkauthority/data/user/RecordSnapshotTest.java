@@ -0,0 +1,63 @@
+package com.lipata.forkauthority.data.user;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.lipata.forkauthority.testutils.TestUtilsKt.record;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class RecordSnapshotTest {
+
+    @Test
+    public void with_leavesEarlierSnapshotUnchanged() {
+        RecordSnapshot first = RecordSnapshot.EMPTY.with(Collections.singletonList(record("a", 1, 0)));
+
+        RecordSnapshot second = first.with(Collections.singletonList(record("a", 2, 0)));
+
+        assertThat(first.get("a").getTooSoonClickDate(), is(1L));
+        assertThat(second.get("a").getTooSoonClickDate(), is(2L));
+        assertThat(RecordSnapshot.EMPTY.get("a"), is(nullValue()));
+    }
+
+    /**
+     * Enough single changes to merge `recent` into `base` several times
+     */
+    @Test
+    public void manyChanges_keepLatestValues() {
+        RecordSnapshot snapshot = RecordSnapshot.EMPTY;
+        List<RecordSnapshot> history = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            snapshot = snapshot.with(Collections.singletonList(record("business-" + (i % 500), i, 0)));
+            history.add(snapshot);
+        }
+
+        for (int b = 0; b < 500; b++) {
+            assertThat(snapshot.get("business-" + b).getTooSoonClickDate(), is(1_500L + b));
+        }
+        // An old snapshot still sees its own point in time
+        assertThat(history.get(99).get("business-99").getTooSoonClickDate(), is(99L));
+        assertThat(history.get(99).contains("business-100"), is(false));
+    }
+
+    @Test
+    public void withExpiredDontLikes_clearsOnlyOldDontLikes() {
+        List<BusinessItemRecord> records = new ArrayList<>();
+        records.add(record("old", 0, 100));
+        records.add(record("new", 0, 200));
+        records.add(record("liked", 0, BusinessItemRecord.LIKED));
+        RecordSnapshot before = RecordSnapshot.EMPTY.with(records);
+
+        RecordSnapshot after = before.withExpiredDontLikes(100);
+
+        assertThat(after.get("old").getDontLikeClickDate(), is(0L));
+        assertThat(after.get("new").getDontLikeClickDate(), is(200L));
+        assertThat(after.get("liked").getDontLikeClickDate(), is((long) BusinessItemRecord.LIKED));
+        assertThat(before.get("old").getDontLikeClickDate(), is(100L));
+        assertThat(after.withExpiredDontLikes(100) == after, is(true));
+    }
+}
@@ -0,0 +1,199 @@
+package com.lipata.forkauthority.data.user;
+
+import com.lipata.forkauthority.businesslist.BusinessListAdapter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.lipata.forkauthority.testutils.TestUtilsKt.record;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class RecordSyncTest {
+
+    private static final String USER = "someone@example.com";
+
+    private FakeRemoteStore remote;
+    private Device phone;
+    private Device tablet;
+
+    @Before
+    public void setUp() {
+        remote = new FakeRemoteStore();
+        phone = new Device(remote);
+        tablet = new Device(remote);
+    }
+
+    @Test
+    public void changesToDifferentFields_bothSurvive() {
+        phone.put(record("a", 1_000, 0), 1_000);
+        tablet.put(record("a", 0, BusinessItemRecord.LIKED), 2_000);
+
+        syncAll();
+
+        for (Device device : new Device[]{phone, tablet}) {
+            BusinessItemRecord a = device.local.get(Collections.singletonList("a")).get("a");
+            assertThat(a.getTooSoonClickDate(), is(1_000L));
+            assertThat(a.getDontLikeClickDate(), is((long) BusinessItemRecord.LIKED));
+        }
+    }
+
+    @Test
+    public void sameField_newerWinsWhicheverSyncsFirst() {
+        phone.put(record("a", 0, 5_000), 5_000);
+        tablet.put(record("a", 0, BusinessItemRecord.LIKED), 3_000);
+
+        // The phone's Don't Like is newer even though the tablet pushes last
+        phone.sync();
+        tablet.sync();
+        phone.sync();
+
+        assertThat(phone.local.get(Collections.singletonList("a")).get("a").getDontLikeClickDate(), is(5_000L));
+        assertThat(tablet.local.get(Collections.singletonList("a")).get("a").getDontLikeClickDate(), is(5_000L));
+    }
+
+    @Test
+    public void expiredDontLike_isPushedAndNotRevivedByOlderCopy() {
+        phone.put(record("a", 0, 1_000), 1_000);
+        syncAll();
+
+        phone.local.now = 9_000;
+        assertThat(phone.local.expireDontLikes(1_000), is(1));
+        syncAll();
+
+        assertThat(phone.local.get(Collections.singletonList("a")).get("a").getDontLikeClickDate(), is(0L));
+        assertThat(tablet.local.get(Collections.singletonList("a")).get("a").getDontLikeClickDate(), is(0L));
+    }
+
+    @Test
+    public void sync_pushesOnlyRecordsChangedSinceLastPush() {
+        for (int i = 0; i < 50; i++) {
+            phone.put(record("business-" + i, i + 1, 0), 1_000);
+        }
+        phone.sync();
+        assertThat(remote.pushedRecords, is(50));
+
+        phone.put(record("business-7", 9_999, 0), 2_000);
+        phone.sync();
+
+        assertThat(remote.pushedRecords, is(51));
+        phone.sync();
+        assertThat(remote.pushedRecords, is(51));
+    }
+
+    @Test
+    public void sync_pagesThroughMoreThanOneBatch() {
+        int count = RecordSync.PULL_PAGE_SIZE * 2 + 7;
+        for (int i = 0; i < count; i++) {
+            phone.put(record("business-" + i, i + 1, 0), 1_000);
+        }
+
+        syncAll();
+
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add("business-" + i);
+        }
+        assertThat(tablet.local.get(ids).size(), is(count));
+        assertThat(tablet.local.get(Collections.singletonList("business-" + (count - 1)))
+                .get("business-" + (count - 1)).getTooSoonClickDate(), is((long) count));
+    }
+
+    @Test
+    public void pulledChanges_replaceCachedRecords() {
+        tablet.userRecords.getRecords(Collections.singletonList("a"));
+        phone.put(record("a", 7_000, 0), 7_000);
+
+        syncAll();
+
+        assertThat(tablet.userRecords.snapshot().get("a").getTooSoonClickDate(), is(7_000L));
+    }
+
+    @Test
+    public void tapBetweenMergeAndRefresh_keepsTheTap() throws Exception {
+        tablet.userRecords.getRecords(Collections.singletonList("a"));
+        phone.put(record("a", 0, BusinessItemRecord.LIKED), 1_000);
+        phone.sync();
+
+        // The tablet merges the Like, and a Too Soon is tapped before the merged copy is cached
+        List<SyncRecord> changed = tablet.local.merge(remote.changedSince(USER, 0, 10));
+        tablet.userRecords.updateClickDate("a", 7_000, BusinessListAdapter.TOOSOON);
+        tablet.userRecords.refresh(changed);
+
+        BusinessItemRecord a = tablet.userRecords.snapshot().get("a");
+        assertThat(a.getTooSoonClickDate(), is(7_000L));
+        assertThat(a.getDontLikeClickDate(), is((long) BusinessItemRecord.LIKED));
+    }
+
+    private void syncAll() {
+        assertThat(phone.sync(), is(true));
+        assertThat(tablet.sync(), is(true));
+        assertThat(phone.sync(), is(true));
+    }
+
+    private static class Device {
+        final FakeSyncableRecordStore local = new FakeSyncableRecordStore();
+        final UserRecords userRecords = new UserRecords(local);
+        final RecordSync sync;
+
+        Device(RemoteRecordStore remote) {
+            sync = new RecordSync(local, remote, userRecords, mock(UserIdentityManager.class));
+        }
+
+        void put(BusinessItemRecord record, long time) {
+            local.now = time;
+            local.put(Collections.singletonList(record));
+        }
+
+        boolean sync() {
+            return sync.sync(USER);
+        }
+    }
+
+    /**
+     * One user's documents, with a clock that ticks once per push, like a server commit time
+     */
+    private static class FakeRemoteStore implements RemoteRecordStore {
+        final Map<String, SyncRecord> documents = new TreeMap<>();
+        long serverTime = 100;
+        int pushedRecords;
+
+        @Override
+        public void push(String userId, List<SyncRecord> records) {
+            assertThat(userId, is(USER));
+            serverTime++;
+            for (SyncRecord record : records) {
+                SyncRecord document = documents.get(record.businessId);
+                boolean exists = document != null;
+                if (!exists) {
+                    document = new SyncRecord(record.businessId);
+                    documents.put(record.businessId, document);
+                }
+                if (document.mergeFrom(record) || !exists) {
+                    document.syncedAt = serverTime;
+                }
+            }
+            pushedRecords += records.size();
+        }
+
+        @Override
+        public List<SyncRecord> changedSince(String userId, long syncedAt, int limit) {
+            List<SyncRecord> changed = new ArrayList<>();
+            for (SyncRecord document : documents.values()) {
+                if (document.syncedAt >= syncedAt) {
+                    changed.add(FakeSyncableRecordStore.copy(document));
+                }
+            }
+            Collections.sort(changed, Comparator.comparingLong(record -> record.syncedAt));
+            return changed.size() > limit ? changed.subList(0, limit) : changed;
+        }
+    }
+}
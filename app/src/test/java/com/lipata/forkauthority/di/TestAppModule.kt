@@ -4,6 +4,9 @@ import android.app.Application
 import android.content.Context
 import android.content.SharedPreferences
 import com.lipata.forkauthority.businesslist.ExpirationProvider
+import com.lipata.forkauthority.data.catalog.BusinessCatalog
+import com.lipata.forkauthority.data.user.RecordStore
+import com.lipata.forkauthority.data.user.SyncableRecordStore
 import com.lipata.forkauthority.data.user.UserIdentityManager
 import com.lipata.forkauthority.poll.viewpoll.ViewPollViewModel
 import com.lipata.forkauthority.util.AddressParser
@@ -49,6 +52,24 @@ class TestAppModule {
         return mock()
     }
 
+    @Provides
+    @ApplicationScope
+    fun provideRecordStore(): RecordStore {
+        return mock()
+    }
+
+    @Provides
+    @ApplicationScope
+    fun provideSyncableRecordStore(): SyncableRecordStore {
+        return mock()
+    }
+
+    @Provides
+    @ApplicationScope
+    fun provideBusinessCatalog(): BusinessCatalog {
+        return mock()
+    }
+
     @Provides
     @ApplicationScope
     fun provideJustAteHerePref(context: Context): ExpirationProvider {
@@ -1,6 +1,7 @@
 package com.lipata.forkauthority.di
 
 import com.google.firebase.firestore.FirebaseFirestore
+import com.lipata.forkauthority.data.user.RemoteRecordStore
 import com.nhaarman.mockitokotlin2.mock
 import dagger.Module
 import dagger.Provides
@@ -12,4 +13,10 @@ class TestFirebaseModule {
     fun provideFirestore(): FirebaseFirestore {
         return mock()
     }
+
+    @Provides
+    @ApplicationScope
+    fun provideRemoteRecordStore(): RemoteRecordStore {
+        return mock()
+    }
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.lipata.forkauthority.image;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class YelpImageUrlResolverTest {
+
+    private static final String BASE = "https://s3-media2.fl.yelpcdn.com/bphoto/nVVhQeBSwK1ywq2jwdbnCg/";
+    private static final String ORIGINAL = BASE + "o.jpg";
+
+    @Test
+    public void resolve_picksSmallestVariantCoveringTarget() {
+        Assert.assertEquals(BASE + "90s.jpg", YelpImageUrlResolver.resolve(ORIGINAL, 80)); // 80dp at mdpi
+        Assert.assertEquals(BASE + "180s.jpg", YelpImageUrlResolver.resolve(ORIGINAL, 160)); // xhdpi
+        Assert.assertEquals(BASE + "258s.jpg", YelpImageUrlResolver.resolve(ORIGINAL, 240)); // xxhdpi
+        Assert.assertEquals(BASE + "348s.jpg", YelpImageUrlResolver.resolve(ORIGINAL, 320)); // xxxhdpi
+    }
+
+    @Test
+    public void resolve_exactSizeUsesThatVariant() {
+        Assert.assertEquals(BASE + "ms.jpg", YelpImageUrlResolver.resolve(ORIGINAL, 100));
+    }
+
+    @Test
+    public void resolve_targetLargerThanAllVariants_keepsOriginal() {
+        Assert.assertEquals(ORIGINAL, YelpImageUrlResolver.resolve(ORIGINAL, 600));
+    }
+
+    @Test
+    public void resolve_nonYelpOrAlreadySized_unchanged() {
+        Assert.assertNull(YelpImageUrlResolver.resolve(null, 100));
+        Assert.assertEquals("", YelpImageUrlResolver.resolve("", 100));
+        Assert.assertEquals("https://example.com/photos/o.jpg",
+                YelpImageUrlResolver.resolve("https://example.com/photos/o.jpg", 100));
+        Assert.assertEquals(BASE + "ls.jpg", YelpImageUrlResolver.resolve(BASE + "ls.jpg", 100));
+    }
+}
@@ -2,6 +2,7 @@ package com.lipata.forkauthority.testutils
 
 import androidx.test.core.app.ApplicationProvider
 import com.lipata.forkauthority.ForkAuthorityApp
+import com.lipata.forkauthority.data.user.BusinessItemRecord
 import com.lipata.forkauthority.di.*
 
 fun setUpAppWithTestDependencies(): TestAppComponent {
@@ -13,4 +14,12 @@ fun setUpAppWithTestDependencies(): TestAppComponent {
             .build()
     }
     return app.appComponent as TestAppComponent
-}
\ No newline at end of file
+}
+
+fun record(id: String, tooSoonClickDate: Long, dontLikeClickDate: Long): BusinessItemRecord {
+    val record = BusinessItemRecord()
+    record.id = id
+    record.tooSoonClickDate = tooSoonClickDate
+    record.dontLikeClickDate = dontLikeClickDate
+    return record
+}
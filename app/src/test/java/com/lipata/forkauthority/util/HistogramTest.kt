@@ -0,0 +1,45 @@
+package com.lipata.forkauthority.util
+
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+class HistogramTest {
+
+    private val MS = 1_000_000L
+
+    @Test
+    fun percentiles_reportBucketUpperBound() {
+        val histogram = Histogram()
+        // 90 smooth frames and 10 that missed a vsync
+        repeat(90) { histogram.record(16 * MS) }
+        repeat(10) { histogram.record(30 * MS) }
+
+        assertThat(histogram.count, `is`(equalTo(100L)))
+        assertThat(histogram.getPercentileNanos(50.0), `is`(equalTo(16_700_000L)))
+        assertThat(histogram.getPercentileNanos(90.0), `is`(equalTo(16_700_000L)))
+        assertThat(histogram.getPercentileNanos(99.0), `is`(equalTo(30 * MS))) // capped at max
+        assertThat(histogram.maxNanos, `is`(equalTo(30 * MS)))
+    }
+
+    @Test
+    fun valuesPastLastBucket_reportMax() {
+        val histogram = Histogram()
+        histogram.record(1_000 * MS)
+
+        assertThat(histogram.getPercentileNanos(50.0), `is`(equalTo(1_000 * MS)))
+        assertThat(histogram.meanNanos, `is`(equalTo(1_000 * MS)))
+    }
+
+    @Test
+    fun reset_clearsEverything() {
+        val histogram = Histogram()
+        histogram.record(5 * MS)
+        histogram.reset()
+
+        assertThat(histogram.count, `is`(equalTo(0L)))
+        assertThat(histogram.getPercentileNanos(50.0), `is`(equalTo(0L)))
+        assertThat(histogram.maxNanos, `is`(equalTo(0L)))
+    }
+}
@@ -0,0 +1,64 @@
+package com.lipata.forkauthority.util
+
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import java.util.Random
+
+class PersistentListTest {
+
+    @Test
+    fun randomEdits_matchArrayList() {
+        val random = Random(42)
+        val expected = ArrayList<Int>()
+        var list = PersistentList.empty<Int>()
+
+        for (i in 0 until 5000) {
+            when {
+                expected.isEmpty() || random.nextInt(3) == 0 -> {
+                    val index = random.nextInt(expected.size + 1)
+                    expected.add(index, i)
+                    list = list.plus(index, i)
+                }
+                random.nextBoolean() -> {
+                    val index = random.nextInt(expected.size)
+                    expected.removeAt(index)
+                    list = list.minus(index)
+                }
+                else -> {
+                    val index = random.nextInt(expected.size)
+                    expected[index] = -i
+                    list = list.with(index, -i)
+                }
+            }
+        }
+
+        assertThat(list, `is`(equalTo<List<Int>>(expected)))
+        assertThat(list.size, `is`(equalTo(expected.size)))
+    }
+
+    @Test
+    fun edits_leaveOldVersionsUnchanged() {
+        val original = PersistentList.of(listOf("a", "b", "c", "d"))
+
+        val edited = original.minus(1).plus(0, "z").with(3, "y").plusAll(listOf("e", "f"))
+
+        assertThat(original, `is`(equalTo(listOf("a", "b", "c", "d"))))
+        assertThat(edited, `is`(equalTo(listOf("z", "a", "c", "y", "e", "f"))))
+    }
+
+    /**
+     * Appending is the worst case for an unbalanced tree. AVL height stays within 1.44 log2(n).
+     */
+    @Test
+    fun appending_staysBalanced() {
+        var list = PersistentList.empty<Int>()
+        for (i in 0 until 10_000) {
+            list = list.plus(i)
+        }
+
+        assertThat(list.height() <= 1.44 * Math.log(10_002.0) / Math.log(2.0), `is`(true))
+        assertThat(list[9_999], `is`(equalTo(9_999)))
+    }
+}
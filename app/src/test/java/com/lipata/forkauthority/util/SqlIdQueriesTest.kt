@@ -0,0 +1,26 @@
+package com.lipata.forkauthority.util
+
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+class SqlIdQueriesTest {
+
+    @Test
+    fun chunks_coverEveryIdInOrder() {
+        val ids = (0 until SqlIdQueries.MAX_IDS_PER_QUERY * 2 + 1).map { "id-$it" }
+
+        val chunks = SqlIdQueries.chunks(ids)
+
+        assertThat(chunks.map { it.size },
+                `is`(equalTo(listOf(SqlIdQueries.MAX_IDS_PER_QUERY, SqlIdQueries.MAX_IDS_PER_QUERY, 1))))
+        assertThat(chunks.flatten(), `is`(equalTo(ids)))
+        assertThat(SqlIdQueries.chunks(emptyList<String>()).isEmpty(), `is`(true))
+    }
+
+    @Test
+    fun selection_hasOnePlaceholderPerId() {
+        assertThat(SqlIdQueries.selection("id", 3).toString(), `is`(equalTo("id IN (?,?,?)")))
+    }
+}